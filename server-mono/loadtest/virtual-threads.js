@@ -0,0 +1,45 @@
+// So sánh chế độ platform thread và virtual thread với 5.000 kết nối đồng thời.
+//
+// 1. Chạy server ở chế độ mặc định (VIRTUAL_THREADS_ENABLED=false) rồi:
+//      k6 run -e BASE_URL=http://localhost:8080 -e OCCA_ID=<occaId> -e MODE=platform loadtest/virtual-threads.js
+// 2. Chạy lại server trên Java 21 với VIRTUAL_THREADS_ENABLED=true
+//    (thêm JAVA_OPTS=-Djdk.tracePinnedThreads=short để phát hiện pinning) rồi:
+//      k6 run -e BASE_URL=http://localhost:8080 -e OCCA_ID=<occaId> -e MODE=virtual loadtest/virtual-threads.js
+// 3. So sánh http_reqs (requests/s) và p(99) của http_req_duration trong summary-<mode>.json.
+//
+// Endpoint được chọn đi qua JPA và gRPC chặn (OccaGrpcClient), là đường I/O chặn điển hình.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const OCCA_ID = __ENV.OCCA_ID;
+const MODE = __ENV.MODE || 'platform';
+
+export const options = {
+    scenarios: {
+        concurrent_connections: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 5000),
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const res = http.get(`${BASE_URL}/v1/occa/forbooking/${OCCA_ID}`);
+    check(res, { 'status is 200': (r) => r.status === 200 });
+}
+
+export function handleSummary(data) {
+    const summary = {
+        mode: MODE,
+        requestsPerSecond: data.metrics.http_reqs.values.rate,
+        p99Ms: data.metrics.http_req_duration.values['p(99)'],
+        failedRate: data.metrics.http_req_failed.values.rate,
+    };
+    return {
+        stdout: JSON.stringify(summary, null, 2) + '\n',
+        [`loadtest/summary-${MODE}.json`]: JSON.stringify(summary, null, 2),
+    };
+}
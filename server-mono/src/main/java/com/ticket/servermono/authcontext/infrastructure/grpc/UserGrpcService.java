@@ -8,7 +8,11 @@ import net.devh.boot.grpc.server.service.GrpcService;
 import user.UserExistsRequest;
 import user.UserExistsResponse;
 import user.UserServiceGrpc;
+import user.UsersExistRequest;
+import user.UsersExistResponse;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -22,12 +26,12 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
     public void checkUserExists(UserExistsRequest request, StreamObserver<UserExistsResponse> responseObserver) {
         try {
             String userIdStr = request.getUserId();
-            log.info("Received user existence check request for user ID: {}", userIdStr);
+            log.debug("Received user existence check request for user ID: {}", userIdStr);
             
             UUID userId = UUID.fromString(userIdStr);
             boolean exists = endUserServices.isUserExist(userId);
             
-            log.info("User {} exists: {}", userIdStr, exists);
+            log.debug("User {} exists: {}", userIdStr, exists);
             
             UserExistsResponse response = UserExistsResponse.newBuilder()
                 .setExists(exists)
@@ -50,4 +54,28 @@ public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
             responseObserver.onError(e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void checkUsersExist(UsersExistRequest request, StreamObserver<UsersExistResponse> responseObserver) {
+        try {
+            List<UUID> userIds = new ArrayList<>();
+            for (String userIdStr : request.getUserIdsList()) {
+                try {
+                    userIds.add(UUID.fromString(userIdStr));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping invalid user ID: {}", userIdStr);
+                }
+            }
+
+            UsersExistResponse.Builder response = UsersExistResponse.newBuilder();
+            endUserServices.findExistingUserIds(userIds)
+                .forEach(userId -> response.addExistingUserIds(userId.toString()));
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error checking if users exist: {}", e.getMessage(), e);
+            responseObserver.onError(e);
+        }
+    }
+}
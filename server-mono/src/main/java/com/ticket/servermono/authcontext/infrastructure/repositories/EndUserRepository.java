@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import com.ticket.servermono.authcontext.domain.enums.UserStatus;
 import com.ticket.servermono.authcontext.entities.EndUser;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,6 +21,9 @@ public interface EndUserRepository extends JpaRepository<EndUser, UUID> {
     @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM EndUser e WHERE e.email = :email AND e.activatedStatus = 'ACTIVE'")
     Boolean existsByEmail(String email);    @Query(value = "SELECT avatar FROM EndUser e WHERE e.id = :id AND e.activatedStatus = 'ACTIVE'")
     String findAvatarById(@Param("id") UUID id);
+
+    @Query("SELECT e.id FROM EndUser e WHERE e.id IN :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
       /**
      * Find all users with a specific role with pagination and optional search
      */
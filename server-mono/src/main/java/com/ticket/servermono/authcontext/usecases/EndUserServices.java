@@ -13,8 +13,11 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,6 +28,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.ticket.servermono.authcontext.infrastructure.config.JWTUtils;
 
@@ -39,6 +44,7 @@ public class EndUserServices {
     private final org.springframework.kafka.core.KafkaTemplate<String, String> kafkaTemplate;
     
     private static final String REGISTRATION_SUCCESS_TOPIC = "auth.register.success";    
+    private static final String USER_STATUS_CHANGED_TOPIC = "user-status-changed";
     
     public void newEndUser(String email, String password) {
         //TODO: Validate input
@@ -110,11 +116,22 @@ public class EndUserServices {
      * @return true nếu người dùng tồn tại, false nếu không
      */
     public boolean isUserExist(UUID userId) {
-        boolean exists = eUserRepo.findById(userId).isPresent();
-        log.info("User existence check for {}: {}", userId, exists);
+        boolean exists = eUserRepo.existsById(userId);
+        log.debug("User existence check for {}: {}", userId, exists);
         return exists;
     }
 
+    /**
+     * Kiểm tra tồn tại cho nhiều user bằng một câu truy vấn IN
+     * @return các userId tồn tại
+     */
+    public Set<UUID> findExistingUserIds(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(eUserRepo.findExistingIds(userIds));
+    }
+
     /**
      * Updates user profile information
      * @param userId The ID of the user to update
@@ -285,6 +302,14 @@ public class EndUserServices {
                 user.getActivatedStatus(), 
                 newStatus);
         
+        // Báo cho các cache phía client (ticketcontext) sau khi commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                kafkaTemplate.send(USER_STATUS_CHANGED_TOPIC, userId.toString(), userId.toString());
+            }
+        });
+        
         // Return success response
         return UpdateUserStatusResponse.builder()
                 .success(true)
@@ -0,0 +1,82 @@
+package com.ticket.servermono.common.grpc;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Interceptor dùng chung cho mọi gRPC client:
+ * - đặt deadline cho lượt gọi unary chưa có deadline. Chỉ các method được chọn (tra cứu theo một key, chi phí đều)
+ *   dùng deadline thích ứng: p99 của chính method đó nhân hệ số, kẹp trong [min, max] (chưa đủ mẫu thì dùng
+ *   deadline mặc định). Các method còn lại (batch, tìm kiếm, thống kê) có chi phí thay đổi theo request
+ *   nên luôn dùng deadline mặc định;
+ * - ghi độ trễ từng lượt gọi vào GrpcLatencyTracker (lượt bị hủy do hedging không được tính).
+ * Method streaming không bị đặt deadline.
+ */
+public class AdaptiveDeadlineInterceptor implements ClientInterceptor {
+
+    private final GrpcLatencyTracker latencyTracker;
+    private final double multiplier;
+    private final long minDeadlineMs;
+    private final long maxDeadlineMs;
+    private final long defaultDeadlineMs;
+    private final int minSamples;
+    private final Set<String> adaptiveMethods;
+
+    public AdaptiveDeadlineInterceptor(GrpcLatencyTracker latencyTracker, double multiplier,
+                                       long minDeadlineMs, long maxDeadlineMs, long defaultDeadlineMs, int minSamples,
+                                       Set<String> adaptiveMethods) {
+        this.latencyTracker = latencyTracker;
+        this.multiplier = multiplier;
+        this.minDeadlineMs = minDeadlineMs;
+        this.maxDeadlineMs = maxDeadlineMs;
+        this.defaultDeadlineMs = defaultDeadlineMs;
+        this.minSamples = minSamples;
+        this.adaptiveMethods = Set.copyOf(adaptiveMethods);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        String methodName = method.getFullMethodName();
+        if (method.getType() == MethodDescriptor.MethodType.UNARY && callOptions.getDeadline() == null) {
+            callOptions = callOptions.withDeadlineAfter(deadlineMs(methodName), TimeUnit.MILLISECONDS);
+        }
+
+        long start = System.nanoTime();
+        return new SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        if (status.getCode() != Status.Code.CANCELLED) {
+                            latencyTracker.record(methodName, System.nanoTime() - start, !status.isOk());
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    long deadlineMs(String methodName) {
+        if (!adaptiveMethods.contains(methodName)) {
+            return defaultDeadlineMs;
+        }
+        double p99 = latencyTracker.percentileMs(methodName, 0.99, minSamples);
+        if (p99 < 0) {
+            return defaultDeadlineMs;
+        }
+        return Math.max(minDeadlineMs, Math.min(maxDeadlineMs, (long) Math.ceil(p99 * multiplier)));
+    }
+}
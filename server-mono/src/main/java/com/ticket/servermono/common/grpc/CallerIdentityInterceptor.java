@@ -0,0 +1,63 @@
+package com.ticket.servermono.common.grpc;
+
+import java.util.UUID;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.authcontext.infrastructure.config.JWTUtils;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Interceptor phía server cho các service trả dữ liệu theo người dùng: đọc JWT của người gọi
+ * từ metadata "authorization: Bearer <token>" (cùng token với cookie của HTTP API), kiểm tra chữ ký
+ * và đặt userId vào Context. Thiếu token hoặc token không hợp lệ thì call bị đóng với UNAUTHENTICATED.
+ * Gắn vào từng service qua @GrpcService(interceptors = CallerIdentityInterceptor.class).
+ */
+@Component
+@RequiredArgsConstructor
+public class CallerIdentityInterceptor implements ServerInterceptor {
+
+    public static final Context.Key<UUID> CALLER_ID = Context.key("caller-id");
+
+    private static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JWTUtils jwtUtils;
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        UUID callerId = callerId(headers.get(AUTHORIZATION));
+        if (callerId == null) {
+            call.close(Status.UNAUTHENTICATED.withDescription("Missing or invalid bearer token"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        return Contexts.interceptCall(Context.current().withValue(CALLER_ID, callerId), call, headers, next);
+    }
+
+    private UUID callerId(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+        Authentication authentication = jwtUtils.verifyAndGetAuthentication(authorization.substring(BEARER_PREFIX.length()));
+        if (authentication == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(authentication.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
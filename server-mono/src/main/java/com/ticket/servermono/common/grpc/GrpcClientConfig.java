@@ -0,0 +1,29 @@
+package com.ticket.servermono.common.grpc;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.devh.boot.grpc.client.interceptor.GrpcGlobalClientInterceptor;
+
+/**
+ * Cấu hình chung cho các gRPC client giữa các context (deadline thích ứng, đo độ trễ)
+ */
+@Configuration
+public class GrpcClientConfig {
+
+    @GrpcGlobalClientInterceptor
+    AdaptiveDeadlineInterceptor adaptiveDeadlineInterceptor(
+            GrpcLatencyTracker latencyTracker,
+            @Value("${app.grpc-client.deadline.multiplier:3.0}") double multiplier,
+            @Value("${app.grpc-client.deadline.min-ms:1000}") long minDeadlineMs,
+            @Value("${app.grpc-client.deadline.max-ms:5000}") long maxDeadlineMs,
+            @Value("${app.grpc-client.deadline.default-ms:5000}") long defaultDeadlineMs,
+            @Value("${app.grpc-client.min-samples:50}") int minSamples,
+            @Value("${app.grpc-client.deadline.adaptive-methods:}") Set<String> adaptiveMethods) {
+        return new AdaptiveDeadlineInterceptor(latencyTracker, multiplier,
+                minDeadlineMs, maxDeadlineMs, defaultDeadlineMs, minSamples, adaptiveMethods);
+    }
+}
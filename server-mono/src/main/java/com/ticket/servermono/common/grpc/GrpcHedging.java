@@ -0,0 +1,132 @@
+package com.ticket.servermono.common.grpc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.grpc.Context;
+import io.grpc.Status;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hedged request cho các lượt đọc idempotent: nếu lượt gọi đầu chưa xong sau p95 quan sát được
+ * thì gửi thêm một lượt song song, lấy kết quả thành công đầu tiên và hủy lượt còn lại.
+ * Tắt mặc định (app.grpc-client.hedging.enabled); khi tắt hoặc chưa đủ mẫu thì gọi trực tiếp.
+ */
+@Slf4j
+@Component
+public class GrpcHedging {
+
+    private final GrpcLatencyTracker latencyTracker;
+    private final ExecutorService executor;
+
+    private final LongAdder hedgedCalls = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    @Value("${app.grpc-client.hedging.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.grpc-client.hedging.min-delay-ms:5}")
+    private long minDelayMs;
+
+    @Value("${app.grpc-client.min-samples:50}")
+    private int minSamples;
+
+    public GrpcHedging(GrpcLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param fullMethodName tên method gRPC (để lấy p95 làm độ trễ trước khi hedge)
+     * @param attempt một lượt gọi blocking stub; phải idempotent
+     */
+    public <T> T call(String fullMethodName, Supplier<T> attempt) {
+        if (!enabled) {
+            return attempt.get();
+        }
+        double p95 = latencyTracker.percentileMs(fullMethodName, 0.95, minSamples);
+        if (p95 < 0) {
+            return attempt.get();
+        }
+        long hedgeDelayMs = Math.max(minDelayMs, (long) Math.ceil(p95));
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger launched = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        Context.CancellableContext primary = Context.current().withCancellation();
+        Context.CancellableContext hedge = null;
+
+        try {
+            launch(primary, attempt, result, launched, failed, false);
+            try {
+                return result.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                hedgedCalls.increment();
+                hedge = Context.current().withCancellation();
+                launch(hedge, attempt, result, launched, failed, true);
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw Status.INTERNAL.withCause(e.getCause()).asRuntimeException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Interrupted").asRuntimeException();
+        } finally {
+            primary.cancel(null);
+            if (hedge != null) {
+                hedge.cancel(null);
+            }
+        }
+    }
+
+    private <T> void launch(Context.CancellableContext context, Supplier<T> attempt, CompletableFuture<T> result,
+                            AtomicInteger launched, AtomicInteger failed, boolean isHedge) {
+        launched.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                T value = context.call(attempt::get);
+                if (result.complete(value) && isHedge) {
+                    hedgeWins.increment();
+                }
+            } catch (Exception e) {
+                // Chỉ báo lỗi khi mọi lượt đã gửi đều thất bại
+                if (failed.incrementAndGet() == launched.get()) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hedgedCalls", hedgedCalls.sum());
+        stats.put("hedgeWins", hedgeWins.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
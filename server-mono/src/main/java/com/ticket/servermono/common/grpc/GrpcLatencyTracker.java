@@ -0,0 +1,137 @@
+package com.ticket.servermono.common.grpc;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đo độ trễ các lượt gọi gRPC phía client theo từng method:
+ * histogram theo bucket cố định (đếm tích lũy) và cửa sổ các mẫu gần nhất để tính p50/p95/p99.
+ * Deadline thích ứng và hedging dựa trên các percentile này.
+ */
+@Slf4j
+@Component
+public class GrpcLatencyTracker {
+
+    // Cận trên (ms) của các bucket histogram; bucket cuối là +Inf
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final ConcurrentHashMap<String, MethodStats> methods = new ConcurrentHashMap<>();
+
+    @Value("${app.grpc-client.latency-window:1024}")
+    private int windowSize;
+
+    public void record(String fullMethodName, long nanos, boolean failed) {
+        methods.computeIfAbsent(fullMethodName, name -> new MethodStats(windowSize)).record(nanos, failed);
+    }
+
+    /**
+     * Percentile (ms) trên cửa sổ mẫu gần nhất, hoặc -1 nếu chưa đủ minSamples mẫu
+     */
+    public double percentileMs(String fullMethodName, double percentile, int minSamples) {
+        MethodStats stats = methods.get(fullMethodName);
+        return stats != null ? stats.percentileMs(percentile, minSamples) : -1;
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        methods.forEach((method, stats) -> result.put(method, stats.toMap()));
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${app.grpc-client.stats-log-interval-ms:60000}")
+    public void logStats() {
+        methods.forEach((method, stats) -> {
+            if (stats.calls.sum() > 0) {
+                log.info("gRPC client {}: calls={}, failures={}, p50={}ms, p95={}ms, p99={}ms", method,
+                        stats.calls.sum(), stats.failures.sum(),
+                        format(stats.percentileMs(0.50, 1)), format(stats.percentileMs(0.95, 1)), format(stats.percentileMs(0.99, 1)));
+            }
+        });
+    }
+
+    private static String format(double ms) {
+        return String.format("%.2f", ms);
+    }
+
+    private static final class MethodStats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        private final AtomicLongArray window;
+        private final AtomicLong samples = new AtomicLong();
+
+        // Percentile được tính lại tối đa mỗi giây để không sắp xếp cửa sổ ở mỗi lượt gọi
+        private volatile long[] sortedSnapshot = new long[0];
+        private volatile long snapshotAt;
+
+        MethodStats(int windowSize) {
+            this.window = new AtomicLongArray(windowSize);
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, boolean failed) {
+            calls.increment();
+            if (failed) {
+                failures.increment();
+            }
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && nanos > BUCKET_BOUNDS_MS[bucket] * 1_000_000) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+
+            long index = samples.getAndIncrement();
+            window.set((int) (index % window.length()), nanos);
+        }
+
+        double percentileMs(double percentile, int minSamples) {
+            long count = Math.min(samples.get(), window.length());
+            if (count == 0 || count < minSamples) {
+                return -1;
+            }
+            long now = System.currentTimeMillis();
+            long[] sorted = sortedSnapshot;
+            if (sorted.length != count || now - snapshotAt > 1000) {
+                sorted = new long[(int) count];
+                for (int i = 0; i < count; i++) {
+                    sorted[i] = window.get(i);
+                }
+                Arrays.sort(sorted);
+                sortedSnapshot = sorted;
+                snapshotAt = now;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("calls", calls.sum());
+            map.put("failures", failures.sum());
+            map.put("p50Ms", percentileMs(0.50, 1));
+            map.put("p95Ms", percentileMs(0.95, 1));
+            map.put("p99Ms", percentileMs(0.99, 1));
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                histogram.put("le_" + BUCKET_BOUNDS_MS[i] + "ms", buckets[i].sum());
+            }
+            histogram.put("le_inf", buckets[BUCKET_BOUNDS_MS.length].sum());
+            map.put("histogram", histogram);
+            return map;
+        }
+    }
+}
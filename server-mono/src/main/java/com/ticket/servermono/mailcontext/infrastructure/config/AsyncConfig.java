@@ -0,0 +1,17 @@
+package com.ticket.servermono.mailcontext.infrastructure.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Bật @Async cho các handler gửi mail khi chạy chế độ virtual thread.
+ * Spring Boot khi đó cấp applicationTaskExecutor chạy mỗi tác vụ trên một virtual thread,
+ * nên việc chờ SMTP không chiếm thread của Kafka listener.
+ * Ở chế độ mặc định các handler vẫn chạy đồng bộ như trước.
+ */
+@Configuration
+@EnableAsync
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class AsyncConfig {
+}
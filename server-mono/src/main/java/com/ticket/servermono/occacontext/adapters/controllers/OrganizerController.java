@@ -269,7 +269,9 @@ public class OrganizerController {    private final OrganizerServices organizerS
      * @param to         Thời gian kết thúc tính (format: ISO-8601, e.g. 2025-05-06T16:59:59.999Z)
      * @param sortField  Trường để sắp xếp (reach, revenue, fillRate)
      * @param sortOrder  Hướng sắp xếp (asc, desc)
-     * @return ResponseEntity<OccaAnalyticsResponse> Danh sách phân tích sự kiện đã phân trang
+     * @return ResponseEntity<OccaAnalyticsResponse> Danh sách phân tích sự kiện đã phân trang.
+     *         Không truyền from/to (mặc định của trang phân tích): số liệu tích lũy từ trước đến nay,
+     *         đọc từ occa_analytics. Trước đây mặc định là 1 năm gần nhất.
      */
     @GetMapping("/analytics/occas")
     public ResponseEntity<OccaAnalyticsResponse> getOccaAnalytics(
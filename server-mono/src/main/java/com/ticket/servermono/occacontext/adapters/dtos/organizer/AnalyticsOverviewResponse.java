@@ -14,6 +14,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class AnalyticsOverviewResponse {
     private Integer totalReach;
+    // Số khách khác nhau trong khoảng (ước lượng HyperLogLog, sai số chuẩn ~1.6%)
+    private Integer uniqueReach;
     private List<OccaReachItem> topOccas;
     private List<SourceDistributionItem> sourceDistribution;
     private Period period;
@@ -26,6 +28,7 @@ public class AnalyticsOverviewResponse {
         private String id;
         private String title;
         private Integer reach;
+        private Integer uniqueReach;
     }
     
     @Data
@@ -35,6 +38,7 @@ public class AnalyticsOverviewResponse {
     public static class SourceDistributionItem {
         private String name;
         private Integer count;
+        private Integer uniqueVisitors;
     }
     
     @Data
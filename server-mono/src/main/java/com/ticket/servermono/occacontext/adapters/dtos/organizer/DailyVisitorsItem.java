@@ -12,4 +12,5 @@ import lombok.NoArgsConstructor;
 public class DailyVisitorsItem {
     private String date;  // Format: dd/MM
     private Integer visitors;
+    private Integer uniqueVisitors;  // Ước lượng HyperLogLog
 }
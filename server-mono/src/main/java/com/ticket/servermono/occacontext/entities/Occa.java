@@ -8,6 +8,7 @@ import com.ticket.servermono.occacontext.domain.enums.ApprovalStatus;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -24,6 +25,7 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
 @Entity
+@EntityListeners(OccaListener.class)
 @Table(name = "occa", indexes = {
     @Index(name = "idx_occa_title", columnList = "title"),
     @Index(name = "idx_occa_category", columnList = "category_id"),
@@ -0,0 +1,59 @@
+package com.ticket.servermono.occacontext.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Số liệu tích lũy của một occa cho trang phân tích của người tổ chức, đánh index theo từng trường sắp xếp
+ * để một trang chỉ là ORDER BY ... LIMIT.
+ * reach được cộng trực tiếp từ tracking (cộng thêm reachBaseline là lượt xem trước khi có bucket); revenue/fillRate được tính lại khi staleVersion > refreshedVersion
+ * (đánh dấu khi có thanh toán của occa, và toàn bộ mỗi đêm).
+ */
+@Entity
+@Table(name = "occa_analytics", indexes = {
+    @Index(name = "idx_oa_creator_reach", columnList = "creator_id, reach"),
+    @Index(name = "idx_oa_creator_revenue", columnList = "creator_id, revenue"),
+    @Index(name = "idx_oa_creator_fill_rate", columnList = "creator_id, fill_rate"),
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccaAnalytics {
+    @Id
+    @Column(name = "occa_id", nullable = false)
+    private UUID occaId;
+
+    @Column(name = "creator_id")
+    private UUID creatorId;
+
+    @Column(name = "reach", nullable = false)
+    private long reach;
+
+    /**
+     * Lượt xem ghi nhận trong occa_tracking_stats trước khi có occa_view_buckets (không có mốc thời gian nên
+     * không thể đưa vào bucket). Được tính một lần khi đối soát, null nghĩa là chưa tính.
+     */
+    @Column(name = "reach_baseline")
+    private Long reachBaseline;
+
+    @Column(name = "revenue", nullable = false)
+    private double revenue;
+
+    @Column(name = "fill_rate", nullable = false)
+    private int fillRate;
+
+    @Column(name = "stale_version", nullable = false)
+    private long staleVersion;
+
+    @Column(name = "refreshed_version", nullable = false)
+    private long refreshedVersion;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
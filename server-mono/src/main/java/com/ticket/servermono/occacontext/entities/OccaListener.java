@@ -0,0 +1,58 @@
+package com.ticket.servermono.occacontext.entities;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Phát sự kiện occa-updated sau khi occa được tạo/sửa/xóa để các near-cache (ticketcontext) làm mới dữ liệu
+ * và occa_analytics có dòng cho occa mới
+ */
+@Slf4j
+@Component
+public class OccaListener {
+
+    private static KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    public void setKafkaTemplate(KafkaTemplate<String, String> template) {
+        OccaListener.kafkaTemplate = template;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void afterChange(Occa occa) {
+        if (occa.getId() == null) {
+            return;
+        }
+        final UUID occaId = occa.getId();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(occaId);
+                }
+            });
+        } else {
+            publish(occaId);
+        }
+    }
+
+    private static void publish(UUID occaId) {
+        if (kafkaTemplate != null) {
+            log.debug("Publishing occa updated for occa id: {}", occaId);
+            kafkaTemplate.send("occa-updated", occaId.toString());
+        }
+    }
+}
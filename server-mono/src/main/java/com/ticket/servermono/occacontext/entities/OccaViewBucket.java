@@ -0,0 +1,63 @@
+package com.ticket.servermono.occacontext.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Số lượt xem của một occa theo nguồn truy cập trong một khung thời gian (giờ hoặc ngày).
+ * Được ghi cộng dồn bằng upsert (OccaViewBucketBulkRepository); các bucket giờ cũ được gộp thành bucket ngày.
+ */
+@Entity
+@Table(name = "occa_view_buckets", indexes = {
+    @Index(name = "idx_ovb_granularity_start", columnList = "granularity, bucket_start"),
+})
+@IdClass(OccaViewBucket.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccaViewBucket {
+    @Id
+    @Column(name = "occa_id", nullable = false)
+    private UUID occaId;
+
+    @Id
+    @Column(name = "source", nullable = false, length = 64)
+    private String source;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 8)
+    private Granularity granularity;
+
+    /**
+     * Đầu giờ (HOUR) hoặc đầu ngày (DAY)
+     */
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID occaId;
+        private String source;
+        private Granularity granularity;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ticket.servermono.occacontext.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sketch HyperLogLog các khách truy cập khác nhau của một occa theo nguồn trong một ngày.
+ * Gộp (merge) các sketch cho ra số khách duy nhất của bất kỳ tập occa/nguồn/khoảng ngày nào mà không đếm trùng.
+ * Được ghi bằng OccaVisitorSketchBulkRepository (đọc-gộp-ghi dưới khóa dòng).
+ */
+@Entity
+@Table(name = "occa_visitor_sketches", indexes = {
+    @Index(name = "idx_ovs_day", columnList = "day"),
+})
+@IdClass(OccaVisitorSketch.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccaVisitorSketch {
+    @Id
+    @Column(name = "occa_id", nullable = false)
+    private UUID occaId;
+
+    @Id
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Id
+    @Column(name = "source", nullable = false, length = 64)
+    private String source;
+
+    /**
+     * HyperLogLog.toBytes(): dạng sparse vài chục byte cho ngày ít khách, tối đa 4098 byte khi dense
+     */
+    @Column(name = "sketch", nullable = false, length = 4098)
+    private byte[] sketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID occaId;
+        private LocalDate day;
+        private String source;
+    }
+}
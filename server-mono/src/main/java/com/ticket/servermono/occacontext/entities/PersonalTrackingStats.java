@@ -12,11 +12,15 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 import java.util.UUID;
 
 @Entity
-@Table(name = "personal_tracking_stats", indexes = {
+@Table(name = "personal_tracking_stats", uniqueConstraints = {
+    // Khóa cho upsert cộng dồn của TrackingStatsBulkRepository
+    @UniqueConstraint(name = "uk_pt_user_type_typeId", columnNames = {"userId", "type", "typeId"}),
+}, indexes = {
     @Index(name = "idx_pt_typeId", columnList = "typeId"),
     @Index(name = "idx_pt_userId", columnList = "userId"),
     @Index(name = "idx_pt_count", columnList = "count"),
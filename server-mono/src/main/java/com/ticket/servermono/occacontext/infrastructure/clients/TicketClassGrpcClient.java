@@ -5,6 +5,7 @@ import java.util.List;
 
 import org.springframework.stereotype.Component;
 
+import com.ticket.servermono.common.grpc.GrpcHedging;
 import com.ticket.servermono.occacontext.adapters.dtos.organizer.TicketDTO;
 
 import io.grpc.StatusRuntimeException;
@@ -23,6 +24,8 @@ public class TicketClassGrpcClient {
 
     @GrpcClient("ticket-service")
     private TicketShowServicesGrpc.TicketShowServicesBlockingStub ticketServiceStub;
+
+    private final GrpcHedging hedging;
     
     /**
      * Lấy danh sách ticket class cho một show cụ thể
@@ -39,8 +42,10 @@ public class TicketClassGrpcClient {
                     .setShowId(showId)
                     .build();
             
-            // Gọi gRPC service
-            TicketShowResponse response = ticketServiceStub.getTicketClassesByShowId(request);
+            // Gọi gRPC service (đọc idempotent nên có thể hedge khi bật)
+            TicketShowResponse response = hedging.call(
+                    TicketShowServicesGrpc.getGetTicketClassesByShowIdMethod().getFullMethodName(),
+                    () -> ticketServiceStub.getTicketClassesByShowId(request));
             
             // Chuyển đổi kết quả sang DTO
             for (TicketClassResponse ticketClass : response.getTicketClassesList()) {
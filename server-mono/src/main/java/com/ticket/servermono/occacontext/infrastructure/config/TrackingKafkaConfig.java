@@ -0,0 +1,42 @@
+package com.ticket.servermono.occacontext.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties.AckMode;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+/**
+ * Container factory dạng batch cho TrackingConsumer: mỗi lượt poll được giao nguyên lô cho listener,
+ * offset của cả lô chỉ được commit sau khi listener trả về (tức là sau khi transaction ghi DB đã commit).
+ * Listener chỉ ném lỗi tạm thời của DB (mất kết nối, timeout, deadlock); khi đó lô được giao lại mãi
+ * (giãn dần tới max-retry-interval-ms) chứ không bị bỏ, nên lượt xem không mất khi DB ngừng lâu.
+ * Record sai định dạng và record bị DB từ chối vì dữ liệu đã được listener bỏ qua nên không làm kẹt partition.
+ * Nếu listener báo lỗi ở record thứ i (BatchListenerFailedException) thì offset trước i được commit và chỉ giao lại từ i.
+ * Các listener khác vẫn dùng factory mặc định (từng record).
+ */
+@Configuration
+public class TrackingKafkaConfig {
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> trackingBatchListenerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> kafkaConsumerFactory,
+            @Value("${app.tracking.batch.retry-interval-ms:1000}") long retryIntervalMs,
+            @Value("${app.tracking.batch.max-retry-interval-ms:30000}") long maxRetryIntervalMs) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, kafkaConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(AckMode.BATCH);
+        // Lỗi tạm thời của DB: giao lại, không giới hạn số lần và tổng thời gian thử
+        ExponentialBackOff backOff = new ExponentialBackOff(retryIntervalMs, ExponentialBackOff.DEFAULT_MULTIPLIER);
+        backOff.setMaxInterval(maxRetryIntervalMs);
+        backOff.setMaxElapsedTime(Long.MAX_VALUE);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
+        return factory;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ticket.servermono.occacontext.infrastructure.grpc;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,9 +14,12 @@ import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import occa.OccaData;
 import occa.OccaDataResponse;
 import occa.OccaResquest;
 import occa.OccaServicesGrpc.OccaServicesImplBase;
+import occa.OccasByIdsRequest;
+import occa.OccasByIdsResponse;
 
 @Slf4j
 @GrpcService
@@ -72,4 +76,40 @@ public class OccaServicesGrpc extends OccaServicesImplBase {
                     .asRuntimeException());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void getOccasByIds(OccasByIdsRequest request, StreamObserver<OccasByIdsResponse> responseObserver) {
+        try {
+            List<UUID> occaIds = request.getOccaIdsList().stream()
+                .distinct()
+                .map(UUID::fromString)
+                .toList();
+
+            OccasByIdsResponse.Builder response = OccasByIdsResponse.newBuilder();
+            if (!occaIds.isEmpty()) {
+                for (Object[] row : occaRepository.findTitleAndLocationByIds(occaIds)) {
+                    response.addOccas(OccaData.newBuilder()
+                        .setOccaId(row[0].toString())
+                        .setTitle(row[1] != null ? (String) row[1] : "")
+                        .setLocation(row[2] != null ? (String) row[2] : "Unknown location")
+                        .build());
+                }
+            }
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid UUID format in occa IDs: {}", e.getMessage());
+            responseObserver.onError(
+                Status.INVALID_ARGUMENT
+                    .withDescription("Invalid UUID format for occa ID")
+                    .asRuntimeException());
+        } catch (Exception e) {
+            log.error("Error getting occas by IDs: {}", e.getMessage());
+            responseObserver.onError(
+                Status.INTERNAL
+                    .withDescription("Error getting occas by IDs")
+                    .asRuntimeException());
+        }
+    }
+}
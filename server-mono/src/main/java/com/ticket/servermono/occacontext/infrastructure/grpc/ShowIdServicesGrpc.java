@@ -1,6 +1,9 @@
 package com.ticket.servermono.occacontext.infrastructure.grpc;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -14,7 +17,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 import occa.OccaIdRequest;
+import occa.OccaIdsRequest;
+import occa.OccaShowIds;
 import occa.ShowIdResponse;
+import occa.ShowIdsByOccaResponse;
 import occa.ShowIdServicesGrpc.ShowIdServicesImplBase;
 
 @GrpcService
@@ -51,4 +57,39 @@ public class ShowIdServicesGrpc extends ShowIdServicesImplBase {
             responseObserver.onError(e);
         }
     }
+
+    @Override
+    public void getShowIdsByOccaIds(OccaIdsRequest request, StreamObserver<ShowIdsByOccaResponse> responseObserver) {
+        try {
+            List<UUID> occaIds = new ArrayList<>();
+            for (String occaIdStr : request.getOccaIdsList()) {
+                try {
+                    occaIds.add(UUID.fromString(occaIdStr));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Invalid occa ID format: {}", occaIdStr);
+                }
+            }
+            
+            Map<UUID, List<String>> showIdsByOcca = new LinkedHashMap<>();
+            if (!occaIds.isEmpty()) {
+                for (Object[] row : showRepository.findShowIdsByOccaIds(occaIds)) {
+                    showIdsByOcca.computeIfAbsent((UUID) row[0], id -> new ArrayList<>()).add(row[1].toString());
+                }
+            }
+            
+            ShowIdsByOccaResponse.Builder response = ShowIdsByOccaResponse.newBuilder();
+            showIdsByOcca.forEach((occaId, showIds) -> response.addOccas(OccaShowIds.newBuilder()
+                .setOccaId(occaId.toString())
+                .addAllShowIds(showIds)
+                .build()));
+            
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+            
+            log.debug("Sent show IDs of {} occas ({} requested)", showIdsByOcca.size(), occaIds.size());
+        } catch (Exception e) {
+            log.error("Error processing getShowIdsByOccaIds request: {}", e.getMessage(), e);
+            responseObserver.onError(e);
+        }
+    }
 }
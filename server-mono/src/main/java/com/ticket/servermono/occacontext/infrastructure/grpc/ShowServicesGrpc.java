@@ -28,6 +28,9 @@ import occa.ShowDataResponseByUserId;
 import occa.ShowRequest;
 import occa.ShowResponse;
 import occa.ShowServicesGrpc.ShowServicesImplBase;
+import occa.ShowWithOccaData;
+import occa.ShowsByIdsRequest;
+import occa.ShowsByIdsResponse;
 import occa.ShowsResponseByUserId;
 import occa.TicketStatusData;
 import occa.TicketStatusRequest;
@@ -179,8 +182,8 @@ public class ShowServicesGrpc extends ShowServicesImplBase {
             Show show = showOpt.get();
 
             ShowDataResponse response = ShowDataResponse.newBuilder()
-                    .setTime(show.getTime().toString())
-                    .setDate(show.getDate().toString())
+                    .setTime(nullToEmpty(show.getTime()))
+                    .setDate(nullToEmpty(show.getDate()))
                     .setOccaId(show.getOcca().getId().toString())
                     .build();
 
@@ -200,4 +203,49 @@ public class ShowServicesGrpc extends ShowServicesImplBase {
                             .asRuntimeException());
         }
     }
+
+    @Override
+    public void getShowsByIds(ShowsByIdsRequest request, StreamObserver<ShowsByIdsResponse> responseObserver) {
+        try {
+            List<UUID> showIds = request.getShowIdsList().stream()
+                    .distinct()
+                    .map(UUID::fromString)
+                    .toList();
+
+            ShowsByIdsResponse.Builder response = ShowsByIdsResponse.newBuilder();
+            if (!showIds.isEmpty()) {
+                // Một truy vấn JOIN show - occa - venue cho toàn bộ danh sách
+                for (Object[] row : showRepository.findShowsWithOccaByIds(showIds)) {
+                    // Show chưa có ngày/giờ được trả về chuỗi rỗng như GetShowById
+                    response.addShows(ShowWithOccaData.newBuilder()
+                            .setShowId(row[0].toString())
+                            .setDate(nullToEmpty(row[1]))
+                            .setTime(nullToEmpty(row[2]))
+                            .setOccaId(row[3].toString())
+                            .setOccaTitle(row[4] != null ? (String) row[4] : "")
+                            .setOccaLocation(row[5] != null ? (String) row[5] : "Unknown location")
+                            .build());
+                }
+            }
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid UUID format in show IDs: {}", e.getMessage());
+            responseObserver.onError(
+                    Status.INVALID_ARGUMENT
+                            .withDescription("Invalid UUID format for show ID")
+                            .asRuntimeException());
+        } catch (Exception e) {
+            log.error("Error getting shows by IDs: {}", e.getMessage());
+            responseObserver.onError(
+                    Status.INTERNAL
+                            .withDescription("Error getting shows by IDs")
+                            .asRuntimeException());
+        }
+    }
+
+    private static String nullToEmpty(Object value) {
+        return value != null ? value.toString() : "";
+    }
 }
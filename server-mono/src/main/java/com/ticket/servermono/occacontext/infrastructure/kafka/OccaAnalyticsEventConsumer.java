@@ -0,0 +1,50 @@
+package com.ticket.servermono.occacontext.infrastructure.kafka;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.occacontext.usecases.OccaAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cập nhật occa_analytics theo sự kiện: occa được tạo/sửa/xóa, và thanh toán thành công của một show
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OccaAnalyticsEventConsumer {
+
+    private final OccaAnalyticsService occaAnalyticsService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "occa-updated", groupId = "occa-analytics-occa")
+    public void handleOccaUpdated(String occaId) {
+        try {
+            occaAnalyticsService.onOccaChanged(UUID.fromString(occaId));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid occa ID in occa-updated event: {}", occaId);
+        } catch (Exception e) {
+            log.error("Error updating occa analytics for occa {}: {}", occaId, e.getMessage());
+        }
+    }
+
+    @KafkaListener(topics = "payment.success", groupId = "occa-analytics-payment")
+    public void handlePaymentSuccess(String message) {
+        try {
+            Map<String, Object> event = objectMapper.readValue(message, new TypeReference<Map<String, Object>>() {});
+            Object showId = event.get("showId");
+            if (showId == null) {
+                // Event cũ không có showId: job đối soát hằng đêm sẽ tính lại
+                return;
+            }
+            occaAnalyticsService.onShowSold(UUID.fromString(showId.toString()));
+        } catch (Exception e) {
+            log.error("Error marking occa analytics stale from payment event: {}", e.getMessage());
+        }
+    }
+}
@@ -3,173 +3,308 @@ package com.ticket.servermono.occacontext.infrastructure.kafka;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ticket.servermono.occacontext.entities.OccaTrackingStats;
+import com.ticket.servermono.common.utils.HyperLogLog;
+import com.ticket.servermono.occacontext.entities.OccaViewBucket;
+import com.ticket.servermono.occacontext.entities.OccaVisitorSketch;
 import com.ticket.servermono.occacontext.entities.PersonalTrackingStats;
-import com.ticket.servermono.occacontext.infrastructure.repositories.OccaTrackingStatsRepository;
-import com.ticket.servermono.occacontext.infrastructure.repositories.PersonalTrackingStatsRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaAnalyticsBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaViewBucketBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaVisitorSketchBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository.PersonalKey;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository.SourceKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
+/**
+ * Nhận tracking theo lô: mỗi lượt poll được cộng gộp trong bộ nhớ theo từng key,
+ * rồi ghi bằng vài câu upsert nhiều dòng trong một transaction.
+ * Offset chỉ được commit sau khi listener trả về (AckMode.BATCH, xem TrackingKafkaConfig);
+ * nếu ứng dụng dừng giữa lúc commit DB và commit offset thì lô được xử lý lại (at-least-once).
+ * Lỗi tạm thời của DB được ném ra để lô được giao lại; lỗi do dữ liệu (vd. vi phạm ràng buộc) thì lô được ghi lại
+ * từng record một, record vẫn lỗi bị bỏ qua để một beacon xấu không làm kẹt partition.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class TrackingConsumer {
 
-    private final OccaTrackingStatsRepository occaTrackingStatsRepository;
-    private final PersonalTrackingStatsRepository personalTrackingStatsRepository;
+    private final TrackingStatsBulkRepository trackingStatsBulkRepository;
+    private final OccaViewBucketBulkRepository occaViewBucketBulkRepository;
+    private final OccaAnalyticsBulkRepository occaAnalyticsBulkRepository;
+    private final OccaVisitorSketchBulkRepository occaVisitorSketchBulkRepository;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
     
-    @KafkaListener(topics = "user-tracking-topic")
-    @Transactional
-    public void consume(String message) {
+    private static final String UNKNOWN_SOURCE = "unknown";
+    private static final int MAX_SOURCE_LENGTH = 64;
+    
+    @KafkaListener(topics = "user-tracking-topic", containerFactory = "trackingBatchListenerFactory",
+            properties = {
+                "max.poll.records=${app.tracking.batch.max-poll-records:500}",
+                "fetch.max.wait.ms=${app.tracking.batch.fetch-max-wait-ms:500}",
+                "fetch.min.bytes=${app.tracking.batch.fetch-min-bytes:16384}"
+            })
+    public void consume(List<ConsumerRecord<String, String>> records) {
+        TrackingDeltas deltas = new TrackingDeltas();
+        // Deltas của từng record (null nếu record hỏng), dùng khi phải ghi lại từng record
+        List<TrackingDeltas> perRecord = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            // Gom riêng từng record rồi mới cộng vào lô để record hỏng giữa chừng không để lại giá trị dở dang
+            TrackingDeltas recordDeltas = new TrackingDeltas();
+            try {
+                collect(record.value(), record.timestamp(), recordDeltas);
+                deltas.addAll(recordDeltas);
+                perRecord.add(recordDeltas);
+            } catch (JsonProcessingException | RuntimeException e) {
+                // Bỏ qua record hỏng thay vì làm cả lô bị giao lại mãi
+                log.error("Skipping malformed tracking message at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                perRecord.add(null);
+            }
+        }
         try {
-            Map<String, Object> trackingData = objectMapper.readValue(message, new TypeReference<Map<String, Object>>() {});
+            transactionTemplate.executeWithoutResult(status -> flush(deltas));
+        } catch (RuntimeException e) {
+            if (!isDataError(e)) {
+                // DB ngừng, timeout, deadlock...: để error handler giao lại cả lô
+                throw e;
+            }
+            log.warn("Tracking batch rejected by the database ({}), applying {} messages one by one",
+                    e.getMessage(), records.size());
+            applyOneByOne(records, perRecord);
+        }
+        log.debug("Applied {} tracking messages", records.size());
+    }
+    
+    /**
+     * Ghi từng record trong transaction riêng; record bị DB từ chối vì dữ liệu thì bỏ qua.
+     * Lỗi tạm thời ở record thứ i: các record trước đã commit, nên chỉ giao lại từ record i
+     */
+    private void applyOneByOne(List<ConsumerRecord<String, String>> records, List<TrackingDeltas> perRecord) {
+        for (int i = 0; i < records.size(); i++) {
+            TrackingDeltas recordDeltas = perRecord.get(i);
+            if (recordDeltas == null) {
+                continue;
+            }
+            ConsumerRecord<String, String> record = records.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> flush(recordDeltas));
+            } catch (RuntimeException e) {
+                if (!isDataError(e)) {
+                    throw new BatchListenerFailedException("Failed to apply tracking message", e, i);
+                }
+                log.error("Skipping tracking message rejected by the database at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Lỗi do chính dữ liệu được ghi (thử lại cũng lỗi); mất kết nối DB thì không tính
+     */
+    private static boolean isDataError(Throwable e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+    
+    /**
+     * Cộng một message vào deltas của lô
+     */
+    private void collect(String message, long timestamp, TrackingDeltas deltas) throws JsonProcessingException {
+        Map<String, Object> trackingData = objectMapper.readValue(message, new TypeReference<Map<String, Object>>() {});
+        
+        // Process top occas (for both anonymous and authenticated users)
+        List<Map<String, Object>> topOccas = trackingData.containsKey("topOccas")
+                ? objectMapper.convertValue(trackingData.get("topOccas"), new TypeReference<List<Map<String, Object>>>() {})
+                : List.of();
+        if (!topOccas.isEmpty()) {
+            collectTopOccas(topOccas, deltas);
+            
+            // Lượt xem được tính vào giờ mà event được gửi (timestamp của Kafka record)
+            LocalDateTime hour = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault())
+                    .truncatedTo(ChronoUnit.HOURS);
+            Map<OccaViewBucket.Key, Long> viewCounts = new HashMap<>();
+            collectHourlyViews(topOccas, hour, viewCounts);
+            viewCounts.forEach((key, count) -> {
+                deltas.viewCounts.merge(key, count, Long::sum);
+                // Reach tích lũy của occa_analytics
+                deltas.reachByOcca.merge(key.getOccaId(), count, Long::sum);
+            });
             
-            // Process top occas (for both anonymous and authenticated users)
-            if (trackingData.containsKey("topOccas")) {
-                List<Map<String, Object>> topOccas = objectMapper.convertValue(
-                    trackingData.get("topOccas"), 
+            // Ghi nhận khách vào sketch khách duy nhất theo (occa, ngày, nguồn)
+            String visitorId = visitorId(trackingData);
+            if (visitorId != null) {
+                for (OccaViewBucket.Key viewKey : viewCounts.keySet()) {
+                    deltas.visitors.computeIfAbsent(
+                            new OccaVisitorSketch.Key(viewKey.getOccaId(), hour.toLocalDate(), viewKey.getSource()),
+                            key -> new HashSet<>()).add(visitorId);
+                }
+            }
+        }
+        
+        // Process user-specific tracking if userId is present
+        if (trackingData.containsKey("userId")) {
+            UUID userId = UUID.fromString((String) trackingData.get("userId"));
+            
+            if (trackingData.containsKey("topCategories")) {
+                List<Map<String, Object>> topCategories = objectMapper.convertValue(
+                    trackingData.get("topCategories"), 
                     new TypeReference<List<Map<String, Object>>>() {}
                 );
-                processTopOccas(topOccas);
+                collectPersonal(userId, PersonalTrackingStats.TrackingType.CATEGORY, topCategories, "categoryId", "count", deltas);
             }
             
-            // Process user-specific tracking if userId is present
-            if (trackingData.containsKey("userId")) {
-                String userIdStr = (String) trackingData.get("userId");
-                UUID userId = UUID.fromString(userIdStr);
-                
-                // Process top categories
-                if (trackingData.containsKey("topCategories")) {
-                    List<Map<String, Object>> topCategories = objectMapper.convertValue(
-                        trackingData.get("topCategories"), 
-                        new TypeReference<List<Map<String, Object>>>() {}
-                    );
-                    processUserCategories(userId, topCategories);
-                }
-                
-                // Process top locations
-                if (trackingData.containsKey("topLocations")) {
-                    List<Map<String, Object>> topLocations = objectMapper.convertValue(
-                        trackingData.get("topLocations"), 
-                        new TypeReference<List<Map<String, Object>>>() {}
-                    );
-                    processUserLocations(userId, topLocations);
-                }
-                
-                // Process user-specific occas
-                if (trackingData.containsKey("topOccas")) {
-                    List<Map<String, Object>> topOccas = objectMapper.convertValue(
-                        trackingData.get("topOccas"), 
-                        new TypeReference<List<Map<String, Object>>>() {}
-                    );
-                    processUserOccas(userId, topOccas);
-                }
+            if (trackingData.containsKey("topLocations")) {
+                List<Map<String, Object>> topLocations = objectMapper.convertValue(
+                    trackingData.get("topLocations"), 
+                    new TypeReference<List<Map<String, Object>>>() {}
+                );
+                collectPersonal(userId, PersonalTrackingStats.TrackingType.LOCATION, topLocations, "locationId", "count", deltas);
             }
             
-        } catch (JsonProcessingException e) {
-            log.error("Error processing tracking message: {}", e.getMessage());
+            collectPersonal(userId, PersonalTrackingStats.TrackingType.OCCA, topOccas, "occaId", "totalCount", deltas);
         }
     }
     
-    private void processTopOccas(List<Map<String, Object>> occaTracks) {
+    /**
+     * Ghi deltas của cả lô; occa_tracking_stats trước occa_tracking_sources vì bảng sau tham chiếu bảng trước
+     */
+    private void flush(TrackingDeltas deltas) {
+        trackingStatsBulkRepository.addOccaTotals(deltas.occaTotals);
+        trackingStatsBulkRepository.addOccaSources(deltas.occaSources);
+        trackingStatsBulkRepository.addPersonalCounts(deltas.personalCounts);
+        occaViewBucketBulkRepository.addHourlyViews(deltas.viewCounts);
+        occaAnalyticsBulkRepository.addReach(deltas.reachByOcca);
+        
+        Map<OccaVisitorSketch.Key, HyperLogLog> sketches = new HashMap<>();
+        deltas.visitors.forEach((key, visitorIds) -> {
+            HyperLogLog sketch = new HyperLogLog();
+            visitorIds.forEach(sketch::add);
+            sketches.put(key, sketch);
+        });
+        occaVisitorSketchBulkRepository.addVisitors(sketches);
+    }
+    
+    private void collectTopOccas(List<Map<String, Object>> occaTracks, TrackingDeltas deltas) {
         for (Map<String, Object> occaTrack : occaTracks) {
             UUID occaId = UUID.fromString((String) occaTrack.get("occaId"));
-            @SuppressWarnings("unchecked")
-            Map<String, Integer> sources = (Map<String, Integer>) occaTrack.get("sources");
-            int totalCount = (Integer) occaTrack.get("totalCount");
-            
-            Optional<OccaTrackingStats> existingStats = occaTrackingStatsRepository.findById(occaId);
+            long totalCount = count(occaTrack.get("totalCount"));
+            deltas.occaTotals.merge(occaId, totalCount, Long::sum);
             
-            OccaTrackingStats stats;
-            if (existingStats.isPresent()) {
-                stats = existingStats.get();
-                
-                // Update existing sources counts
-                Map<String, Integer> existingSources = stats.getSources();
-                for (Map.Entry<String, Integer> source : sources.entrySet()) {
-                    existingSources.put(
-                        source.getKey(),
-                        existingSources.getOrDefault(source.getKey(), 0) + source.getValue()
-                    );
+            @SuppressWarnings("unchecked")
+            Map<String, Object> sources = (Map<String, Object>) occaTrack.get("sources");
+            if (sources != null) {
+                for (Map.Entry<String, Object> source : sources.entrySet()) {
+                    deltas.occaSources.merge(new SourceKey(occaId, sourceKey(source.getKey())),
+                            count(source.getValue()), Long::sum);
                 }
-                
-                stats.setTotalCount(stats.getTotalCount() + totalCount);
-            } else {
-                stats = new OccaTrackingStats();
-                stats.setOccaId(occaId);
-                stats.setSources(sources);
-                stats.setTotalCount(totalCount);
             }
-            
-            occaTrackingStatsRepository.save(stats);
-            log.debug("Updated OccaTrackingStats for occaId: {}", occaId);
         }
     }
     
-    private void processUserCategories(UUID userId, List<Map<String, Object>> categoryTracks) {
-        for (Map<String, Object> categoryTrack : categoryTracks) {
-            UUID categoryId = UUID.fromString((String) categoryTrack.get("categoryId"));
-            int count = (Integer) categoryTrack.get("count");
+    /**
+     * Cộng lượt xem của từng occa theo nguồn vào bucket giờ.
+     * Phần totalCount không được chia cho nguồn nào được tính vào nguồn "unknown" để tổng theo nguồn khớp totalCount.
+     */
+    private void collectHourlyViews(List<Map<String, Object>> occaTracks, LocalDateTime hour,
+                                    Map<OccaViewBucket.Key, Long> viewCounts) {
+        for (Map<String, Object> occaTrack : occaTracks) {
+            UUID occaId = UUID.fromString((String) occaTrack.get("occaId"));
+            long totalCount = count(occaTrack.get("totalCount"));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> sources = (Map<String, Object>) occaTrack.get("sources");
             
-            updatePersonalTrackingStats(
-                userId,
-                PersonalTrackingStats.TrackingType.CATEGORY,
-                categoryId,
-                count
-            );
+            long attributed = 0;
+            if (sources != null) {
+                for (Map.Entry<String, Object> source : sources.entrySet()) {
+                    long count = count(source.getValue());
+                    viewCounts.merge(new OccaViewBucket.Key(occaId, sourceKey(source.getKey()),
+                            OccaViewBucket.Granularity.HOUR, hour), count, Long::sum);
+                    attributed += count;
+                }
+            }
+            if (totalCount > attributed) {
+                viewCounts.merge(new OccaViewBucket.Key(occaId, UNKNOWN_SOURCE,
+                        OccaViewBucket.Granularity.HOUR, hour), totalCount - attributed, Long::sum);
+            }
         }
     }
     
-    private void processUserLocations(UUID userId, List<Map<String, Object>> locationTracks) {
-        for (Map<String, Object> locationTrack : locationTracks) {
-            UUID locationId = UUID.fromString((String) locationTrack.get("locationId"));
-            int count = (Integer) locationTrack.get("count");
-            
-            updatePersonalTrackingStats(
-                userId,
-                PersonalTrackingStats.TrackingType.LOCATION,
-                locationId,
-                count
-            );
+    private static void collectPersonal(UUID userId, PersonalTrackingStats.TrackingType type,
+                                        List<Map<String, Object>> tracks, String idField, String countField,
+                                        TrackingDeltas deltas) {
+        for (Map<String, Object> track : tracks) {
+            UUID typeId = UUID.fromString((String) track.get(idField));
+            long count = count(track.get(countField));
+            deltas.personalCounts.merge(new PersonalKey(userId, type, typeId), count, Long::sum);
         }
     }
     
-    private void processUserOccas(UUID userId, List<Map<String, Object>> occaTracks) {
-        for (Map<String, Object> occaTrack : occaTracks) {
-            UUID occaId = UUID.fromString((String) occaTrack.get("occaId"));
-            int totalCount = (Integer) occaTrack.get("totalCount");
-            
-            updatePersonalTrackingStats(
-                userId,
-                PersonalTrackingStats.TrackingType.OCCA,
-                occaId,
-                totalCount
-            );
+    /**
+     * visitorId do TrackingService gắn vào; message cũ chỉ có userId thì suy ra từ userId, không có cả hai thì bỏ qua
+     */
+    private static String visitorId(Map<String, Object> trackingData) {
+        Object visitorId = trackingData.get("visitorId");
+        if (visitorId instanceof String id && !id.isBlank()) {
+            return id;
+        }
+        Object userId = trackingData.get("userId");
+        return userId instanceof String id ? "user:" + id : null;
+    }
+    
+    /**
+     * Số lượt trong beacon: phải là số nguyên dương và vừa cột INT, nếu không cả record bị coi là hỏng
+     */
+    private static long count(Object value) {
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("Count is missing or not a number: " + value);
+        }
+        long count = number.longValue();
+        if (count <= 0 || count > Integer.MAX_VALUE || count != number.doubleValue()) {
+            throw new IllegalArgumentException("Count out of range: " + value);
+        }
+        return count;
+    }
+    
+    private static String sourceKey(String source) {
+        if (source == null || source.isBlank()) {
+            return UNKNOWN_SOURCE;
         }
+        return source.length() > MAX_SOURCE_LENGTH ? source.substring(0, MAX_SOURCE_LENGTH) : source;
     }
     
-    private void updatePersonalTrackingStats(UUID userId, PersonalTrackingStats.TrackingType type, UUID typeId, int countToAdd) {
-        Optional<PersonalTrackingStats> existingStats = personalTrackingStatsRepository
-            .findByUserIdAndTypeAndTypeId(userId, type, typeId);
+    /**
+     * Các giá trị cần cộng của một lô, đã gộp theo key của từng bảng đích
+     */
+    private static final class TrackingDeltas {
+        private final Map<UUID, Long> occaTotals = new HashMap<>();
+        private final Map<SourceKey, Long> occaSources = new HashMap<>();
+        private final Map<PersonalKey, Long> personalCounts = new HashMap<>();
+        private final Map<OccaViewBucket.Key, Long> viewCounts = new HashMap<>();
+        private final Map<UUID, Long> reachByOcca = new HashMap<>();
+        // Sketch chỉ được dựng lúc ghi, mỗi key một lần
+        private final Map<OccaVisitorSketch.Key, Set<String>> visitors = new HashMap<>();
         
-        if (existingStats.isPresent()) {
-            PersonalTrackingStats stats = existingStats.get();
-            stats.setCount(stats.getCount() + countToAdd);
-            personalTrackingStatsRepository.save(stats);
-        } else {
-            PersonalTrackingStats stats = new PersonalTrackingStats();
-            stats.setUserId(userId);
-            stats.setType(type);
-            stats.setTypeId(typeId);
-            stats.setCount(countToAdd);
-            personalTrackingStatsRepository.save(stats);
+        private void addAll(TrackingDeltas other) {
+            other.occaTotals.forEach((key, count) -> occaTotals.merge(key, count, Long::sum));
+            other.occaSources.forEach((key, count) -> occaSources.merge(key, count, Long::sum));
+            other.personalCounts.forEach((key, count) -> personalCounts.merge(key, count, Long::sum));
+            other.viewCounts.forEach((key, count) -> viewCounts.merge(key, count, Long::sum));
+            other.reachByOcca.forEach((key, count) -> reachByOcca.merge(key, count, Long::sum));
+            other.visitors.forEach((key, visitorIds) -> visitors.computeIfAbsent(key, k -> new HashSet<>()).addAll(visitorIds));
         }
-        log.debug("Updated PersonalTrackingStats for userId: {}, type: {}, typeId: {}", userId, type, typeId);
     }
 }
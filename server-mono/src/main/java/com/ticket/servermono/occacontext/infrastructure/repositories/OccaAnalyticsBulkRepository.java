@@ -0,0 +1,52 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cộng reach vào occa_analytics bằng JDBC batch upsert; dòng chưa có sẽ được tạo kèm người tạo của occa
+ */
+@Repository
+@RequiredArgsConstructor
+public class OccaAnalyticsBulkRepository {
+
+    private static final String ADD_REACH_SQL =
+            "INSERT INTO occa_analytics " +
+            "(occa_id, creator_id, reach, revenue, fill_rate, stale_version, refreshed_version, updated_at) " +
+            "SELECT o.id, o.created_by, ?, 0, 0, 1, 0, NOW() FROM occa o WHERE o.id = ? " +
+            "ON DUPLICATE KEY UPDATE reach = reach + VALUES(reach), updated_at = NOW()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param reachByOcca occaId -> số lượt xem cần cộng
+     */
+    public void addReach(Map<UUID, Long> reachByOcca) {
+        if (reachByOcca.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>(reachByOcca.entrySet());
+        jdbcTemplate.batchUpdate(ADD_REACH_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getValue());
+            ps.setBytes(2, toBytes(entry.getKey()));
+        });
+    }
+
+    /**
+     * Hibernate lưu UUID trên MySQL dưới dạng BINARY(16)
+     */
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import com.ticket.servermono.occacontext.entities.OccaAnalytics;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OccaAnalyticsRepository extends JpaRepository<OccaAnalytics, UUID> {
+
+    Page<OccaAnalytics> findByCreatorId(UUID creatorId, Pageable pageable);
+
+    /**
+     * Các occa cần tính lại revenue/fillRate
+     * Returns Object[] { occaId (UUID), staleVersion (Long) }
+     */
+    @Query("SELECT a.occaId, a.staleVersion FROM OccaAnalytics a WHERE a.staleVersion > a.refreshedVersion")
+    List<Object[]> findStale(Pageable pageable);
+
+    /**
+     * Ghi kết quả tính lại; nếu occa bị đánh dấu thêm trong lúc tính thì vẫn còn stale cho lượt sau
+     */
+    @Modifying
+    @Query("UPDATE OccaAnalytics a SET a.revenue = :revenue, a.fillRate = :fillRate, " +
+           "a.refreshedVersion = :version, a.updatedAt = CURRENT_TIMESTAMP WHERE a.occaId = :occaId")
+    int applyRefresh(@Param("occaId") UUID occaId,
+                     @Param("revenue") double revenue,
+                     @Param("fillRate") int fillRate,
+                     @Param("version") long version);
+
+    @Modifying
+    @Query("UPDATE OccaAnalytics a SET a.staleVersion = a.staleVersion + 1 WHERE a.occaId = :occaId")
+    int markStale(@Param("occaId") UUID occaId);
+
+    @Modifying
+    @Query("UPDATE OccaAnalytics a SET a.staleVersion = a.staleVersion + 1")
+    int markAllStale();
+
+    /**
+     * Tạo dòng cho một occa nếu chưa có (cần tính revenue/fillRate ngay lượt sau)
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO occa_analytics " +
+                   "(occa_id, creator_id, reach, revenue, fill_rate, stale_version, refreshed_version, updated_at) " +
+                   "SELECT o.id, o.created_by, 0, 0, 0, 1, 0, NOW() FROM occa o WHERE o.id = :occaId", nativeQuery = true)
+    int ensureRow(@Param("occaId") UUID occaId);
+
+    /**
+     * Tạo dòng cho mọi occa chưa có
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO occa_analytics " +
+                   "(occa_id, creator_id, reach, revenue, fill_rate, stale_version, refreshed_version, updated_at) " +
+                   "SELECT o.id, o.created_by, 0, 0, 0, 1, 0, NOW() FROM occa o", nativeQuery = true)
+    int ensureAllRows();
+
+    /**
+     * Tính một lần reach_baseline cho các dòng chưa có: phần lượt xem tích lũy trong occa_tracking_stats
+     * không nằm trong bucket nào (lịch sử trước khi có occa_view_buckets).
+     * occa_tracking_stats và bucket được cộng trong cùng lô nên phần chênh này không đổi về sau.
+     */
+    @Modifying
+    @Query(value = "UPDATE occa_analytics a LEFT JOIN occa_tracking_stats t ON t.occa_id = a.occa_id " +
+                   "SET a.reach_baseline = GREATEST(COALESCE(t.total_count, 0) - " +
+                   "(SELECT COALESCE(SUM(b.view_count), 0) FROM occa_view_buckets b WHERE b.occa_id = a.occa_id), 0) " +
+                   "WHERE a.reach_baseline IS NULL",
+           nativeQuery = true)
+    int seedReachBaseline();
+
+    /**
+     * Đồng bộ lại reach = reach_baseline + tổng occa_view_buckets (phòng khi có lượt cộng bị lỡ).
+     * Dòng chưa có reach_baseline được giữ nguyên để không xóa mất lượt xem trước khi có bucket.
+     */
+    @Modifying
+    @Query(value = "UPDATE occa_analytics a SET a.reach = a.reach_baseline + " +
+                   "(SELECT COALESCE(SUM(b.view_count), 0) FROM occa_view_buckets b WHERE b.occa_id = a.occa_id) " +
+                   "WHERE a.reach_baseline IS NOT NULL",
+           nativeQuery = true)
+    int resyncReach();
+
+    /**
+     * Xóa dòng của các occa không còn tồn tại
+     */
+    @Modifying
+    @Query(value = "DELETE a FROM occa_analytics a LEFT JOIN occa o ON o.id = a.occa_id WHERE o.id IS NULL",
+           nativeQuery = true)
+    int deleteOrphans();
+}
@@ -12,6 +12,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -153,4 +154,10 @@ public interface OccaRepository extends JpaRepository<Occa, UUID> {
                         "WHERE o.id = :occaId")
         Optional<OccaForBookingResponse> findOccaForBooking(@Param("occaId") UUID occaId);
 
-}
\ No newline at end of file
+        /**
+         * Lấy tiêu đề và địa điểm của nhiều occa trong một truy vấn
+         * @return danh sách [occaId, title, venueLocation]
+         */
+        @Query("SELECT o.id, o.title, v.location FROM Occa o LEFT JOIN o.venue v WHERE o.id IN :occaIds")
+        List<Object[]> findTitleAndLocationByIds(@Param("occaIds") Collection<UUID> occaIds);
+}
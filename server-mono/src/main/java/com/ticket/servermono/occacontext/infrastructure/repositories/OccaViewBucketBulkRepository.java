@@ -0,0 +1,83 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.occacontext.entities.OccaViewBucket;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ghi cộng dồn lượt xem vào occa_view_buckets bằng JDBC batch upsert
+ * (một câu lệnh cho mọi cặp occa/nguồn của một lô thay vì đọc-sửa-ghi từng entity).
+ */
+@Repository
+@RequiredArgsConstructor
+public class OccaViewBucketBulkRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO occa_view_buckets (occa_id, source, granularity, bucket_start, view_count) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE view_count = view_count + VALUES(view_count)";
+
+    // Gộp qua bảng dẫn xuất để ON DUPLICATE KEY UPDATE tham chiếu được tổng đã tính
+    private static final String ROLLUP_SQL =
+            "INSERT INTO occa_view_buckets (occa_id, source, granularity, bucket_start, view_count) " +
+            "SELECT rolled.occa_id, rolled.source, 'DAY', rolled.day_start, rolled.total FROM (" +
+            "SELECT occa_id, source, CAST(DATE(bucket_start) AS DATETIME) AS day_start, SUM(view_count) AS total " +
+            "FROM occa_view_buckets WHERE granularity = 'HOUR' AND bucket_start < ? " +
+            "GROUP BY occa_id, source, day_start) AS rolled " +
+            "ON DUPLICATE KEY UPDATE view_count = occa_view_buckets.view_count + rolled.total";
+
+    private static final String DELETE_ROLLED_UP_SQL =
+            "DELETE FROM occa_view_buckets WHERE granularity = 'HOUR' AND bucket_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Cộng lượt xem vào các bucket giờ
+     * @param counts key (occaId, nguồn, đầu giờ) -> số lượt xem cần cộng
+     */
+    public void addHourlyViews(Map<OccaViewBucket.Key, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<OccaViewBucket.Key, Long>> entries = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            OccaViewBucket.Key key = entry.getKey();
+            ps.setBytes(1, toBytes(key.getOccaId()));
+            ps.setString(2, key.getSource());
+            ps.setString(3, OccaViewBucket.Granularity.HOUR.name());
+            ps.setTimestamp(4, Timestamp.valueOf(key.getBucketStart()));
+            ps.setLong(5, entry.getValue());
+        });
+    }
+
+    /**
+     * Gộp các bucket giờ trước cutoff thành bucket ngày rồi xóa chúng; gọi trong cùng một transaction
+     * @return số bucket giờ đã xóa
+     */
+    public int rollUpHoursBefore(LocalDateTime cutoff) {
+        Timestamp timestamp = Timestamp.valueOf(cutoff);
+        jdbcTemplate.update(ROLLUP_SQL, timestamp);
+        return jdbcTemplate.update(DELETE_ROLLED_UP_SQL, timestamp);
+    }
+
+    /**
+     * Hibernate lưu UUID trên MySQL dưới dạng BINARY(16)
+     */
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
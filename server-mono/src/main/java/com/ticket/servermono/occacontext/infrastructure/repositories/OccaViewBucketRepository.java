@@ -0,0 +1,56 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import com.ticket.servermono.occacontext.entities.OccaViewBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Truy vấn lượt xem theo khoảng thời gian trên occa_view_buckets.
+ * Bucket giờ được lấy nếu đầu giờ nằm trong [from, to]; bucket ngày (đã gộp) được lấy nếu ngày đó giao với khoảng,
+ * tức là so với dayFrom = đầu ngày của from.
+ */
+@Repository
+public interface OccaViewBucketRepository extends JpaRepository<OccaViewBucket, OccaViewBucket.Key> {
+
+    String IN_RANGE =
+            "b.occaId IN :occaIds AND (" +
+            "(b.granularity = com.ticket.servermono.occacontext.entities.OccaViewBucket.Granularity.HOUR " +
+            "AND b.bucketStart BETWEEN :from AND :to) OR " +
+            "(b.granularity = com.ticket.servermono.occacontext.entities.OccaViewBucket.Granularity.DAY " +
+            "AND b.bucketStart BETWEEN :dayFrom AND :to))";
+
+    /**
+     * Returns Object[] { occaId (UUID), views (Long) }
+     */
+    @Query("SELECT b.occaId, SUM(b.viewCount) FROM OccaViewBucket b WHERE " + IN_RANGE + " GROUP BY b.occaId")
+    List<Object[]> sumViewsByOcca(@Param("occaIds") Collection<UUID> occaIds,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("dayFrom") LocalDateTime dayFrom,
+                                  @Param("to") LocalDateTime to);
+
+    /**
+     * Returns Object[] { source (String), views (Long) }
+     */
+    @Query("SELECT b.source, SUM(b.viewCount) FROM OccaViewBucket b WHERE " + IN_RANGE + " GROUP BY b.source")
+    List<Object[]> sumViewsBySource(@Param("occaIds") Collection<UUID> occaIds,
+                                    @Param("from") LocalDateTime from,
+                                    @Param("dayFrom") LocalDateTime dayFrom,
+                                    @Param("to") LocalDateTime to);
+
+    /**
+     * Returns Object[] { day (LocalDate), views (Long) }
+     */
+    @Query("SELECT CAST(b.bucketStart AS LocalDate), SUM(b.viewCount) FROM OccaViewBucket b WHERE " + IN_RANGE +
+           " GROUP BY CAST(b.bucketStart AS LocalDate)")
+    List<Object[]> sumViewsByDay(@Param("occaIds") Collection<UUID> occaIds,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("dayFrom") LocalDateTime dayFrom,
+                                 @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,129 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import java.nio.ByteBuffer;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.common.utils.HyperLogLog;
+import com.ticket.servermono.occacontext.entities.OccaVisitorSketch;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Gộp sketch khách truy cập vào occa_visitor_sketches.
+ * Merge HyperLogLog không biểu diễn được bằng phép cộng SQL nên mỗi nhóm dòng được đọc-gộp-ghi dưới khóa dòng:
+ * tạo trước dòng rỗng bằng INSERT ... ON DUPLICATE KEY UPDATE no-op (dòng chắc chắn tồn tại, không ghi đè consumer khác,
+ * và dòng đã có cũng bị khóa X ngay), đọc cả nhóm bằng một SELECT ... FOR UPDATE (đọc bản mới nhất, không phải snapshot),
+ * gộp trong bộ nhớ rồi batch UPDATE các dòng thay đổi.
+ * Không dùng INSERT IGNORE: với dòng đã tồn tại nó chỉ lấy khóa S, hai consumer cùng giữ S rồi cùng xin nâng lên X
+ * ở SELECT ... FOR UPDATE sẽ deadlock.
+ * Phải gọi trong transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OccaVisitorSketchBulkRepository {
+
+    private static final String INSERT_EMPTY_SQL =
+            "INSERT INTO occa_visitor_sketches (occa_id, day, source, sketch, updated_at) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE occa_id = occa_id";
+
+    private static final String SELECT_FOR_UPDATE_SQL =
+            "SELECT occa_id, day, source, sketch FROM occa_visitor_sketches WHERE (occa_id, day, source) IN (%s) FOR UPDATE";
+
+    private static final String UPDATE_SQL =
+            "UPDATE occa_visitor_sketches SET sketch = ?, updated_at = ? WHERE occa_id = ? AND day = ? AND source = ?";
+
+    private static final byte[] EMPTY_SKETCH = new HyperLogLog().toBytes();
+
+    // Khóa X được lấy ngay ở lệnh INSERT, lần lượt theo thứ tự key này (các nhóm cũng theo thứ tự đó và giữ khóa
+    // tới hết transaction), nên mọi consumer khóa các dòng chung theo cùng một thứ tự và không chờ vòng lẫn nhau
+    private static final Comparator<OccaVisitorSketch.Key> LOCK_ORDER = Comparator
+            .comparing(OccaVisitorSketch.Key::getOccaId)
+            .thenComparing(OccaVisitorSketch.Key::getDay)
+            .thenComparing(OccaVisitorSketch.Key::getSource);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Số dòng mỗi lượt khóa/đọc
+    @Value("${app.tracking.batch.upsert-chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Gộp các sketch vào dòng tương ứng
+     * @param sketches key (occaId, ngày, nguồn) -> sketch các khách mới ghi nhận
+     */
+    public void addVisitors(Map<OccaVisitorSketch.Key, HyperLogLog> sketches) {
+        List<OccaVisitorSketch.Key> keys = sketches.keySet().stream().sorted(LOCK_ORDER).toList();
+        for (int from = 0; from < keys.size(); from += chunkSize) {
+            addChunk(keys.subList(from, Math.min(from + chunkSize, keys.size())), sketches);
+        }
+    }
+
+    private void addChunk(List<OccaVisitorSketch.Key> keys, Map<OccaVisitorSketch.Key, HyperLogLog> sketches) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_EMPTY_SQL, keys, keys.size(), (ps, key) -> {
+            ps.setBytes(1, toBytes(key.getOccaId()));
+            ps.setDate(2, Date.valueOf(key.getDay()));
+            ps.setString(3, key.getSource());
+            ps.setBytes(4, EMPTY_SKETCH);
+            ps.setTimestamp(5, now);
+        });
+
+        List<Object> args = new ArrayList<>(keys.size() * 3);
+        for (OccaVisitorSketch.Key key : keys) {
+            args.add(toBytes(key.getOccaId()));
+            args.add(Date.valueOf(key.getDay()));
+            args.add(key.getSource());
+        }
+        String placeholders = String.join(", ", Collections.nCopies(keys.size(), "(?, ?, ?)"));
+        Map<OccaVisitorSketch.Key, byte[]> stored = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_FOR_UPDATE_SQL, placeholders), rs -> {
+            OccaVisitorSketch.Key key = new OccaVisitorSketch.Key(
+                    toUuid(rs.getBytes(1)), rs.getDate(2).toLocalDate(), rs.getString(3));
+            stored.put(key, rs.getBytes(4));
+        }, args.toArray());
+
+        List<Object[]> updates = new ArrayList<>();
+        for (OccaVisitorSketch.Key key : keys) {
+            byte[] current = stored.get(key);
+            HyperLogLog merged = HyperLogLog.fromBytes(current != null ? current : EMPTY_SKETCH);
+            merged.merge(sketches.get(key));
+            byte[] updated = merged.toBytes();
+            // Khách đã được ghi nhận trước đó không làm đổi register nào: bỏ qua lệnh ghi
+            if (!Arrays.equals(updated, current)) {
+                updates.add(new Object[] {updated, now, toBytes(key.getOccaId()), Date.valueOf(key.getDay()), key.getSource()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+    }
+
+    /**
+     * Hibernate lưu UUID trên MySQL dưới dạng BINARY(16)
+     */
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static UUID toUuid(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,34 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import com.ticket.servermono.occacontext.entities.OccaVisitorSketch;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Repository
+public interface OccaVisitorSketchRepository extends JpaRepository<OccaVisitorSketch, OccaVisitorSketch.Key> {
+
+    /**
+     * Đọc lần lượt các sketch của các occa trong [fromDay, toDay] để gộp dần trong bộ nhớ,
+     * không giữ toàn bộ result set hay entity trong persistence context.
+     * Phải đọc hết và đóng Stream trong transaction.
+     * Mỗi dòng: [occaId (UUID), day (LocalDate), source (String), sketch (byte[])]
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT s.occaId, s.day, s.source, s.sketch FROM OccaVisitorSketch s " +
+           "WHERE s.occaId IN :occaIds AND s.day BETWEEN :fromDay AND :toDay")
+    Stream<Object[]> streamSketches(@Param("occaIds") Collection<UUID> occaIds,
+                                    @Param("fromDay") LocalDate fromDay,
+                                    @Param("toDay") LocalDate toDay);
+}
@@ -1,9 +1,13 @@
 package com.ticket.servermono.occacontext.infrastructure.repositories;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.ticket.servermono.occacontext.domain.enums.SaleStatus;
 import com.ticket.servermono.occacontext.entities.Show;
@@ -18,4 +22,22 @@ public interface ShowRepository extends JpaRepository<Show, UUID> {
      * Used by the scheduler to find shows that need status updates
      */
     List<Show> findByAutoUpdateStatusTrueAndSaleStatusNot(SaleStatus saleStatus);
+
+    /**
+     * Lấy show kèm occa và địa điểm của nhiều show trong một truy vấn JOIN
+     * @return danh sách [showId, date, time, occaId, occaTitle, venueLocation]
+     */
+    @Query("SELECT s.id, s.date, s.time, o.id, o.title, v.location FROM Show s " +
+           "JOIN s.occa o LEFT JOIN o.venue v WHERE s.id IN :showIds")
+    List<Object[]> findShowsWithOccaByIds(@Param("showIds") Collection<UUID> showIds);
+
+    /**
+     * Lấy id show của nhiều occa trong một truy vấn
+     * @return danh sách [occaId, showId]
+     */
+    @Query("SELECT s.occa.id, s.id FROM Show s WHERE s.occa.id IN :occaIds")
+    List<Object[]> findShowIdsByOccaIds(@Param("occaIds") Collection<UUID> occaIds);
+
+    @Query("SELECT s.occa.id FROM Show s WHERE s.id = :showId")
+    Optional<UUID> findOccaIdByShowId(@Param("showId") UUID showId);
 }
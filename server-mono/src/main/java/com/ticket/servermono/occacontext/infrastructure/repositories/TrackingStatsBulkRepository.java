@@ -0,0 +1,146 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.occacontext.entities.PersonalTrackingStats;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Cộng dồn thống kê tracking (occa_tracking_stats, occa_tracking_sources, personal_tracking_stats)
+ * bằng INSERT nhiều dòng ... ON DUPLICATE KEY UPDATE count = count + VALUES(count),
+ * thay cho findById + save từng dòng. Các dòng được ghi theo thứ tự key cố định để các consumer song song không deadlock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TrackingStatsBulkRepository {
+
+    private static final String OCCA_TOTALS_INSERT =
+            "INSERT INTO occa_tracking_stats (occa_id, total_count, last_updated) VALUES ";
+    private static final String OCCA_TOTALS_ROW = "(?, ?, ?)";
+    private static final String OCCA_TOTALS_UPDATE =
+            " ON DUPLICATE KEY UPDATE total_count = total_count + VALUES(total_count), last_updated = VALUES(last_updated)";
+
+    private static final String OCCA_SOURCES_INSERT =
+            "INSERT INTO occa_tracking_sources (occa_id, source, `count`) VALUES ";
+    private static final String OCCA_SOURCES_ROW = "(?, ?, ?)";
+    private static final String OCCA_SOURCES_UPDATE =
+            " ON DUPLICATE KEY UPDATE `count` = `count` + VALUES(`count`)";
+
+    private static final String PERSONAL_INSERT =
+            "INSERT INTO personal_tracking_stats (id, user_id, type, type_id, `count`) VALUES ";
+    private static final String PERSONAL_ROW = "(?, ?, ?, ?, ?)";
+    private static final String PERSONAL_UPDATE =
+            " ON DUPLICATE KEY UPDATE `count` = `count` + VALUES(`count`)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Số dòng tối đa mỗi câu INSERT (giới hạn kích thước câu lệnh và số placeholder)
+    @Value("${app.tracking.batch.upsert-chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Cặp occa/nguồn của occa_tracking_sources
+     */
+    public record SourceKey(UUID occaId, String source) {
+    }
+
+    /**
+     * Một dòng personal_tracking_stats (unique theo userId, type, typeId)
+     */
+    public record PersonalKey(UUID userId, PersonalTrackingStats.TrackingType type, UUID typeId) {
+    }
+
+    /**
+     * Cộng totalCount của occa_tracking_stats; gọi trước addOccaSources vì occa_tracking_sources tham chiếu tới bảng này
+     * @param totals occaId -> số lượt cần cộng
+     */
+    public void addOccaTotals(Map<UUID, Long> totals) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<UUID, Long>> rows = sorted(totals, Map.Entry.comparingByKey());
+        upsert(OCCA_TOTALS_INSERT, OCCA_TOTALS_ROW, OCCA_TOTALS_UPDATE, rows, (args, row) -> {
+            args.add(toBytes(row.getKey()));
+            args.add(row.getValue());
+            args.add(now);
+        });
+    }
+
+    /**
+     * @param counts (occaId, nguồn) -> số lượt cần cộng
+     */
+    public void addOccaSources(Map<SourceKey, Long> counts) {
+        List<Map.Entry<SourceKey, Long>> rows = sorted(counts, Map.Entry.comparingByKey(
+                Comparator.comparing(SourceKey::occaId).thenComparing(SourceKey::source)));
+        upsert(OCCA_SOURCES_INSERT, OCCA_SOURCES_ROW, OCCA_SOURCES_UPDATE, rows, (args, row) -> {
+            args.add(toBytes(row.getKey().occaId()));
+            args.add(row.getKey().source());
+            args.add(row.getValue());
+        });
+    }
+
+    /**
+     * @param counts (userId, loại, typeId) -> số lượt cần cộng; id chỉ dùng khi dòng được tạo mới
+     */
+    public void addPersonalCounts(Map<PersonalKey, Long> counts) {
+        List<Map.Entry<PersonalKey, Long>> rows = sorted(counts, Map.Entry.comparingByKey(
+                Comparator.comparing(PersonalKey::userId)
+                        .thenComparing(PersonalKey::type)
+                        .thenComparing(PersonalKey::typeId)));
+        upsert(PERSONAL_INSERT, PERSONAL_ROW, PERSONAL_UPDATE, rows, (args, row) -> {
+            args.add(toBytes(UUID.randomUUID()));
+            args.add(toBytes(row.getKey().userId()));
+            args.add(row.getKey().type().name());
+            args.add(toBytes(row.getKey().typeId()));
+            args.add(row.getValue());
+        });
+    }
+
+    private <T> void upsert(String insert, String rowPlaceholder, String onDuplicate, List<T> rows,
+                            RowBinder<T> binder) {
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            StringBuilder sql = new StringBuilder(insert);
+            List<Object> args = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(rowPlaceholder);
+                binder.bind(args, chunk.get(i));
+            }
+            sql.append(onDuplicate);
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    private static <K, V> List<Map.Entry<K, V>> sorted(Map<K, V> map, Comparator<Map.Entry<K, V>> order) {
+        if (map.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return map.entrySet().stream().sorted(order).toList();
+    }
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        void bind(List<Object> args, T row);
+    }
+
+    /**
+     * Hibernate lưu UUID trên MySQL dưới dạng BINARY(16)
+     */
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
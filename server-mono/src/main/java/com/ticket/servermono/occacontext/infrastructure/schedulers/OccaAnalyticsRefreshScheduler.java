@@ -0,0 +1,45 @@
+package com.ticket.servermono.occacontext.infrastructure.schedulers;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.occacontext.usecases.OccaAnalyticsService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tính lại revenue/fillRate của các dòng occa_analytics bị đánh dấu, và đối soát toàn bộ mỗi đêm
+ * (cũng chạy một lần khi khởi động để tạo dữ liệu ban đầu)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OccaAnalyticsRefreshScheduler {
+
+    private final OccaAnalyticsService occaAnalyticsService;
+
+    @Scheduled(fixedDelayString = "${app.occa-analytics.refresh-interval-ms:30000}")
+    public void refreshStale() {
+        try {
+            int refreshed = occaAnalyticsService.refreshStale();
+            if (refreshed > 0) {
+                log.debug("Refreshed analytics of {} occas", refreshed);
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi tính lại occa analytics: {}", e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.occa-analytics.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        try {
+            occaAnalyticsService.reconcileAll();
+        } catch (Exception e) {
+            log.error("Lỗi khi đối soát occa analytics: {}", e.getMessage(), e);
+        }
+    }
+}
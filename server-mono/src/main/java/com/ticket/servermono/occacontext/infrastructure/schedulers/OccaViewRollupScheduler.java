@@ -0,0 +1,39 @@
+package com.ticket.servermono.occacontext.infrastructure.schedulers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaViewBucketBulkRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gộp các bucket lượt xem theo giờ cũ hơn N ngày thành bucket theo ngày, để bảng không phình theo số giờ
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OccaViewRollupScheduler {
+
+    private final OccaViewBucketBulkRepository occaViewBucketBulkRepository;
+
+    @Value("${app.tracking.hourly-retention-days:7}")
+    private int hourlyRetentionDays;
+
+    @Scheduled(cron = "${app.tracking.rollup-cron:0 15 * * * *}")
+    @Transactional
+    public void rollUpHourlyBuckets() {
+        // Chỉ gộp những ngày đã trọn vẹn trước mốc giữ lại
+        LocalDateTime cutoff = LocalDate.now().minusDays(hourlyRetentionDays).atStartOfDay();
+        int rolledUp = occaViewBucketBulkRepository.rollUpHoursBefore(cutoff);
+        if (rolledUp > 0) {
+            log.info("Rolled up {} hourly view buckets before {} into daily buckets", rolledUp, cutoff);
+        }
+    }
+}
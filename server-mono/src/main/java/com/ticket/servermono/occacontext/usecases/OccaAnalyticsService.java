@@ -0,0 +1,124 @@
+package com.ticket.servermono.occacontext.usecases;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ticket.servermono.occacontext.infrastructure.clients.TicketStatsGrpcClient;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaAnalyticsRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.ShowRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ticket.OccaTicketStats;
+
+/**
+ * Duy trì bảng occa_analytics (số liệu tích lũy của từng occa cho trang phân tích của người tổ chức)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OccaAnalyticsService {
+
+    // Doanh thu/tỉ lệ lấp đầy tích lũy: tính từ mốc đủ sớm tới hiện tại
+    private static final LocalDateTime LIFETIME_START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final OccaAnalyticsRepository occaAnalyticsRepository;
+    private final OccaRepository occaRepository;
+    private final ShowRepository showRepository;
+    private final TicketStatsGrpcClient ticketStatsGrpcClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.occa-analytics.refresh-batch-size:200}")
+    private int refreshBatchSize;
+
+    /**
+     * Occa vừa được tạo/sửa/xóa: tạo dòng nếu chưa có, hoặc xóa dòng nếu occa không còn
+     */
+    @Transactional
+    public void onOccaChanged(UUID occaId) {
+        if (!occaRepository.existsById(occaId)) {
+            occaAnalyticsRepository.findById(occaId).ifPresent(occaAnalyticsRepository::delete);
+            return;
+        }
+        if (occaAnalyticsRepository.ensureRow(occaId) == 0) {
+            occaAnalyticsRepository.markStale(occaId);
+        }
+    }
+
+    /**
+     * Có thanh toán cho một show: doanh thu/tỉ lệ lấp đầy của occa chứa show cần tính lại
+     */
+    @Transactional
+    public void onShowSold(UUID showId) {
+        showRepository.findOccaIdByShowId(showId).ifPresent(occaId -> {
+            if (occaAnalyticsRepository.markStale(occaId) == 0) {
+                occaAnalyticsRepository.ensureRow(occaId);
+            }
+        });
+    }
+
+    /**
+     * Tính lại revenue/fillRate cho các occa bị đánh dấu, mỗi lô một lượt gọi ticket stats
+     * @return số occa đã tính lại
+     */
+    public int refreshStale() {
+        int refreshed = 0;
+        while (true) {
+            List<Object[]> stale = occaAnalyticsRepository.findStale(PageRequest.of(0, refreshBatchSize));
+            if (stale.isEmpty()) {
+                break;
+            }
+            List<UUID> occaIds = new ArrayList<>(stale.size());
+            stale.forEach(row -> occaIds.add((UUID) row[0]));
+
+            Map<String, OccaTicketStats> stats = ticketStatsGrpcClient.getTicketStatsByOccaIds(
+                    occaIds, LIFETIME_START, LocalDateTime.now());
+            if (stats.isEmpty()) {
+                // Ticket service không trả lời: để lại cho lượt sau thay vì ghi số 0
+                log.warn("Could not refresh analytics of {} occas: no ticket stats", occaIds.size());
+                break;
+            }
+
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Object[] row : stale) {
+                    UUID occaId = (UUID) row[0];
+                    OccaTicketStats occaStats = stats.get(occaId.toString());
+                    occaAnalyticsRepository.applyRefresh(occaId,
+                            occaStats != null ? occaStats.getRevenue() : 0,
+                            occaStats != null ? occaStats.getFillRate() : 0,
+                            (Long) row[1]);
+                }
+            });
+            refreshed += stale.size();
+            if (stale.size() < refreshBatchSize) {
+                break;
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Đối soát toàn bộ: thêm dòng còn thiếu, xóa dòng thừa, tính reach_baseline cho dòng mới,
+     * đồng bộ reach từ baseline + bucket và đánh dấu tính lại mọi occa
+     */
+    @Transactional
+    public void reconcileAll() {
+        int created = occaAnalyticsRepository.ensureAllRows();
+        int deleted = occaAnalyticsRepository.deleteOrphans();
+        int seeded = occaAnalyticsRepository.seedReachBaseline();
+        occaAnalyticsRepository.resyncReach();
+        int marked = occaAnalyticsRepository.markAllStale();
+        log.info("Occa analytics reconcile: {} rows created, {} deleted, {} reach baselines seeded, {} marked for refresh",
+                created, deleted, seeded, marked);
+    }
+}
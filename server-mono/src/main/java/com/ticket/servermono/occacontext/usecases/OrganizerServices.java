@@ -10,8 +10,10 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -24,6 +26,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.common.utils.HyperLogLog;
 import com.ticket.servermono.occacontext.adapters.dtos.kafka.TicketClassCreateDTO;
 import ticket.OccaTicketStats;
 import com.ticket.servermono.occacontext.adapters.dtos.organizer.AnalyticsOverviewResponse;
@@ -45,11 +48,11 @@ import com.ticket.servermono.occacontext.domain.enums.SaleStatus;
 import com.ticket.servermono.occacontext.entities.Category;
 import com.ticket.servermono.occacontext.entities.Occa;
 import com.ticket.servermono.occacontext.entities.OccaDetailInfo;
+import com.ticket.servermono.occacontext.entities.OccaAnalytics;
 import com.ticket.servermono.occacontext.entities.PersonalTrackingStats;
 import com.ticket.servermono.occacontext.entities.Region;
 import com.ticket.servermono.occacontext.entities.Show;
 import com.ticket.servermono.occacontext.entities.Venue;
-import com.ticket.servermono.occacontext.entities.OccaTrackingStats;
 import com.ticket.servermono.occacontext.infrastructure.clients.TicketClassGrpcClient;
 import com.ticket.servermono.occacontext.infrastructure.clients.TicketStatsGrpcClient;
 import com.ticket.servermono.occacontext.infrastructure.repositories.CategoryRepository;
@@ -58,7 +61,9 @@ import com.ticket.servermono.occacontext.infrastructure.repositories.OccaReposit
 import com.ticket.servermono.occacontext.infrastructure.repositories.RegionRepository;
 import com.ticket.servermono.occacontext.infrastructure.repositories.ShowRepository;
 import com.ticket.servermono.occacontext.infrastructure.repositories.VenueRepository;
-import com.ticket.servermono.occacontext.infrastructure.repositories.OccaTrackingStatsRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaAnalyticsRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaViewBucketRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaVisitorSketchRepository;
 import com.ticket.servermono.occacontext.infrastructure.repositories.PersonalTrackingStatsRepository;
 
 import jakarta.persistence.EntityNotFoundException;
@@ -78,7 +83,9 @@ public class OrganizerServices {
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final TicketClassGrpcClient ticketClassGrpcClient;
     private final TicketStatsGrpcClient ticketStatsGrpcClient;
-    private final OccaTrackingStatsRepository occaTrackingStatsRepository;
+    private final OccaViewBucketRepository occaViewBucketRepository;
+    private final OccaAnalyticsRepository occaAnalyticsRepository;
+    private final OccaVisitorSketchRepository occaVisitorSketchRepository;
 
     /**
      * Lấy danh sách sự kiện của người tổ chức với phân trang, sắp xếp và lọc
@@ -724,55 +731,50 @@ public class OrganizerServices {
                 .map(Occa::getId)
                 .collect(Collectors.toList());
         
-        // Lấy dữ liệu tracking của các sự kiện và lọc theo thời gian
-        List<OccaTrackingStats> trackingStats = occaTrackingStatsRepository.findAllById(occaIds).stream()
-                .filter(stats -> {
-                    LocalDateTime lastUpdated = stats.getLastUpdated();
-                    return lastUpdated != null && 
-                           !lastUpdated.isBefore(from) && 
-                           !lastUpdated.isAfter(to);
-                })
-                .collect(Collectors.toList());
+        // Lượt xem của từng sự kiện trong khoảng thời gian, cộng từ các bucket giờ/ngày
+        Map<UUID, Integer> reachByOcca = sumViewsByOcca(occaIds, from, to);
 
-        log.info("Found {} tracking records in date range", trackingStats.size());
+        log.info("Found views for {} events in date range", reachByOcca.size());
         
         // Tính tổng lượt tiếp cận
-        int totalReach = trackingStats.stream()
-                .mapToInt(OccaTrackingStats::getTotalCount)
+        int totalReach = reachByOcca.values().stream()
+                .mapToInt(Integer::intValue)
                 .sum();
         
         // Lấy top 5 sự kiện được quan tâm nhất
-        List<OccaReachItem> topOccas = trackingStats.stream()
-                .sorted((a, b) -> Integer.compare(b.getTotalCount(), a.getTotalCount()))
+        Map<UUID, String> titles = userOccas.stream()
+                .collect(Collectors.toMap(Occa::getId, Occa::getTitle, (a, b) -> a));
+        List<Map.Entry<UUID, Integer>> topReach = reachByOcca.entrySet().stream()
+                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
                 .limit(5)
-                .map(stat -> {
-                    Occa occa = userOccas.stream()
-                            .filter(o -> o.getId().equals(stat.getOccaId()))
-                            .findFirst()
-                            .orElse(null);
-                    
-                    return OccaReachItem.builder()
-                            .id(stat.getOccaId().toString())
-                            .title(occa != null ? occa.getTitle() : "Unknown Event")
-                            .reach(stat.getTotalCount())
-                            .build();
-                })
+                .collect(Collectors.toList());
+        
+        // Khách duy nhất: gộp sketch theo ngày của các sự kiện trong khoảng (khách quay lại nhiều ngày chỉ tính một lần)
+        VisitorSketches visitors = mergeVisitorSketches(occaIds, from, to,
+                topReach.stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+        
+        List<OccaReachItem> topOccas = topReach.stream()
+                .map(entry -> OccaReachItem.builder()
+                        .id(entry.getKey().toString())
+                        .title(titles.getOrDefault(entry.getKey(), "Unknown Event"))
+                        .reach(entry.getValue())
+                        .uniqueReach(visitors.estimate(visitors.byOcca, entry.getKey()))
+                        .build())
                 .collect(Collectors.toList());
         
         // Tính phân bố nguồn truy cập
         Map<String, Integer> sourceMap = new HashMap<>();
-        trackingStats.forEach(stat -> {
-            if (stat.getSources() != null) {
-                stat.getSources().forEach((source, count) -> {
-                    sourceMap.put(source, sourceMap.getOrDefault(source, 0) + count);
-                });
+        if (!occaIds.isEmpty()) {
+            for (Object[] row : occaViewBucketRepository.sumViewsBySource(occaIds, from, from.toLocalDate().atStartOfDay(), to)) {
+                sourceMap.put((String) row[0], ((Number) row[1]).intValue());
             }
-        });
+        }
         
         List<SourceDistributionItem> sourceDistribution = sourceMap.entrySet().stream()
                 .map(entry -> SourceDistributionItem.builder()
                         .name(entry.getKey())
                         .count(entry.getValue())
+                        .uniqueVisitors(visitors.estimate(visitors.bySource, entry.getKey()))
                         .build())
                 .sorted((a, b) -> Integer.compare(b.getCount(), a.getCount()))
                 .collect(Collectors.toList());
@@ -785,6 +787,7 @@ public class OrganizerServices {
         
         return AnalyticsOverviewResponse.builder()
                 .totalReach(totalReach)
+                .uniqueReach((int) visitors.total.estimate())
                 .topOccas(topOccas)
                 .sourceDistribution(sourceDistribution)
                 .period(period)
@@ -806,24 +809,15 @@ public class OrganizerServices {
                 .map(Occa::getId)
                 .collect(Collectors.toList());
         
-        // Lấy dữ liệu tracking của các sự kiện và lọc theo thời gian
-        List<OccaTrackingStats> trackingStats = occaTrackingStatsRepository.findAllById(occaIds).stream()
-                .filter(stats -> {
-                    LocalDateTime lastUpdated = stats.getLastUpdated();
-                    return lastUpdated != null && 
-                           !lastUpdated.isBefore(from) && 
-                           !lastUpdated.isAfter(to);
-                })
-                .collect(Collectors.toList());
-
-        // Tạo map để lưu trữ số lượng visitors theo ngày
+        // Số lượt truy cập theo ngày, cộng từ các bucket giờ/ngày trong DB
         Map<LocalDate, Integer> visitorsByDate = new HashMap<>();
+        if (!occaIds.isEmpty()) {
+            for (Object[] row : occaViewBucketRepository.sumViewsByDay(occaIds, from, from.toLocalDate().atStartOfDay(), to)) {
+                visitorsByDate.put((LocalDate) row[0], ((Number) row[1]).intValue());
+            }
+        }
         
-        // Xử lý dữ liệu tracking theo ngày
-        trackingStats.forEach(stat -> {
-            LocalDate date = stat.getLastUpdated().toLocalDate();
-            visitorsByDate.merge(date, stat.getTotalCount(), Integer::sum);
-        });
+        VisitorSketches visitors = mergeVisitorSketches(occaIds, from, to, Set.of());
         
         // Tạo danh sách các ngày từ from đến to
         List<LocalDate> dateRange = new ArrayList<>();
@@ -841,6 +835,7 @@ public class OrganizerServices {
                 .map(date -> DailyVisitorsItem.builder()
                         .date(date.format(formatter))
                         .visitors(visitorsByDate.getOrDefault(date, 0))
+                        .uniqueVisitors(visitors.estimate(visitors.byDay, date))
                         .build())
                 .collect(Collectors.toList());
     }    /**
@@ -849,8 +844,9 @@ public class OrganizerServices {
      * @param userId    ID của người tổ chức
      * @param page      Số trang (bắt đầu từ 0)
      * @param size      Số phần tử mỗi trang
-     * @param startDate Thời gian bắt đầu tính doanh thu (nếu null, sẽ lấy 1 năm trước)
-     * @param endDate   Thời gian kết thúc tính doanh thu (nếu null, sẽ lấy thời điểm hiện tại)
+     * @param startDate Thời gian bắt đầu tính doanh thu (cả hai null: số liệu tích lũy từ trước đến nay trong
+     *                  occa_analytics, không còn giới hạn 1 năm gần nhất như trước)
+     * @param endDate   Thời gian kết thúc tính doanh thu (nếu chỉ một đầu null: 1 năm trước / thời điểm hiện tại)
      * @param sortField Trường sắp xếp (reach, revenue, fillRate)
      * @param sortOrder Hướng sắp xếp (asc, desc)
      * @return OccaAnalyticsResponse Danh sách phân tích sự kiện đã phân trang
@@ -861,6 +857,11 @@ public class OrganizerServices {
                                                  String sortField, String sortOrder) {
         log.info("Fetching occa analytics for user: {}, page: {}, size: {}, dateRange: {} to {}, sort: {} {}", 
                 userId, page, size, startDate, endDate, sortField, sortOrder);
+        
+        // Không chọn khoảng thời gian: sắp xếp và phân trang thẳng trên bảng tích lũy đã đánh index
+        if (startDate == null && endDate == null) {
+            return getMaterializedOccaAnalytics(userId, page, size, sortField, sortOrder);
+        }
           // Sử dụng giá trị mặc định nếu không được cung cấp
         if (startDate == null) {
             startDate = LocalDateTime.now().minusYears(1);
@@ -876,17 +877,8 @@ public class OrganizerServices {
                 .map(Occa::getId)
                 .collect(Collectors.toList());
                 
-        // Lấy dữ liệu tracking stats cho tất cả ID trong khoảng thời gian được chỉ định
-        List<OccaTrackingStats> filteredTrackingStats = occaTrackingStatsRepository.findByOccaIdInAndLastUpdatedBetween(
-                allOccaIds, startDate, endDate);
-                
-        // Chuyển thành map để dễ dàng truy xuất
-        Map<UUID, OccaTrackingStats> trackingStatsMap = filteredTrackingStats.stream()
-                .collect(Collectors.toMap(
-                    OccaTrackingStats::getOccaId,
-                    stats -> stats,
-                    (existing, replacement) -> existing
-                ));
+        // Lượt xem của từng sự kiện trong khoảng thời gian được chỉ định
+        Map<UUID, Integer> reachByOcca = sumViewsByOcca(allOccaIds, startDate, endDate);
         
         // Gọi gRPC để lấy thông tin về doanh thu và tỷ lệ lấp đầy trong khoảng thời gian
         Map<String, OccaTicketStats> ticketStatsMap = ticketStatsGrpcClient.getTicketStatsByOccaIds(allOccaIds, startDate, endDate);
@@ -894,13 +886,12 @@ public class OrganizerServices {
         // Tạo danh sách đầy đủ (chưa phân trang) để có thể sắp xếp
         List<OccaAnalyticsItem> allAnalyticsItems = userOccas.stream()
                 .map(occa -> {                    String occaIdStr = occa.getId().toString();
-                    OccaTrackingStats trackingStats = trackingStatsMap.get(occa.getId());
                     OccaTicketStats ticketStats = ticketStatsMap.get(occaIdStr);
                     
                     return OccaAnalyticsItem.builder()
                             .id(occaIdStr)
                             .title(occa.getTitle())
-                            .reach(trackingStats != null ? trackingStats.getTotalCount() : 0)
+                            .reach(reachByOcca.getOrDefault(occa.getId(), 0))
                             .revenue(ticketStats != null ? ticketStats.getRevenue() : 0)
                             .fillRate(ticketStats != null ? ticketStats.getFillRate() : 0)
                             .build();
@@ -961,4 +952,96 @@ public class OrganizerServices {
                 .totalPages(totalPages)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Tổng lượt xem theo sự kiện trong khoảng [from, to] từ occa_view_buckets
+     */
+    private Map<UUID, Integer> sumViewsByOcca(List<UUID> occaIds, LocalDateTime from, LocalDateTime to) {
+        Map<UUID, Integer> result = new HashMap<>();
+        if (occaIds.isEmpty()) {
+            return result;
+        }
+        for (Object[] row : occaViewBucketRepository.sumViewsByOcca(occaIds, from, from.toLocalDate().atStartOfDay(), to)) {
+            result.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        return result;
+    }
+
+    /**
+     * Gộp sketch khách truy cập của các sự kiện theo các ngày giao với [from, to] (sketch theo ngày nên biên là cả ngày).
+     * Sketch được đọc lần lượt từ cursor và gộp dần, bộ nhớ chỉ phụ thuộc vào số nhóm chứ không vào số dòng.
+     *
+     * @param trackedOccas các sự kiện cần ước lượng riêng (thường là top sự kiện), tránh giữ một sketch cho mọi sự kiện
+     */
+    private VisitorSketches mergeVisitorSketches(List<UUID> occaIds, LocalDateTime from, LocalDateTime to,
+                                                 Set<UUID> trackedOccas) {
+        VisitorSketches visitors = new VisitorSketches();
+        if (occaIds.isEmpty()) {
+            return visitors;
+        }
+        try (Stream<Object[]> rows = occaVisitorSketchRepository.streamSketches(occaIds, from.toLocalDate(), to.toLocalDate())) {
+            rows.forEach(row -> {
+                HyperLogLog sketch = HyperLogLog.fromBytes((byte[]) row[3]);
+                visitors.total.merge(sketch);
+                if (trackedOccas.contains((UUID) row[0])) {
+                    visitors.byOcca.computeIfAbsent((UUID) row[0], key -> new HyperLogLog()).merge(sketch);
+                }
+                visitors.byDay.computeIfAbsent((LocalDate) row[1], key -> new HyperLogLog()).merge(sketch);
+                visitors.bySource.computeIfAbsent((String) row[2], key -> new HyperLogLog()).merge(sketch);
+            });
+        }
+        return visitors;
+    }
+
+    /**
+     * Sketch khách duy nhất đã gộp theo tổng, sự kiện, ngày và nguồn
+     */
+    private static final class VisitorSketches {
+        private final HyperLogLog total = new HyperLogLog();
+        private final Map<UUID, HyperLogLog> byOcca = new HashMap<>();
+        private final Map<LocalDate, HyperLogLog> byDay = new HashMap<>();
+        private final Map<String, HyperLogLog> bySource = new HashMap<>();
+
+        private <K> int estimate(Map<K, HyperLogLog> sketches, K key) {
+            HyperLogLog sketch = sketches.get(key);
+            return sketch != null ? (int) sketch.estimate() : 0;
+        }
+    }
+
+    /**
+     * Một trang phân tích sự kiện đọc từ occa_analytics bằng ORDER BY ... LIMIT trên index (creator_id, trường sắp xếp)
+     */
+    private OccaAnalyticsResponse getMaterializedOccaAnalytics(UUID userId, int page, int size,
+                                                              String sortField, String sortOrder) {
+        String property = "revenue".equalsIgnoreCase(sortField) ? "revenue"
+                : "fillRate".equalsIgnoreCase(sortField) ? "fillRate"
+                : "reach";
+        Direction direction = "asc".equalsIgnoreCase(sortOrder) ? Direction.ASC : Direction.DESC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, property).and(Sort.by(direction, "occaId")));
+        
+        Page<OccaAnalytics> rows = occaAnalyticsRepository.findByCreatorId(userId, pageable);
+        
+        // Chỉ lấy tiêu đề cho các occa trong trang
+        Map<UUID, String> titles = occaRepository.findAllById(
+                rows.getContent().stream().map(OccaAnalytics::getOccaId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Occa::getId, Occa::getTitle));
+        
+        List<OccaAnalyticsItem> items = rows.getContent().stream()
+                .map(row -> OccaAnalyticsItem.builder()
+                        .id(row.getOccaId().toString())
+                        .title(titles.getOrDefault(row.getOccaId(), "Unknown Event"))
+                        .reach((int) row.getReach())
+                        .revenue((long) row.getRevenue())
+                        .fillRate(row.getFillRate())
+                        .build())
+                .collect(Collectors.toList());
+        
+        return OccaAnalyticsResponse.builder()
+                .data(items)
+                .total((int) rows.getTotalElements())
+                .page(page + 1) // Trả về số trang bắt đầu từ 1 thay vì 0
+                .pageSize(size)
+                .totalPages(rows.getTotalPages())
+                .build();
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,6 +20,7 @@ import com.ticket.servermono.ticketcontext.adapters.dtos.BookingLockResponse;
 import com.ticket.servermono.ticketcontext.entities.Invoice;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
 import com.ticket.servermono.ticketcontext.usecases.TicketServices;
+import com.ticket.servermono.ticketcontext.usecases.WaitingRoomService;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -32,15 +34,18 @@ public class BookingLockController {
     
     private final TicketServices ticketServices;
     private final InvoiceRepository invoiceRepository;
+    private final WaitingRoomService waitingRoomService;
     
     /**
      * Khóa vé để đặt, ngăn chặn tình trạng đặt trùng
      * Endpoint: POST /booking/lock
      * Chỉ lock vé, không bắt đầu theo dõi thanh toán
+     * Khi bật phòng chờ, cần header X-Queue-Pass lấy từ /booking/queue/{showId}
      */
     @PostMapping("/booking/lock")
     public ResponseEntity<?> lockTicketsForBooking(
             @RequestBody BookingLockRequest request,
+            @RequestHeader(value = "X-Queue-Pass", required = false) String queuePass,
             HttpServletRequest servletRequest,
             @Nullable Principal principal) {
         try {
@@ -53,8 +58,27 @@ public class BookingLockController {
             log.info("Dang khoa ve de dat: showId={}, so luong ve={}, userId={}", 
                     request.getShowId(), request.getTickets().size(), userId);
             
+            boolean passClaimed = waitingRoomService.isEnabled();
+            if (passClaimed && !waitingRoomService.claimPass(request.getShowId(), queuePass, userId)) {
+                return ResponseEntity
+                        .status(HttpStatus.TOO_MANY_REQUESTS)
+                        .body(createErrorResponse(HttpStatus.TOO_MANY_REQUESTS,
+                                "Vui long xep hang truoc khi dat ve", servletRequest.getRequestURI()));
+            }
+
             // Chỉ khóa vé và lấy thông tin thanh toán, không bắt đầu theo dõi
-            BookingLockResponse response = ticketServices.lockTicketsForBooking(request);
+            long lockStart = System.currentTimeMillis();
+            BookingLockResponse response;
+            try {
+                response = ticketServices.lockTicketsForBooking(request);
+            } catch (RuntimeException e) {
+                // Khóa vé thất bại: trả lại pass để người dùng thử lại mà không phải xếp hàng lại
+                if (passClaimed) {
+                    waitingRoomService.releasePass(queuePass);
+                }
+                throw e;
+            }
+            waitingRoomService.recordLockLatency(System.currentTimeMillis() - lockStart);
             
             log.info("Da khoa ve thanh cong, paymentId: {}", response.getPaymentId());
             
@@ -0,0 +1,92 @@
+package com.ticket.servermono.ticketcontext.adapters.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ticket.servermono.ticketcontext.adapters.dtos.SepayWebhookRequest;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.SepayTransaction;
+import com.ticket.servermono.ticketcontext.usecases.PaymentService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nhận thông báo giao dịch từ Sepay để xác nhận thanh toán ngay, không chờ vòng đối soát
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/v1/payment")
+public class SepayWebhookController {
+
+    // Mã tham chiếu do lockTicketsForBooking sinh ra, dùng khi Sepay không tách được code
+    private static final Pattern REFERENCE_CODE_PATTERN = Pattern.compile("TK\\d{6}");
+
+    private final PaymentService paymentService;
+
+    @Value("${app.sepay.webhook-api-key:}")
+    private String webhookApiKey;
+
+    /**
+     * Endpoint: POST /payment/sepay-webhook
+     * Sepay gửi header "Authorization: Apikey {key}"
+     */
+    @PostMapping("/sepay-webhook")
+    public ResponseEntity<Map<String, Object>> receiveTransaction(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody SepayWebhookRequest request) {
+
+        if (!isAuthorized(authorization)) {
+            log.warn("Tu choi webhook Sepay khong hop le, id={}", request.getId());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("success", false));
+        }
+
+        // Chỉ quan tâm giao dịch tiền vào
+        if (!"in".equalsIgnoreCase(request.getTransferType()) || request.getTransferAmount() == null) {
+            return ResponseEntity.ok(Map.of("success", true));
+        }
+
+        SepayTransaction transaction = SepayTransaction.builder()
+                .id(request.getId() != null ? request.getId() : 0)
+                .code(resolveCode(request))
+                .amountIn(request.getTransferAmount())
+                .transactionDate(request.getTransactionDate())
+                .build();
+
+        boolean matched = paymentService.handleIncomingTransaction(transaction);
+        return ResponseEntity.ok(Map.of("success", true, "matched", matched));
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (webhookApiKey == null || webhookApiKey.isBlank() || authorization == null) {
+            return false;
+        }
+        byte[] expected = ("Apikey " + webhookApiKey).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, authorization.trim().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String resolveCode(SepayWebhookRequest request) {
+        if (request.getCode() != null && !request.getCode().isBlank()) {
+            return request.getCode();
+        }
+        if (request.getContent() != null) {
+            Matcher matcher = REFERENCE_CODE_PATTERN.matcher(request.getContent());
+            if (matcher.find()) {
+                return matcher.group();
+            }
+        }
+        return null;
+    }
+}
@@ -1,10 +1,13 @@
 package com.ticket.servermono.ticketcontext.adapters.controllers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.Principal;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,13 +15,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.ticket.servermono.ticketcontext.adapters.dtos.PaginatedTicketsResponse;
 import com.ticket.servermono.ticketcontext.adapters.dtos.PaginatedTicketsWithRevenueResponse;
 import com.ticket.servermono.ticketcontext.adapters.dtos.TicketWithRecipientInfoResponse;
 import com.ticket.servermono.ticketcontext.adapters.dtos.TicketsWithRevenueResponse;
+import com.ticket.servermono.ticketcontext.usecases.ShowRosterStreamService;
 import com.ticket.servermono.ticketcontext.usecases.TicketServices;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +37,8 @@ import lombok.extern.slf4j.Slf4j;
 public class ShowTicketsController {
     
     private final TicketServices ticketServices;
+    private final ShowRosterStreamService showRosterStreamService;
+    private final ObjectMapper objectMapper;
     
     /**
      * Lấy danh sách vé kèm thông tin người nhận theo invoice của một show.
@@ -122,4 +131,57 @@ public class ShowTicketsController {
             return ResponseEntity.internalServerError().body("An error occurred: " + e.getMessage());
         }
     }
+
+    /**
+     * Xuất toàn bộ danh sách vé của show dạng NDJSON (mỗi dòng một vé), gửi theo từng chunk
+     * đọc thẳng từ cursor DB thay vì phân trang. Ghi ra socket bị chặn khi client đọc chậm,
+     * nên bộ nhớ server chỉ giữ một chunk.
+     * 
+     * @param showId ID của show
+     * @param principal Thông tin người dùng đăng nhập (phải là người tạo show)
+     * @param chunkSize Số dòng mỗi chunk (mặc định theo cấu hình server)
+     */
+    @GetMapping(value = "/{showId}/tickets/export", produces = "application/x-ndjson")
+    public ResponseEntity<?> exportShowTickets(
+            @PathVariable String showId,
+            @Nullable Principal principal,
+            @RequestParam(defaultValue = "0") int chunkSize) {
+
+        if (principal == null) {
+            log.error("No authenticated user found");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
+        }
+
+        UUID showUuid;
+        try {
+            showUuid = UUID.fromString(showId);
+            UUID userId = UUID.fromString(principal.getName());
+            if (!ticketServices.checkUserAuthorizationForShow(userId, showUuid)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User is not authorized to access tickets for this show");
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid UUID format: showId={}, error={}", showId, e.getMessage());
+            return ResponseEntity.badRequest().body("Invalid UUID format");
+        } catch (EntityNotFoundException e) {
+            log.warn("Not found: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = outputStream -> showRosterStreamService.streamRoster(showUuid, chunkSize, chunk -> {
+            try {
+                for (TicketWithRecipientInfoResponse row : chunk) {
+                    outputStream.write(objectMapper.writeValueAsBytes(row));
+                    outputStream.write('\n');
+                }
+                outputStream.flush();
+            } catch (IOException e) {
+                // Client ngắt kết nối: dừng đọc cursor
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
 }
@@ -5,6 +5,7 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
@@ -14,8 +15,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ticket.servermono.common.grpc.GrpcHedging;
+import com.ticket.servermono.common.grpc.GrpcLatencyTracker;
 import com.ticket.servermono.ticketcontext.adapters.dtos.DailyRevenueItem;
 import com.ticket.servermono.ticketcontext.adapters.dtos.RevenueOverviewResponse;
+import com.ticket.servermono.ticketcontext.grpc.SingleFlightRegistry;
+import com.ticket.servermono.ticketcontext.infrastructure.cache.OccaMetadataCache;
 import com.ticket.servermono.ticketcontext.usecases.TicketServices;
 
 import lombok.RequiredArgsConstructor;
@@ -31,6 +36,10 @@ import lombok.extern.slf4j.Slf4j;
 public class TicketAnalyticsController {
     
     private final TicketServices ticketServices;
+    private final OccaMetadataCache occaMetadataCache;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final GrpcLatencyTracker grpcLatencyTracker;
+    private final GrpcHedging grpcHedging;
     
     /**
      * Lấy tổng quan doanh thu của người tổ chức
@@ -134,5 +143,29 @@ public class TicketAnalyticsController {
         }
     }
 
+    /**
+     * Thống kê near-cache metadata show/occa (hit rate, eviction, thời gian nạp)
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        return ResponseEntity.ok(occaMetadataCache.stats());
+    }
+
+    /**
+     * Thống kê gộp lượt gọi gRPC đồng thời (số lượt gọi, số lượt được gộp, tỉ lệ gộp)
+     */
+    @GetMapping("/coalescing-stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCoalescingStats() {
+        return ResponseEntity.ok(singleFlightRegistry.stats());
+    }
 
+    /**
+     * Độ trễ gRPC phía client theo method (histogram, p50/p95/p99) và thống kê hedging
+     */
+    @GetMapping("/grpc-latency")
+    public ResponseEntity<Map<String, Object>> getGrpcLatency() {
+        return ResponseEntity.ok(Map.of(
+                "methods", grpcLatencyTracker.stats(),
+                "hedging", grpcHedging.stats()));
+    }
 }
@@ -0,0 +1,61 @@
+package com.ticket.servermono.ticketcontext.adapters.controllers;
+
+import java.security.Principal;
+import java.util.UUID;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ticket.servermono.ticketcontext.adapters.dtos.QueueStatusResponse;
+import com.ticket.servermono.ticketcontext.usecases.WaitingRoomService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/v1/booking/queue")
+public class WaitingRoomController {
+
+    private final WaitingRoomService waitingRoomService;
+
+    /**
+     * Vào phòng chờ của một show
+     * Endpoint: POST /booking/queue/{showId}
+     * Sau đó theo dõi vị trí qua WebSocket /api/queue-ws/{showId}/{queueToken}
+     */
+    @PostMapping("/{showId}")
+    public ResponseEntity<?> joinQueue(@PathVariable String showId, @Nullable Principal principal) {
+        if (principal == null || principal.getName() == null) {
+            return ResponseEntity.status(401).body("Authentication required for booking");
+        }
+
+        try {
+            QueueStatusResponse response = waitingRoomService.join(showId, UUID.fromString(principal.getName()));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.error("Show ID khong hop le: {}", showId);
+            return ResponseEntity.badRequest().body("Invalid show ID");
+        }
+    }
+
+    /**
+     * Lấy vị trí hiện tại trong hàng (dành cho client không dùng WebSocket)
+     * Endpoint: GET /booking/queue/{showId}/{queueToken}
+     */
+    @GetMapping("/{showId}/{queueToken}")
+    public ResponseEntity<QueueStatusResponse> getQueueStatus(
+            @PathVariable String showId,
+            @PathVariable String queueToken) {
+        return waitingRoomService.getStatus(queueToken)
+                .filter(status -> status.getShowId().equals(showId))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
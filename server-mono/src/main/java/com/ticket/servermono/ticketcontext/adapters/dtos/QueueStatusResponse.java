@@ -0,0 +1,28 @@
+package com.ticket.servermono.ticketcontext.adapters.dtos;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trạng thái một lượt xếp hàng trong phòng chờ
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueStatusResponse {
+    private String showId;
+    private String queueToken;
+    private String status;
+    // Vị trí trong hàng, 0 khi đã được cho vào
+    private long position;
+    // Pass dùng cho header X-Queue-Pass của /v1/booking/lock
+    private String passToken;
+    private LocalDateTime passExpiresAt;
+    // Tốc độ cho vào hiện tại, để client ước lượng thời gian chờ
+    private double admitRatePerSecond;
+}
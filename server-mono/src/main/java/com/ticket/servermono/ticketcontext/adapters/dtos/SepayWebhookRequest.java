@@ -0,0 +1,27 @@
+package com.ticket.servermono.ticketcontext.adapters.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload Sepay gửi tới webhook khi tài khoản có giao dịch
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SepayWebhookRequest {
+    private Long id;
+    private String gateway;
+    private String transactionDate;
+    private String accountNumber;
+    // Mã thanh toán Sepay nhận diện từ nội dung chuyển khoản, có thể null
+    private String code;
+    private String content;
+    // "in" (tiền vào) hoặc "out" (tiền ra)
+    private String transferType;
+    private Double transferAmount;
+    private String referenceCode;
+}
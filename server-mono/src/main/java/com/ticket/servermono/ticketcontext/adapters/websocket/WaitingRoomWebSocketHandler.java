@@ -0,0 +1,149 @@
+package com.ticket.servermono.ticketcontext.adapters.websocket;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.ticketcontext.adapters.dtos.QueueStatusResponse;
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+import com.ticket.servermono.ticketcontext.infrastructure.events.WaitingRoomAdvancedEvent;
+import com.ticket.servermono.ticketcontext.usecases.WaitingRoomService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * WebSocket handler đẩy vị trí trong phòng chờ cho client, thay cho việc client tự poll
+ * Đường dẫn: /api/queue-ws/{showId}/{queueToken}
+ */
+@Slf4j
+@Component
+public class WaitingRoomWebSocketHandler extends TextWebSocketHandler {
+
+    private static final int SEND_TIME_LIMIT_MS = 5000;
+    private static final int BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    // showId -> (queueToken -> session và sequence của lượt xếp hàng)
+    private final Map<String, Map<String, QueueSession>> sessionsByShow = new ConcurrentHashMap<>();
+    private final WaitingRoomService waitingRoomService;
+    private final ObjectMapper objectMapper;
+
+    public WaitingRoomWebSocketHandler(WaitingRoomService waitingRoomService, ObjectMapper objectMapper) {
+        this.waitingRoomService = waitingRoomService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String[] ids = extractIdsFromPath(session.getUri().getPath());
+        if (ids == null) {
+            session.close(CloseStatus.BAD_DATA.withReason("Invalid queue path"));
+            return;
+        }
+
+        Optional<WaitingRoomEntry> entry = waitingRoomService.findEntry(ids[1])
+                .filter(e -> e.getShowId().toString().equals(ids[0]));
+        if (entry.isEmpty()) {
+            session.close(CloseStatus.BAD_DATA.withReason("Queue token not found"));
+            return;
+        }
+
+        // Nhiều luồng có thể gửi cùng lúc (event + kết nối mới) nên bọc session lại
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, BUFFER_SIZE_LIMIT);
+        sessionsByShow.computeIfAbsent(ids[0], id -> new ConcurrentHashMap<>())
+                .put(ids[1], new QueueSession(concurrentSession, entry.get().getSequence()));
+        log.info("WebSocket connection established for queue token: {}", ids[1]);
+
+        send(concurrentSession, waitingRoomService.toResponse(entry.get()));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        String[] ids = extractIdsFromPath(session.getUri().getPath());
+        if (ids == null) {
+            return;
+        }
+
+        Map<String, QueueSession> sessions = sessionsByShow.get(ids[0]);
+        if (sessions != null) {
+            sessions.remove(ids[1]);
+            if (sessions.isEmpty()) {
+                sessionsByShow.remove(ids[0], sessions);
+            }
+        }
+    }
+
+    /**
+     * Sau mỗi lượt cho vào, gửi vị trí mới cho mọi client đang chờ show đó.
+     * Vị trí của cả show được tính từ một ảnh chụp hàng chờ (một lượt đọc), không truy vấn riêng từng session.
+     */
+    @EventListener
+    public void handleWaitingRoomAdvanced(WaitingRoomAdvancedEvent event) {
+        Map<String, QueueSession> sessions = sessionsByShow.get(event.getShowId().toString());
+        if (sessions == null) {
+            return;
+        }
+
+        Map<String, Long> sequenceByToken = new HashMap<>();
+        sessions.forEach((queueToken, queueSession) -> {
+            if (queueSession.session().isOpen()) {
+                sequenceByToken.put(queueToken, queueSession.sequence());
+            } else {
+                sessions.remove(queueToken);
+            }
+        });
+
+        waitingRoomService.getStatuses(event.getShowId(), sequenceByToken).forEach((queueToken, status) -> {
+            QueueSession queueSession = sessions.get(queueToken);
+            if (queueSession == null) {
+                return;
+            }
+            send(queueSession.session(), status);
+            // Đã có pass thì không cần theo dõi vị trí nữa
+            if (status.getPassToken() != null) {
+                sessions.remove(queueToken);
+            }
+        });
+    }
+
+    private void send(WebSocketSession session, QueueStatusResponse status) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(status)));
+        } catch (IOException e) {
+            log.error("Lỗi gửi vị trí phòng chờ qua WebSocket: {}", e.getMessage());
+        }
+    }
+
+    private record QueueSession(WebSocketSession session, long sequence) {
+    }
+
+    /**
+     * Extracts {showId, queueToken} from the path /api/queue-ws/{showId}/{queueToken}
+     */
+    private String[] extractIdsFromPath(String path) {
+        if (path == null) return null;
+
+        String[] parts = path.split("/");
+        if (parts.length < 3) return null;
+
+        String showId = parts[parts.length - 2];
+        try {
+            UUID.fromString(showId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new String[] { showId, parts[parts.length - 1] };
+    }
+}
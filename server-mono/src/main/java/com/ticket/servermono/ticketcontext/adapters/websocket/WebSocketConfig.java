@@ -13,9 +13,13 @@ import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry
 public class WebSocketConfig implements WebSocketConfigurer {
 
     private final PaymentStatusWebSocketHandler paymentStatusWebSocketHandler;
+    private final WaitingRoomWebSocketHandler waitingRoomWebSocketHandler;
 
-    public WebSocketConfig(PaymentStatusWebSocketHandler paymentStatusWebSocketHandler) {
+    public WebSocketConfig(
+            PaymentStatusWebSocketHandler paymentStatusWebSocketHandler,
+            WaitingRoomWebSocketHandler waitingRoomWebSocketHandler) {
         this.paymentStatusWebSocketHandler = paymentStatusWebSocketHandler;
+        this.waitingRoomWebSocketHandler = waitingRoomWebSocketHandler;
     }
 
     @Override
@@ -23,5 +27,7 @@ public class WebSocketConfig implements WebSocketConfigurer {
         // Đăng ký handler với đường dẫn
         registry.addHandler(paymentStatusWebSocketHandler, "/api/payment-ws/{paymentId}")
                 .setAllowedOrigins("*"); // Trong môi trường production nên giới hạn nguồn gốc
+        registry.addHandler(waitingRoomWebSocketHandler, "/api/queue-ws/{showId}/{queueToken}")
+                .setAllowedOrigins("*");
     }
 }
@@ -0,0 +1,10 @@
+package com.ticket.servermono.ticketcontext.domain.enums;
+
+/**
+ * Cách giữ chỗ (lock) vé trong lockTicketsForBooking
+ */
+public enum ReservationMode {
+    PESSIMISTIC,           // SELECT ... FOR UPDATE rồi cập nhật lockedCapacity
+    CONDITIONAL_UPDATE,    // Một câu UPDATE có điều kiện cho mỗi hạng vé, không đọc-sửa-ghi
+    SHARDED                // Hạng vé lớn được chia thành nhiều bucket, giữ chỗ theo hash người mua
+}
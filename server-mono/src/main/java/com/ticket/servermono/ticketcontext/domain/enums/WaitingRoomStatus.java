@@ -0,0 +1,10 @@
+package com.ticket.servermono.ticketcontext.domain.enums;
+
+/**
+ * Trạng thái của một lượt xếp hàng trong phòng chờ
+ */
+public enum WaitingRoomStatus {
+    WAITING,    // Đang xếp hàng
+    ADMITTED,   // Đã được cho vào, có pass để khóa vé
+    USED        // Pass đã được dùng để khóa vé
+}
@@ -24,7 +24,12 @@ import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
  * Stores invoice/booking information (completely separate from PaymentInfo)
  */
 @Entity
-@Table(name = "invoices")
+@Table(name = "invoices",
+    indexes = {
+            // Thống kê doanh thu lọc theo trạng thái, tập show và khoảng thời gian; so_tien ở cuối để index phủ được SUM
+            @Index(name = "idx_invoices_status_show_created", columnList = "status, show_id, created_at, so_tien")
+    }
+)
 @Data
 @SuperBuilder
 @NoArgsConstructor
@@ -69,6 +74,15 @@ public class Invoice extends BaseSQLEntity {
     @JdbcTypeCode(SqlTypes.JSON)
     private Map<String, Integer> ticketDetails = new HashMap<>();
     
+    /**
+     * Vé được giữ từ bucket nào (sharded inventory), để trả về đúng bucket khi hết hạn
+     * Key: "ticketClassId:bucketIndex"
+     * Value: Số lượng vé lấy từ bucket đó
+     */
+    @Column(name = "bucket_allocations", columnDefinition = "json")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Integer> bucketAllocations;
+    
     /**
      * Danh sách các vé thuộc hóa đơn này
      */
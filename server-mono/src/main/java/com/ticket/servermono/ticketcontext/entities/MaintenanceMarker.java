@@ -0,0 +1,29 @@
+package com.ticket.servermono.ticketcontext.entities;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Đánh dấu một job bảo trì dữ liệu chạy một lần (ví dụ backfill cột mới) đã được thực hiện,
+ * để các lần khởi động sau và các instance khác không chạy lại
+ */
+@Entity
+@Table(name = "maintenance_markers")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaintenanceMarker {
+
+    @Id
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,61 @@
+package com.ticket.servermono.ticketcontext.entities;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Doanh thu đã tổng hợp theo show và ngày (ngày tạo hóa đơn), cộng dồn mỗi khi có hóa đơn thanh toán thành công.
+ * Chỉ được ghi qua upsert trong RevenueDailyRepository; các API thống kê đọc bảng này thay vì quét invoices.
+ */
+@Entity
+@Table(name = "revenue_daily",
+    indexes = {
+            @Index(name = "idx_revenue_daily_day", columnList = "day")
+    }
+)
+@IdClass(RevenueDaily.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueDaily {
+
+    @Id
+    @Column(name = "show_id", nullable = false)
+    private UUID showId;
+
+    @Id
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "amount", nullable = false)
+    private Double amount;
+
+    /**
+     * Số hóa đơn đã thanh toán
+     */
+    @Column(name = "orders", nullable = false)
+    private Long orders;
+
+    @Column(name = "tickets", nullable = false)
+    private Long tickets;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID showId;
+        private LocalDate day;
+    }
+}
@@ -0,0 +1,42 @@
+package com.ticket.servermono.ticketcontext.entities;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Đánh dấu hóa đơn đã được cộng vào revenue_daily, để event lặp lại hoặc job đối soát không cộng hai lần
+ */
+@Entity
+@Table(name = "revenue_daily_invoices")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevenueDailyInvoice {
+
+    @Id
+    @Column(name = "invoice_id", nullable = false)
+    private UUID invoiceId;
+
+    @Column(name = "show_id", nullable = false)
+    private UUID showId;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "amount", nullable = false)
+    private Double amount;
+
+    @Column(name = "tickets", nullable = false)
+    private Integer tickets;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
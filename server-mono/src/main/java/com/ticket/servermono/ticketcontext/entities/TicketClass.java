@@ -33,6 +33,23 @@ public class TicketClass extends BaseSQLEntity {
     @Builder.Default
     private Integer lockedCapacity = 0;
 
+    /**
+     * Số vé đã bán (denormalized từ bảng tickets).
+     * Chỉ được cập nhật bằng câu lệnh UPDATE nguyên tử trong TicketClassRepository,
+     * không ghi đè khi save entity để tránh mất cập nhật đồng thời.
+     */
+    @Column(name = "sold_count", nullable = false, updatable = false)
+    @Builder.Default
+    private Integer soldCount = 0;
+
+    /**
+     * Số bucket mà phần vé còn trống được chia vào (0 = không chia).
+     * Khi > 0, vé trống nằm trong ticket_class_buckets và đã được tính vào lockedCapacity.
+     */
+    @Column(name = "shard_count", nullable = false)
+    @Builder.Default
+    private Integer shardCount = 0;
+
     @Column(name = "show_id", nullable = false)
     private UUID showId;
 
@@ -0,0 +1,43 @@
+package com.ticket.servermono.ticketcontext.entities;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Một phần (bucket) của số vé còn trống của một hạng vé đã được chia nhỏ (sharded inventory).
+ * Các lượt giữ chỗ chỉ cập nhật một bucket thay vì cùng một dòng ticket_classes.
+ */
+@Entity
+@Table(name = "ticket_class_buckets",
+    uniqueConstraints = {
+            @UniqueConstraint(name = "uk_bucket_ticket_class_index", columnNames = {"ticket_class_id", "bucket_index"})
+    },
+    indexes = {
+            @Index(name = "idx_bucket_ticket_class_id", columnList = "ticket_class_id")
+    }
+)
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class TicketClassBucket extends BaseSQLEntity {
+
+    @Column(name = "ticket_class_id", nullable = false)
+    private UUID ticketClassId;
+
+    @Column(name = "bucket_index", nullable = false)
+    private Integer bucketIndex;
+
+    /**
+     * Số vé còn trống trong bucket này
+     */
+    @Column(name = "available", nullable = false)
+    private Integer available;
+}
@@ -0,0 +1,30 @@
+package com.ticket.servermono.ticketcontext.entities;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Giây gần nhất đã có node cho vào phòng chờ của một show.
+ * Khi chạy nhiều node, mỗi giây chỉ node giành được dòng này mới được cho vào,
+ * nên tốc độ tổng không nhân lên theo số node.
+ */
+@Entity
+@Table(name = "waiting_room_admission_ticks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitingRoomAdmissionTick {
+
+    @Id
+    @Column(name = "show_id", nullable = false)
+    private UUID showId;
+
+    @Column(name = "last_tick", nullable = false)
+    private Long lastTick;
+}
@@ -0,0 +1,58 @@
+package com.ticket.servermono.ticketcontext.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import com.ticket.servermono.ticketcontext.domain.enums.WaitingRoomStatus;
+
+/**
+ * Một lượt xếp hàng trong phòng chờ của một show.
+ * Chỉ được lưu vào DB khi bật app.waiting-room.store=db (triển khai nhiều node).
+ */
+@Entity
+@Table(name = "waiting_room_entries",
+    indexes = {
+            @Index(name = "idx_waiting_room_show_status_seq", columnList = "show_id, status, sequence"),
+            @Index(name = "idx_waiting_room_queue_token", columnList = "queue_token", unique = true),
+            @Index(name = "idx_waiting_room_pass_token", columnList = "pass_token")
+    }
+)
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class WaitingRoomEntry extends BaseSQLEntity {
+
+    @Column(name = "show_id", nullable = false)
+    private UUID showId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "queue_token", nullable = false)
+    private String queueToken;
+
+    /**
+     * Thứ tự vào hàng (tăng dần), dùng để tính vị trí
+     */
+    @Column(name = "sequence", nullable = false)
+    private Long sequence;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private WaitingRoomStatus status;
+
+    @Column(name = "pass_token")
+    private String passToken;
+
+    @Column(name = "pass_expires_at")
+    private LocalDateTime passExpiresAt;
+}
@@ -0,0 +1,83 @@
+package com.ticket.servermono.ticketcontext.grpc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Chia một tập key lớn thành các batch và gọi async song song,
+ * giới hạn số lượt gọi đồng thời và tổng thời gian chờ của cả request.
+ */
+public final class BoundedFanOut {
+
+    private BoundedFanOut() {
+    }
+
+    /**
+     * @param keys các key cần lấy
+     * @param batchSize số key tối đa mỗi lượt gọi
+     * @param maxConcurrency số lượt gọi đang chạy tối đa
+     * @param timeoutMs thời gian chờ tối đa cho toàn bộ các batch
+     * @param batchCall gọi async cho một batch, trả về map key -> value (key không tồn tại thì bỏ qua)
+     * @return kết quả gộp của mọi batch
+     */
+    public static <K, V> Map<K, V> fetch(Collection<? extends K> keys, int batchSize, int maxConcurrency, long timeoutMs,
+                                         Function<List<K>, ListenableFuture<Map<K, V>>> batchCall)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<ListenableFuture<Map<K, V>>> futures = new ArrayList<>();
+
+        try {
+            List<K> batch = new ArrayList<>(batchSize);
+            for (K key : keys) {
+                batch.add(key);
+                if (batch.size() == batchSize) {
+                    futures.add(submit(batch, permits, deadline, batchCall));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                futures.add(submit(batch, permits, deadline, batchCall));
+            }
+
+            List<Map<K, V>> results = Futures.allAsList(futures)
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+
+            Map<K, V> merged = new HashMap<>();
+            results.forEach(merged::putAll);
+            return merged;
+        } catch (InterruptedException | ExecutionException | TimeoutException | RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    private static <K, V> ListenableFuture<Map<K, V>> submit(List<K> batch, Semaphore permits, long deadline,
+                                                            Function<List<K>, ListenableFuture<Map<K, V>>> batchCall)
+            throws InterruptedException, TimeoutException {
+        if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            throw new TimeoutException("Timed out waiting for a free slot to send batch of " + batch.size());
+        }
+        ListenableFuture<Map<K, V>> future;
+        try {
+            future = batchCall.apply(batch);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        future.addListener(permits::release, MoreExecutors.directExecutor());
+        return future;
+    }
+}
@@ -2,7 +2,6 @@ package com.ticket.servermono.ticketcontext.grpc;
 
 import org.springframework.stereotype.Service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
 import occa.CreatorRequestByUserId;
@@ -15,19 +14,24 @@ import java.util.stream.Collectors;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class OccaCreatorGrpcClient {
     
     @GrpcClient("occa-service")
     private OccaCreatorServiceGrpc.OccaCreatorServiceBlockingStub creatorServiceStub;
 
+    private final SingleFlight<String, ShowsResponseByUserId> showIdsFlight;
+
+    public OccaCreatorGrpcClient(SingleFlightRegistry singleFlights) {
+        this.showIdsFlight = singleFlights.create("occa.getShowIdsByCreatorId");
+    }
+
     public List<UUID> getShowIdsByCreatorId(String userId) {
         try {
             CreatorRequestByUserId request = CreatorRequestByUserId.newBuilder()
                 .setUserId(userId)  // This should match the field name in the proto
                 .build();
 
-            ShowsResponseByUserId response = creatorServiceStub.getShowsByCreator(request);
+            ShowsResponseByUserId response = showIdsFlight.execute(userId, () -> creatorServiceStub.getShowsByCreator(request));
             //message ShowDataResponseByUserId {
             // string id = 1;
             // string time = 2;
@@ -1,110 +1,254 @@
 package com.ticket.servermono.ticketcontext.grpc;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import lombok.RequiredArgsConstructor;
+import com.ticket.servermono.common.grpc.GrpcHedging;
+import com.ticket.servermono.ticketcontext.infrastructure.cache.OccaMetadataCache;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Status;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
-import occa.OccaDataResponse;
-import occa.OccaResquest;
-import occa.OccaServicesGrpc.OccaServicesBlockingStub;
+import occa.OccaData;
+import occa.OccaServicesGrpc.OccaServicesFutureStub;
+import occa.OccasByIdsRequest;
 import occa.ShowDataResponse;
 import occa.ShowRequest;
 import occa.ShowResponse;
+import occa.ShowServicesGrpc;
 import occa.ShowServicesGrpc.ShowServicesBlockingStub;
+import occa.ShowServicesGrpc.ShowServicesFutureStub;
+import occa.ShowWithOccaData;
+import occa.ShowsByIdsRequest;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class OccaGrpcClient {
     
-    @GrpcClient("occa-service")
-    private OccaServicesBlockingStub occaServiceStub;
-    
     @GrpcClient("occa-service")
     private ShowServicesBlockingStub showServiceStub;
 
+    @GrpcClient("occa-service")
+    private OccaServicesFutureStub occaServiceFutureStub;
+
+    @GrpcClient("occa-service")
+    private ShowServicesFutureStub showServiceFutureStub;
+
+    // Lượt tra cứu nhiều show/occa được chia batch và gọi song song, có deadline chung cho cả request
+    @Value("${app.occa-grpc.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.occa-grpc.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${app.occa-grpc.deadline-ms:5000}")
+    private long deadlineMs;
+
+    private final OccaMetadataCache metadataCache;
+    private final GrpcHedging hedging;
+
+    // Gộp các lượt tra cứu đồng thời cùng show/occa thành một lượt gọi remote.
+    // Với nạp theo lô, mỗi show/occa chỉ nằm trong một lượt getShowsByIds/getOccasByIds đang chạy:
+    // các request cùng lúc bỏ lỡ near-cache cho cùng show chờ lượt đó thay vì gọi lại.
+    private final SingleFlight<UUID, Boolean> showExistFlight;
+    private final SingleFlight<UUID, ShowWithOccaData> showsFlight;
+    private final SingleFlight<UUID, OccaData> occasFlight;
+
+    public OccaGrpcClient(OccaMetadataCache metadataCache, SingleFlightRegistry singleFlights, GrpcHedging hedging) {
+        this.metadataCache = metadataCache;
+        this.hedging = hedging;
+        this.showExistFlight = singleFlights.create("occa.isShowExist");
+        this.showsFlight = singleFlights.create("occa.getShowsByIds");
+        this.occasFlight = singleFlights.create("occa.getOccasByIds");
+    }
+
     /**
-     * Get occa data by occa ID
+     * Check if a show exists by ID
      * 
-     * @param request The request containing occa ID
-     * @return Occa data response
+     * @param showId The show ID to check
+     * @return True if show exists, false otherwise
      */
-    public OccaDataResponse getOccaById(OccaResquest request) {
+    public boolean isShowExist(UUID showId) {
         try {
-            return occaServiceStub.getOccaById(request);
+            return showExistFlight.execute(showId, () -> {
+                ShowRequest request = ShowRequest.newBuilder()
+                    .setShowId(showId.toString())
+                    .build();
+                
+                ShowResponse response = hedging.call(ShowServicesGrpc.getIsShowExistMethod().getFullMethodName(),
+                        () -> showServiceStub.isShowExist(request));
+                return response.getIsShowExist();
+            });
         } catch (Exception e) {
-            log.error("Error calling OCCA gRPC service: {}", e.getMessage());
+            log.error("Error checking if show exists: {}", e.getMessage());
             throw e;
         }
     }
     
     /**
-     * Check if a show exists by ID
+     * Get show data together with its occa for many shows.
+     * Cached shows/occas are served locally; the rest are fetched in one batch call.
      * 
-     * @param showId The show ID to check
-     * @return True if show exists, false otherwise
+     * @param showIds The show IDs
+     * @return Map from show ID to show + occa data; shows that do not exist are absent
      */
-    public boolean isShowExist(UUID showId) {
+    public Map<UUID, ShowWithOccaData> getShowsWithOccaByIds(Collection<UUID> showIds) {
+        Map<UUID, ShowWithOccaData> result = new HashMap<>();
+        if (showIds.isEmpty()) {
+            return result;
+        }
         try {
-            ShowRequest request = ShowRequest.newBuilder()
-                .setShowId(showId.toString())
-                .build();
-            
-            ShowResponse response = showServiceStub.isShowExist(request);
-            return response.getIsShowExist();
+            Map<UUID, ShowDataResponse> shows = metadataCache.getShows(new HashSet<>(showIds), this::loadShows);
+
+            Set<UUID> occaIds = new HashSet<>();
+            shows.values().forEach(show -> occaIds.add(UUID.fromString(show.getOccaId())));
+            Map<UUID, OccaData> occas = metadataCache.getOccas(occaIds, this::loadOccas);
+
+            for (Map.Entry<UUID, ShowDataResponse> entry : shows.entrySet()) {
+                ShowDataResponse show = entry.getValue();
+                OccaData occa = occas.get(UUID.fromString(show.getOccaId()));
+                result.put(entry.getKey(), ShowWithOccaData.newBuilder()
+                    .setShowId(entry.getKey().toString())
+                    .setTime(show.getTime())
+                    .setDate(show.getDate())
+                    .setOccaId(show.getOccaId())
+                    .setOccaTitle(occa != null ? occa.getTitle() : "")
+                    .setOccaLocation(occa != null ? occa.getLocation() : "")
+                    .build());
+            }
+            return result;
         } catch (Exception e) {
-            log.error("Error checking if show exists: {}", e.getMessage());
+            log.error("Error getting shows by IDs: {}", e.getMessage());
             throw e;
         }
     }
-    
+
     /**
-     * Get show data by show ID
+     * Get occa data for many occas; cache misses are fetched in one batch call
      * 
-     * @param showId The show ID
-     * @return Show data response
+     * @param occaIds The occa IDs
+     * @return Map from occa ID to occa data; occas that do not exist are absent
      */
-    public ShowDataResponse getShowById(UUID showId) {
+    public Map<UUID, OccaData> getOccasByIds(Collection<UUID> occaIds) {
+        if (occaIds.isEmpty()) {
+            return new HashMap<>();
+        }
         try {
-            ShowRequest request = ShowRequest.newBuilder()
-                .setShowId(showId.toString())
-                .build();
-            
-            return showServiceStub.getShowById(request);
+            return new HashMap<>(metadataCache.getOccas(new HashSet<>(occaIds), this::loadOccas));
         } catch (Exception e) {
-            log.error("Error getting show data by ID: {}", e.getMessage());
+            log.error("Error getting occas by IDs: {}", e.getMessage());
             throw e;
         }
     }
-    
+
     /**
-     * Get occa name by show ID
-     * This method combines getShowById and getOccaById to get the occa name
+     * Get occa names for many shows in one call
      * 
-     * @param showId The show ID
-     * @return The occa name or "Khác" if not found
+     * @param showIds The show IDs
+     * @return Map from show ID to occa name, "Khác" when not found
      */
-    public String getOccaNameByShowId(UUID showId) {
+    public Map<UUID, String> getOccaNamesByShowIds(Collection<UUID> showIds) {
+        Map<UUID, String> names = new HashMap<>();
+        Map<UUID, ShowWithOccaData> shows;
         try {
-            // Get show data to find occa ID
-            ShowDataResponse showData = getShowById(showId);
-            String occaId = showData.getOccaId();
-            
-            // Get occa data to get the occa name
-            OccaResquest occaRequest = OccaResquest.newBuilder()
-                .setOccaId(occaId)
-                .build();
-            
-            OccaDataResponse occaData = getOccaById(occaRequest);
-            String occaName = occaData.getTitle();
-            
-            return occaName != null && !occaName.isEmpty() ? occaName : "Khác";
+            shows = getShowsWithOccaByIds(showIds);
         } catch (Exception e) {
-            log.error("Error getting occa name for show ID: {}", showId, e);
-            return "Khác";
+            log.error("Error getting occa names for {} shows", showIds.size(), e);
+            shows = Map.of();
+        }
+        for (UUID showId : showIds) {
+            ShowWithOccaData show = shows.get(showId);
+            String occaName = show != null ? show.getOccaTitle() : null;
+            names.put(showId, occaName != null && !occaName.isEmpty() ? occaName : "Khác");
+        }
+        return names;
+    }
+    
+    /**
+     * Loader for show cache misses: shows already being fetched by a concurrent request are awaited,
+     * the rest are fetched in concurrent batches; occa data in the responses warms the occa cache too
+     */
+    private Map<UUID, ShowDataResponse> loadShows(Set<? extends UUID> showIds) {
+        Map<UUID, ShowWithOccaData> shows = showsFlight.executeAll(showIds, missing -> fanOut(missing, batch -> {
+            ShowsByIdsRequest.Builder request = ShowsByIdsRequest.newBuilder();
+            batch.forEach(showId -> request.addShowIds(showId.toString()));
+
+            return Futures.transform(
+                showServiceFutureStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS).getShowsByIds(request.build()),
+                response -> {
+                    Map<UUID, ShowWithOccaData> byId = new HashMap<>();
+                    response.getShowsList().forEach(show -> byId.put(UUID.fromString(show.getShowId()), show));
+                    return byId;
+                },
+                MoreExecutors.directExecutor());
+        }));
+
+        Map<UUID, ShowDataResponse> loaded = new HashMap<>();
+        for (Map.Entry<UUID, ShowWithOccaData> entry : shows.entrySet()) {
+            ShowWithOccaData show = entry.getValue();
+            loaded.put(entry.getKey(), ShowDataResponse.newBuilder()
+                .setTime(show.getTime())
+                .setDate(show.getDate())
+                .setOccaId(show.getOccaId())
+                .build());
+            metadataCache.putOcca(UUID.fromString(show.getOccaId()), OccaData.newBuilder()
+                .setOccaId(show.getOccaId())
+                .setTitle(show.getOccaTitle())
+                .setLocation(show.getOccaLocation())
+                .build());
+        }
+        return loaded;
+    }
+
+    /**
+     * Loader for occa cache misses: occas already being fetched are awaited, the rest are fetched in concurrent batches
+     */
+    private Map<UUID, OccaData> loadOccas(Set<? extends UUID> occaIds) {
+        return occasFlight.executeAll(occaIds, missing -> fanOut(missing, batch -> {
+            OccasByIdsRequest.Builder request = OccasByIdsRequest.newBuilder();
+            batch.forEach(occaId -> request.addOccaIds(occaId.toString()));
+
+            return Futures.transform(
+                occaServiceFutureStub.withDeadlineAfter(deadlineMs, TimeUnit.MILLISECONDS).getOccasByIds(request.build()),
+                response -> {
+                    Map<UUID, OccaData> byId = new HashMap<>();
+                    response.getOccasList().forEach(occa -> byId.put(UUID.fromString(occa.getOccaId()), occa));
+                    return byId;
+                },
+                MoreExecutors.directExecutor());
+        }));
+    }
+
+    private <V> Map<UUID, V> fanOut(Set<? extends UUID> ids,
+                                    Function<List<UUID>, ListenableFuture<Map<UUID, V>>> batchCall) {
+        try {
+            return BoundedFanOut.fetch(ids, batchSize, maxConcurrency, deadlineMs, batchCall);
+        } catch (TimeoutException e) {
+            throw Status.DEADLINE_EXCEEDED.withDescription(e.getMessage()).asRuntimeException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw Status.INTERNAL.withCause(e.getCause()).asRuntimeException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Interrupted").asRuntimeException();
         }
     }
 }
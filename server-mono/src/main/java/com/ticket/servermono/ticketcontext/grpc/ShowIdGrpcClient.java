@@ -1,28 +1,38 @@
 package com.ticket.servermono.ticketcontext.grpc;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
 import io.grpc.StatusRuntimeException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
 import occa.OccaIdRequest;
+import occa.OccaIdsRequest;
+import occa.OccaShowIds;
 import occa.ShowIdResponse;
+import occa.ShowIdsByOccaResponse;
 import occa.ShowIdServicesGrpc.ShowIdServicesBlockingStub;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ShowIdGrpcClient {
 
     @GrpcClient("occa-service")
     private ShowIdServicesBlockingStub showIdServiceStub;
 
+    private final SingleFlight<UUID, ShowIdResponse> showIdsFlight;
+
+    public ShowIdGrpcClient(SingleFlightRegistry singleFlights) {
+        this.showIdsFlight = singleFlights.create("occa.getShowIdsByOccaId");
+    }
+
     /**
      * Get all show IDs for a specific occa ID
      * 
@@ -37,7 +47,7 @@ public class ShowIdGrpcClient {
                 .build();
             
             // Make the call
-            ShowIdResponse response = showIdServiceStub.getShowIdsByOccaId(request);
+            ShowIdResponse response = showIdsFlight.execute(occaId, () -> showIdServiceStub.getShowIdsByOccaId(request));
             
             // Convert string IDs to UUIDs
             return response.getShowIdsList().stream()
@@ -49,4 +59,28 @@ public class ShowIdGrpcClient {
             return new ArrayList<>();
         }
     }
+
+    /**
+     * Get the show IDs of many occas in one call
+     * 
+     * @param occaIds The occa IDs
+     * @return Map from occa ID to its show IDs; occas without shows are absent
+     */
+    public Map<UUID, List<UUID>> getShowIdsByOccaIds(Collection<UUID> occaIds) {
+        Map<UUID, List<UUID>> result = new HashMap<>();
+        if (occaIds.isEmpty()) {
+            return result;
+        }
+        OccaIdsRequest request = OccaIdsRequest.newBuilder()
+            .addAllOccaIds(occaIds.stream().map(UUID::toString).collect(Collectors.toList()))
+            .build();
+        
+        ShowIdsByOccaResponse response = showIdServiceStub.getShowIdsByOccaIds(request);
+        for (OccaShowIds occa : response.getOccasList()) {
+            result.put(UUID.fromString(occa.getOccaId()), occa.getShowIdsList().stream()
+                .map(UUID::fromString)
+                .collect(Collectors.toList()));
+        }
+        return result;
+    }
 }
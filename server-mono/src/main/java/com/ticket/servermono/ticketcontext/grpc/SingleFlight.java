@@ -0,0 +1,137 @@
+package com.ticket.servermono.ticketcontext.grpc;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import lombok.Getter;
+
+/**
+ * Gộp các lượt gọi đồng thời cùng key: chỉ lượt đầu tiên thực sự gọi remote,
+ * các lượt đến trong lúc nó đang chạy chờ và dùng chung kết quả (hoặc lỗi).
+ * Không giữ kết quả sau khi lượt gọi xong, nên dùng được độc lập hoặc phía sau một cache.
+ * Lượt gọi ném bất kỳ Throwable nào (kể cả Error) thì các lượt đang chờ cũng nhận lỗi đó, không bị treo.
+ */
+public class SingleFlight<K, V> {
+
+    @Getter
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    SingleFlight(String name) {
+        this.name = name;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        requests.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        try {
+            V value = call.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Phiên bản theo lô: chỉ các key chưa có lượt gọi nào đang chạy mới được đưa vào call,
+     * các key còn lại chờ lượt gọi đang chạy của chúng. Key vắng mặt trong kết quả của call
+     * (không tồn tại) cũng vắng mặt trong kết quả trả về.
+     * Lượt gọi của mình chạy trước khi chờ các lượt khác nên hai lô chồng key không chờ lẫn nhau.
+     */
+    public Map<K, V> executeAll(Set<? extends K> keys, Function<Set<K>, Map<K, V>> call) {
+        requests.add(keys.size());
+        Map<K, CompletableFuture<V>> owned = new HashMap<>();
+        Map<K, CompletableFuture<V>> joined = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+            } else {
+                joined.put(key, existing);
+            }
+        }
+        coalesced.add(joined.size());
+
+        Map<K, V> result = new HashMap<>();
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, V> loaded = call.apply(new HashSet<>(owned.keySet()));
+                owned.forEach((key, future) -> {
+                    V value = loaded.get(key);
+                    future.complete(value);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                });
+            } catch (Throwable e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach((key, future) -> inFlight.remove(key, future));
+            }
+        }
+
+        for (Map.Entry<K, CompletableFuture<V>> entry : joined.entrySet()) {
+            V value = await(entry.getValue());
+            if (value != null) {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Chờ lượt gọi của lượt khác và ném lại đúng lỗi gốc của nó
+     */
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Tỉ lệ lượt gọi được gộp vào một lượt gọi khác đang chạy
+     */
+    public double getCoalescingRatio() {
+        long total = requests.sum();
+        return total == 0 ? 0 : (double) coalesced.sum() / total;
+    }
+}
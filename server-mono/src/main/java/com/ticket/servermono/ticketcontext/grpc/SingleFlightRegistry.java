@@ -0,0 +1,49 @@
+package com.ticket.servermono.ticketcontext.grpc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tạo và theo dõi các SingleFlight của gRPC client (số lượt gọi, số lượt được gộp)
+ */
+@Slf4j
+@Component
+public class SingleFlightRegistry {
+
+    private final List<SingleFlight<?, ?>> flights = new CopyOnWriteArrayList<>();
+
+    public <K, V> SingleFlight<K, V> create(String name) {
+        SingleFlight<K, V> flight = new SingleFlight<>(name);
+        flights.add(flight);
+        return flight;
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (SingleFlight<?, ?> flight : flights) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("requests", flight.getRequests());
+            entry.put("coalesced", flight.getCoalesced());
+            entry.put("coalescingRatio", flight.getCoalescingRatio());
+            stats.put(flight.getName(), entry);
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${app.occa-cache.stats-log-interval-ms:60000}")
+    public void logStats() {
+        for (SingleFlight<?, ?> flight : flights) {
+            if (flight.getCoalesced() > 0) {
+                log.info("Single-flight {}: requests={}, coalesced={}, ratio={}", flight.getName(),
+                        flight.getRequests(), flight.getCoalesced(), String.format("%.3f", flight.getCoalescingRatio()));
+            }
+        }
+    }
+}
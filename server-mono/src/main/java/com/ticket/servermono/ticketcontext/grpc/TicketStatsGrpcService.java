@@ -3,7 +3,12 @@ package com.ticket.servermono.ticketcontext.grpc;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.stereotype.Service;
@@ -53,65 +58,61 @@ public class TicketStatsGrpcService extends TicketStatsServiceImplBase {
             
             TicketStatsResponse.Builder responseBuilder = TicketStatsResponse.newBuilder();
             
-            // For each occaId, calculate the revenue and fill rate
+            List<UUID> validOccaIds = new ArrayList<>();
             for (String occaIdStr : occaIds) {
                 try {
-                    UUID occaId = UUID.fromString(occaIdStr);
-                      // Get show IDs for this occa using the gRPC client
-                    List<UUID> showIds = showIdGrpcClient.getShowIdsByOccaId(occaId);
-                    
-                    if (showIds.isEmpty()) {
-                        log.warn("No shows found for occa ID: {}", occaId);
-                        // Include a zero-stats entry
-                        OccaTicketStats stats = OccaTicketStats.newBuilder()
-                            .setOccaId(occaIdStr)
-                            .setRevenue(0)
-                            .setFillRate(0)
-                            .build();
-                        responseBuilder.addStats(stats);
-                        continue;
-                    }
-                      // Calculate revenue with date range
-                    Long revenue = ticketRepository.calculateRevenueByShowIds(showIds, startDate, endDate);
-                    revenue = revenue != null ? revenue : 0L;
-                    
-                    // Calculate overall fill rate across all shows up to the end date (independent of start date)
-                    int overallFillRate = 0;
-                    
-                    try {
-                        // Get total capacity for all shows
-                        Integer totalCapacity = ticketRepository.getTotalCapacityByShowIds(showIds);
-                        
-                        if (totalCapacity == null || totalCapacity == 0) {
-                            log.warn("No capacity defined for shows of occa ID: {}, setting fill rate to 0", occaId);
-                        } else {
-                            // Get total sold tickets count up to end date
-                            Long totalSoldTickets = ticketRepository.countTotalSoldTicketsUntilDate(showIds, endDate);
-                            totalSoldTickets = totalSoldTickets != null ? totalSoldTickets : 0L;
-                            
-                            // Calculate overall fill rate
-                            overallFillRate = (int) (totalSoldTickets * 100.0 / totalCapacity);
-                            log.debug("Occa ID {}: Total Capacity={}, Total Sold={}, Overall Fill Rate={}%", 
-                                     occaId, totalCapacity, totalSoldTickets, overallFillRate);
-                        }
-                    } catch (Exception e) {
-                        log.error("Error calculating overall fill rate for occa {}: {}", occaId, e.getMessage());
-                    }
-                    
-                    log.info("Occa ID {}: Overall fill rate: {}%", occaId, overallFillRate);
-                      // Build the stats object
-                    OccaTicketStats stats = OccaTicketStats.newBuilder()
-                        .setOccaId(occaIdStr)
-                        .setRevenue(revenue)
-                        .setFillRate(overallFillRate)
-                        .build();
-                    
-                    responseBuilder.addStats(stats);
+                    validOccaIds.add(UUID.fromString(occaIdStr));
                 } catch (IllegalArgumentException e) {
                     log.warn("Invalid UUID format: {}", occaIdStr);
                 }
             }
             
+            // Show IDs of every occa in one call, then revenue/sold/capacity of every show in two grouped queries
+            Map<UUID, List<UUID>> showIdsByOcca = showIdGrpcClient.getShowIdsByOccaIds(validOccaIds);
+            Set<UUID> allShowIds = new HashSet<>();
+            showIdsByOcca.values().forEach(allShowIds::addAll);
+            
+            Map<UUID, double[]> revenueAndSoldByShow = new HashMap<>();
+            Map<UUID, Long> capacityByShow = new HashMap<>();
+            if (!allShowIds.isEmpty()) {
+                for (Object[] row : ticketRepository.sumRevenueAndSoldByShowIds(allShowIds, startDate, endDate)) {
+                    revenueAndSoldByShow.put((UUID) row[0], new double[] {
+                        row[1] != null ? ((Number) row[1]).doubleValue() : 0,
+                        row[2] != null ? ((Number) row[2]).doubleValue() : 0
+                    });
+                }
+                for (Object[] row : ticketRepository.sumCapacityByShowIds(allShowIds)) {
+                    capacityByShow.put((UUID) row[0], row[1] != null ? ((Number) row[1]).longValue() : 0L);
+                }
+            }
+            
+            for (UUID occaId : validOccaIds) {
+                List<UUID> showIds = showIdsByOcca.getOrDefault(occaId, List.of());
+                
+                double revenue = 0;
+                long totalSoldTickets = 0;
+                long totalCapacity = 0;
+                for (UUID showId : showIds) {
+                    double[] revenueAndSold = revenueAndSoldByShow.get(showId);
+                    if (revenueAndSold != null) {
+                        revenue += revenueAndSold[0];
+                        totalSoldTickets += (long) revenueAndSold[1];
+                    }
+                    totalCapacity += capacityByShow.getOrDefault(showId, 0L);
+                }
+                
+                // Overall fill rate across all shows up to the end date (independent of start date)
+                int overallFillRate = totalCapacity > 0 ? (int) (totalSoldTickets * 100.0 / totalCapacity) : 0;
+                log.debug("Occa ID {}: shows={}, revenue={}, capacity={}, sold={}, fill rate={}%",
+                         occaId, showIds.size(), revenue, totalCapacity, totalSoldTickets, overallFillRate);
+                
+                responseBuilder.addStats(OccaTicketStats.newBuilder()
+                    .setOccaId(occaId.toString())
+                    .setRevenue((long) revenue)
+                    .setFillRate(overallFillRate)
+                    .build());
+            }
+            
             TicketStatsResponse response = responseBuilder.build();
             responseObserver.onNext(response);
             responseObserver.onCompleted();
@@ -0,0 +1,107 @@
+package com.ticket.servermono.ticketcontext.grpc;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import user.UserExistsRequest;
+import user.UserServiceGrpc.UserServiceBlockingStub;
+import user.UsersExistRequest;
+
+/**
+ * Client kiểm tra user tồn tại qua gRPC, có cache dương (chỉ nhớ các user đã biết là tồn tại)
+ * để luồng đặt vé không phải gọi remote cho user quen. Entry bị xóa khi có sự kiện user-status-changed.
+ */
+@Service
+@Slf4j
+public class UserGrpcClient {
+
+    @GrpcClient("user-service")
+    private UserServiceBlockingStub userStub;
+
+    private final Cache<UUID, Boolean> knownUsers;
+    private final SingleFlight<UUID, Boolean> existsFlight;
+
+    public UserGrpcClient(SingleFlightRegistry singleFlights,
+                          @Value("${app.user-cache.max-size:100000}") long maxSize,
+                          @Value("${app.user-cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.knownUsers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.existsFlight = singleFlights.create("user.checkUserExists");
+    }
+
+    /**
+     * Check if a user exists; known users are answered from the local cache
+     */
+    public boolean userExists(UUID userId) {
+        if (knownUsers.getIfPresent(userId) != null) {
+            return true;
+        }
+        try {
+            boolean exists = existsFlight.execute(userId, () -> userStub.checkUserExists(UserExistsRequest.newBuilder()
+                    .setUserId(userId.toString())
+                    .build()).getExists());
+            if (exists) {
+                knownUsers.put(userId, Boolean.TRUE);
+            }
+            return exists;
+        } catch (Exception e) {
+            log.error("Error checking if user exists via gRPC: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to check user existence", e);
+        }
+    }
+
+    /**
+     * Check many users; only cache misses are sent, in one CheckUsersExist call
+     * 
+     * @return The user IDs that exist
+     */
+    public Set<UUID> findExistingUsers(Collection<UUID> userIds) {
+        Set<UUID> existing = new HashSet<>();
+        List<UUID> misses = userIds.stream()
+                .distinct()
+                .filter(userId -> {
+                    if (knownUsers.getIfPresent(userId) != null) {
+                        existing.add(userId);
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+        if (misses.isEmpty()) {
+            return existing;
+        }
+
+        try {
+            UsersExistRequest.Builder request = UsersExistRequest.newBuilder();
+            misses.forEach(userId -> request.addUserIds(userId.toString()));
+
+            for (String userIdStr : userStub.checkUsersExist(request.build()).getExistingUserIdsList()) {
+                UUID userId = UUID.fromString(userIdStr);
+                knownUsers.put(userId, Boolean.TRUE);
+                existing.add(userId);
+            }
+            return existing;
+        } catch (Exception e) {
+            log.error("Error checking if users exist via gRPC: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to check user existence", e);
+        }
+    }
+
+    public void invalidate(UUID userId) {
+        knownUsers.invalidate(userId);
+    }
+}
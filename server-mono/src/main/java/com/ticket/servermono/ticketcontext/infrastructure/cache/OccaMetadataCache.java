@@ -0,0 +1,114 @@
+package com.ticket.servermono.ticketcontext.infrastructure.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.extern.slf4j.Slf4j;
+import occa.OccaData;
+import occa.ShowDataResponse;
+
+/**
+ * Near-cache cho metadata show/occa lấy từ occa-service (ngày giờ show, tên và địa điểm sự kiện).
+ * Dữ liệu này gần như không đổi nên được giữ trong bộ nhớ, giới hạn theo số phần tử và TTL;
+ * các sự kiện Kafka update-next-show-datetime, cascade-delete-show và occa-updated sẽ xóa entry tương ứng.
+ */
+@Slf4j
+@Component
+public class OccaMetadataCache {
+
+    private final Cache<UUID, ShowDataResponse> showCache;
+    private final Cache<UUID, OccaData> occaCache;
+
+    public OccaMetadataCache(
+            @Value("${app.occa-cache.max-size:10000}") long maxSize,
+            @Value("${app.occa-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.showCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.occaCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Lấy nhiều show; các show chưa có trong cache được nạp bằng một lần gọi loader.
+     * Show không tồn tại không có trong kết quả và không được cache.
+     */
+    public Map<UUID, ShowDataResponse> getShows(Set<UUID> showIds,
+            Function<Set<? extends UUID>, Map<UUID, ShowDataResponse>> loader) {
+        return showCache.getAll(showIds, loader);
+    }
+
+    public Map<UUID, OccaData> getOccas(Set<UUID> occaIds,
+            Function<Set<? extends UUID>, Map<UUID, OccaData>> loader) {
+        return occaCache.getAll(occaIds, loader);
+    }
+
+    public void putOcca(UUID occaId, OccaData occa) {
+        occaCache.put(occaId, occa);
+    }
+
+    public void invalidateShow(UUID showId) {
+        showCache.invalidate(showId);
+    }
+
+    /**
+     * Xóa occa và toàn bộ show thuộc occa đó (ngày giờ show có thể đã đổi)
+     */
+    public void invalidateOcca(UUID occaId) {
+        occaCache.invalidate(occaId);
+        String occaIdStr = occaId.toString();
+        showCache.asMap().values().removeIf(show -> occaIdStr.equals(show.getOccaId()));
+    }
+
+    /**
+     * Thống kê hit rate, số entry bị loại và thời gian nạp trung bình của từng cache
+     */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("shows", toMap(showCache.stats(), showCache.estimatedSize()));
+        stats.put("occas", toMap(occaCache.stats(), occaCache.estimatedSize()));
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${app.occa-cache.stats-log-interval-ms:60000}")
+    public void logStats() {
+        CacheStats shows = showCache.stats();
+        CacheStats occas = occaCache.stats();
+        if (shows.requestCount() == 0 && occas.requestCount() == 0) {
+            return;
+        }
+        log.info("Occa metadata cache - shows: hitRate={}, evictions={}, avgLoadMs={} | occas: hitRate={}, evictions={}, avgLoadMs={}",
+                String.format("%.3f", shows.hitRate()), shows.evictionCount(), String.format("%.2f", shows.averageLoadPenalty() / 1_000_000.0),
+                String.format("%.3f", occas.hitRate()), occas.evictionCount(), String.format("%.2f", occas.averageLoadPenalty() / 1_000_000.0));
+    }
+
+    private static Map<String, Object> toMap(CacheStats stats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictionCount", stats.evictionCount());
+        map.put("loadCount", stats.loadCount());
+        map.put("loadFailureCount", stats.loadFailureCount());
+        map.put("averageLoadMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return map;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ticket.servermono.ticketcontext.infrastructure.config;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.netty.NettyChannelBuilder;
+import lombok.extern.slf4j.Slf4j;
+import occa.ShowRequest;
+import occa.ShowServicesGrpc;
+import user.UserExistsRequest;
+import user.UserServiceGrpc;
+
+/**
+ * Benchmark độ trễ mỗi lượt gọi gRPC nội bộ (isShowExist, checkUserExists)
+ * qua transport in-process so với Netty loopback tới chính server gRPC của JVM này.
+ * Bật bằng app.benchmark.grpc-transport=true.
+ */
+@Slf4j
+@Configuration
+public class GrpcTransportBenchmark {
+
+    private static final int WARMUP_CALLS = 500;
+    private static final int MEASURED_CALLS = 2000;
+
+    @Bean
+    @Order(20)
+    @ConditionalOnProperty(name = "app.benchmark.grpc-transport", havingValue = "true")
+    CommandLineRunner runGrpcTransportBenchmark(
+            @Value("${grpc.server.in-process-name:server-mono}") String inProcessName,
+            @Value("${grpc.server.port:9090}") int port) {
+        return args -> {
+            ManagedChannel inProcess = InProcessChannelBuilder.forName(inProcessName).build();
+            ManagedChannel netty = NettyChannelBuilder.forAddress("localhost", port).usePlaintext().build();
+            try {
+                ShowRequest showRequest = ShowRequest.newBuilder()
+                        .setShowId(UUID.randomUUID().toString())
+                        .build();
+                UserExistsRequest userRequest = UserExistsRequest.newBuilder()
+                        .setUserId(UUID.randomUUID().toString())
+                        .build();
+
+                log.info("gRPC transport benchmark ({} calls, µs per call):", MEASURED_CALLS);
+                log.info(String.format("%-16s %-12s %10s %10s %10s", "rpc", "transport", "avg", "p50", "p99"));
+
+                benchmark("in-process", inProcess, showRequest, userRequest);
+                benchmark("netty", netty, showRequest, userRequest);
+            } finally {
+                inProcess.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+                netty.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        };
+    }
+
+    private static void benchmark(String transport, ManagedChannel channel,
+                                  ShowRequest showRequest, UserExistsRequest userRequest) {
+        var showStub = ShowServicesGrpc.newBlockingStub(channel);
+        var userStub = UserServiceGrpc.newBlockingStub(channel);
+
+        report("isShowExist", transport, measure(i -> showStub.isShowExist(showRequest)));
+        report("checkUserExists", transport, measure(i -> userStub.checkUserExists(userRequest)));
+    }
+
+    private static long[] measure(Function<Integer, ?> call) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.apply(i);
+        }
+        long[] nanos = new long[MEASURED_CALLS];
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            long start = System.nanoTime();
+            call.apply(i);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static void report(String rpc, String transport, long[] sortedNanos) {
+        double avg = Arrays.stream(sortedNanos).average().orElse(0) / 1_000.0;
+        double p50 = sortedNanos[sortedNanos.length / 2] / 1_000.0;
+        double p99 = sortedNanos[(int) (sortedNanos.length * 0.99)] / 1_000.0;
+        log.info(String.format("%-16s %-12s %10.1f %10.1f %10.1f", rpc, transport, avg, p50, p99));
+    }
+}
@@ -0,0 +1,178 @@
+package com.ticket.servermono.ticketcontext.infrastructure.config;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmark truy vấn doanh thu của một organizer trên bảng hóa đơn lớn (mặc định 1M hóa đơn giả lập,
+ * 2000 show, organizer sở hữu 20 show, trải đều trong 365 ngày):
+ * cách cũ (tải mọi hóa đơn PAYMENT_SUCCESS rồi lọc trong Java) so với GROUP BY trong DB
+ * qua index idx_invoices_status_show_created, cùng câu SQL mà InvoiceRepository.sumAmountByShow/sumAmountByDay sinh ra.
+ * Số dòng MySQL đọc được lấy từ chênh lệch các biến Handler_read_* của session.
+ * Dữ liệu được ghi vào bảng tạm invoices_benchmark (CREATE TABLE ... LIKE invoices nên có cùng index)
+ * theo từng batch và bảng bị xóa khi chạy xong; bảng invoices không bị đụng tới.
+ * Bật bằng app.benchmark.invoice-analytics=true.
+ */
+@Slf4j
+@Configuration
+public class InvoiceAnalyticsBenchmark {
+
+    private static final int SHOWS = 2_000;
+    private static final int CREATOR_SHOWS = 20;
+    private static final int DAYS = 365;
+    private static final int RANGE_DAYS = 30;
+    private static final int BATCH_SIZE = 5_000;
+
+    private static final String TABLE = "invoices_benchmark";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO " + TABLE + " (id, so_tien, noi_dung, status, payment_id, show_id, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @Value("${app.benchmark.invoice-analytics-rows:1000000}")
+    private int rows;
+
+    @Bean
+    @Order(40)
+    @ConditionalOnProperty(name = "app.benchmark.invoice-analytics", havingValue = "true")
+    CommandLineRunner runInvoiceAnalyticsBenchmark(JdbcTemplate jdbcTemplate,
+                                                   PlatformTransactionManager transactionManager) {
+        return args -> {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+            jdbcTemplate.execute("CREATE TABLE " + TABLE + " LIKE invoices");
+            try {
+                run(jdbcTemplate, transactionManager);
+            } finally {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+            }
+        };
+    }
+
+    private void run(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        List<UUID> showIds = new ArrayList<>(SHOWS);
+        for (int i = 0; i < SHOWS; i++) {
+            showIds.add(UUID.randomUUID());
+        }
+        List<UUID> creatorShows = showIds.subList(0, CREATOR_SHOWS);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.minusDays(RANGE_DAYS);
+
+        long start = System.nanoTime();
+        List<Integer> indexes = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            indexes.add(i);
+        }
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        jdbcTemplate.batchUpdate(INSERT_SQL, indexes, BATCH_SIZE, (ps, i) -> {
+            Timestamp createdAt = Timestamp.valueOf(now.minusDays(i % DAYS).minusMinutes(i % 1440));
+            ps.setBytes(1, toBytes(UUID.randomUUID()));
+            ps.setDouble(2, 100_000.0 + (i % 7) * 50_000);
+            ps.setString(3, "BENCH" + i);
+            ps.setString(4, (i % 5 == 0 ? PaymentStatus.PAYMENT_EXPIRED : PaymentStatus.PAYMENT_SUCCESS).name());
+            ps.setString(5, "BENCH_" + runId + "_" + i);
+            ps.setBytes(6, toBytes(showIds.get(i % SHOWS)));
+            ps.setTimestamp(7, createdAt);
+            ps.setTimestamp(8, createdAt);
+        });
+        log.info("Invoice analytics benchmark: inserted {} invoices in {} ms", rows,
+                (System.nanoTime() - start) / 1_000_000);
+
+        // Các lượt đo chạy trong một transaction chỉ đọc để cùng một connection (và biến session)
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            Measurement baseline = measure(jdbcTemplate, () -> {
+                // Tương đương findByStatus(PAYMENT_SUCCESS) + lọc theo ngày và show trong Java
+                AtomicLong matched = new AtomicLong();
+                jdbcTemplate.query("SELECT * FROM " + TABLE + " WHERE status = ?", rs -> {
+                    LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+                    ByteBuffer showId = ByteBuffer.wrap(rs.getBytes("show_id"));
+                    if (!createdAt.isBefore(from) && creatorShows.contains(new UUID(showId.getLong(), showId.getLong()))) {
+                        matched.incrementAndGet();
+                    }
+                }, PaymentStatus.PAYMENT_SUCCESS.name());
+                return matched.get();
+            });
+            Measurement byShow = measure(jdbcTemplate, () -> sumAmount(jdbcTemplate, "show_id", creatorShows, from, now));
+            Measurement byDay = measure(jdbcTemplate, () -> sumAmount(jdbcTemplate, "DATE(created_at)", creatorShows, from, now));
+
+            log.info("Invoice analytics benchmark: {} shows of {}, last {} days", CREATOR_SHOWS, SHOWS, RANGE_DAYS);
+            log.info(String.format("%-32s %14s %12s %10s", "query", "rows scanned", "result rows", "ms"));
+            log.info(baseline.format("load all + filter in Java"));
+            log.info(byShow.format("GROUP BY show (pushdown)"));
+            log.info(byDay.format("GROUP BY day (pushdown)"));
+        });
+    }
+
+    /**
+     * Tổng tiền theo nhóm trên bảng tạm, cùng điều kiện với InvoiceRepository.sumAmountByShow/sumAmountByDay
+     * @return số nhóm trả về
+     */
+    private static long sumAmount(JdbcTemplate jdbcTemplate, String groupBy, List<UUID> showIds,
+                                  LocalDateTime from, LocalDateTime to) {
+        List<Object> params = new ArrayList<>();
+        params.add(PaymentStatus.PAYMENT_SUCCESS.name());
+        showIds.forEach(showId -> params.add(toBytes(showId)));
+        params.add(Timestamp.valueOf(from));
+        params.add(Timestamp.valueOf(to));
+        String sql = "SELECT " + groupBy + ", SUM(so_tien) FROM " + TABLE
+                + " WHERE status = ? AND show_id IN (" + String.join(", ", Collections.nCopies(showIds.size(), "?")) + ")"
+                + " AND created_at BETWEEN ? AND ? GROUP BY " + groupBy;
+        return jdbcTemplate.queryForList(sql, params.toArray()).size();
+    }
+
+    private static Measurement measure(JdbcTemplate jdbcTemplate, Supplier<Long> query) {
+        long before = handlerReads(jdbcTemplate);
+        long start = System.nanoTime();
+        long results = query.get();
+        double ms = (System.nanoTime() - start) / 1_000_000.0;
+        return new Measurement(handlerReads(jdbcTemplate) - before, results, ms);
+    }
+
+    /**
+     * Tổng các biến Handler_read_* của session: số dòng storage engine đã đọc qua index hoặc quét bảng
+     */
+    private static long handlerReads(JdbcTemplate jdbcTemplate) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SHOW SESSION STATUS LIKE 'Handler_read%'");
+        long total = 0;
+        for (Map<String, Object> row : rows) {
+            total += Long.parseLong(String.valueOf(row.get("Value")));
+        }
+        return total;
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private record Measurement(long rowsScanned, long resultRows, double ms) {
+        String format(String name) {
+            return String.format("%-32s %14d %12d %10.1f", name, rowsScanned, resultRows, ms);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ticket.servermono.ticketcontext.infrastructure.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import com.ticket.servermono.ticketcontext.adapters.dtos.RevenueOverviewResponse;
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.grpc.OccaCreatorGrpcClient;
+import com.ticket.servermono.ticketcontext.grpc.OccaGrpcClient;
+import com.ticket.servermono.ticketcontext.infrastructure.cache.OccaMetadataCache;
+import com.ticket.servermono.ticketcontext.usecases.RevenueAggregator;
+import com.ticket.servermono.ticketcontext.usecases.TicketServices;
+
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import lombok.extern.slf4j.Slf4j;
+import occa.OccaResquest;
+import occa.OccaServicesGrpc;
+import occa.ShowDataResponse;
+import occa.ShowRequest;
+import occa.ShowServicesGrpc;
+
+/**
+ * Benchmark phần phân bổ doanh thu của getRevenueOverview trên server gRPC in-process của chính JVM này,
+ * với các show thật của một organizer (app.benchmark.revenue-overview-creator-id):
+ * <ul>
+ *   <li>50k hóa đơn giả lập trải trên các show đó: cách cũ (GetShowById + GetOccaById tuần tự cho từng hóa đơn,
+ *   đo trên mẫu rồi ngoại suy) so với gộp theo show + OccaGrpcClient.getOccaNamesByShowIds
+ *   (batch song song có giới hạn), near-cache được xóa trước mỗi lượt đo</li>
+ *   <li>getRevenueOverview thật (doanh thu từ DB) với near-cache lạnh và nóng</li>
+ * </ul>
+ * Bật bằng app.benchmark.revenue-overview=true; chỉ đọc dữ liệu.
+ */
+@Slf4j
+@Configuration
+public class RevenueOverviewBenchmark {
+
+    private static final int INVOICES = 50_000;
+    private static final int BASELINE_SAMPLE = 500;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Bean
+    @Order(30)
+    @ConditionalOnProperty(name = "app.benchmark.revenue-overview", havingValue = "true")
+    CommandLineRunner runRevenueOverviewBenchmark(
+            TicketServices ticketServices,
+            OccaGrpcClient occaGrpcClient,
+            OccaCreatorGrpcClient occaCreatorGrpcClient,
+            OccaMetadataCache metadataCache,
+            @Value("${app.benchmark.revenue-overview-creator-id:}") String creatorId,
+            @Value("${grpc.server.in-process-name:server-mono}") String inProcessName) {
+        return args -> {
+            List<UUID> showIds = creatorId.isBlank() ? List.of() : occaCreatorGrpcClient.getShowIdsByCreatorId(creatorId);
+            if (showIds.isEmpty()) {
+                log.warn("Revenue overview benchmark skipped: set app.benchmark.revenue-overview-creator-id to an organizer with shows");
+                return;
+            }
+
+            List<Invoice> invoices = new ArrayList<>(INVOICES);
+            for (int i = 0; i < INVOICES; i++) {
+                invoices.add(Invoice.builder()
+                        .showId(showIds.get(i % showIds.size()))
+                        .soTien(100_000.0 + (i % 7) * 50_000)
+                        .build());
+            }
+
+            ManagedChannel channel = InProcessChannelBuilder.forName(inProcessName).build();
+            try {
+                var showStub = ShowServicesGrpc.newBlockingStub(channel);
+                var occaStub = OccaServicesGrpc.newBlockingStub(channel);
+
+                // Cách cũ: hai lượt gọi chặn cho từng hóa đơn, kể cả hóa đơn cùng show
+                long start = System.nanoTime();
+                Map<String, Double> baseline = new HashMap<>();
+                for (Invoice invoice : invoices.subList(0, Math.min(BASELINE_SAMPLE, invoices.size()))) {
+                    ShowDataResponse show = showStub.getShowById(ShowRequest.newBuilder()
+                            .setShowId(invoice.getShowId().toString())
+                            .build());
+                    String occaName = show.getOccaId().isEmpty() ? "Khác" : occaStub.getOccaById(OccaResquest.newBuilder()
+                            .setOccaId(show.getOccaId())
+                            .build()).getTitle();
+                    baseline.merge(occaName, invoice.getSoTien(), Double::sum);
+                }
+                double baselineMs = elapsedMs(start) * INVOICES / Math.min(BASELINE_SAMPLE, INVOICES);
+
+                // Cách mới: cộng theo show rồi tra tên occa cho các show khác nhau qua OccaGrpcClient
+                double fanOutMs = 0;
+                int occas = 0;
+                for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                    showIds.forEach(metadataCache::invalidateShow);
+                    start = System.nanoTime();
+                    Map<UUID, Double> revenueByShow = RevenueAggregator.sumByShow(invoices);
+                    Map<UUID, String> names = occaGrpcClient.getOccaNamesByShowIds(revenueByShow.keySet());
+                    occas = RevenueAggregator.distributeByOcca(revenueByShow, names).size();
+                    fanOutMs += elapsedMs(start);
+                }
+
+                LocalDateTime to = LocalDateTime.now();
+                LocalDateTime from = to.minusDays(365);
+                double coldMs = 0;
+                double warmMs = 0;
+                RevenueOverviewResponse overview = null;
+                for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                    showIds.forEach(metadataCache::invalidateShow);
+                    start = System.nanoTime();
+                    ticketServices.getRevenueOverview(from, to, creatorId);
+                    coldMs += elapsedMs(start);
+
+                    start = System.nanoTime();
+                    overview = ticketServices.getRevenueOverview(from, to, creatorId);
+                    warmMs += elapsedMs(start);
+                }
+
+                log.info("Revenue overview benchmark: {} invoices over {} shows of creator {}, in-process gRPC",
+                        INVOICES, showIds.size(), creatorId);
+                log.info(String.format("  per-invoice sequential (extrapolated from %d): %12.1f ms", BASELINE_SAMPLE, baselineMs));
+                log.info(String.format("  grouped + batched fan-out (%d occas, cold):   %12.1f ms", occas, fanOutMs / MEASURED_ROUNDS));
+                log.info(String.format("  getRevenueOverview last 365 days (%d occas):  %12.1f ms cold, %.1f ms warm",
+                        overview.getRevenueDistribution().size(), coldMs / MEASURED_ROUNDS, warmMs / MEASURED_ROUNDS));
+            } finally {
+                channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+        };
+    }
+
+    private static double elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
@@ -4,7 +4,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
- * Cấu hình cho Spring Scheduler
+ * Cấu hình cho Spring Scheduler.
+ * Số thread của scheduler được đặt bằng spring.task.scheduling.pool.size (application.yml)
  */
 @Configuration
 @EnableScheduling
@@ -0,0 +1,49 @@
+package com.ticket.servermono.ticketcontext.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.MaintenanceMarkerRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Job tính lại sold_count của các hạng vé từ bảng tickets khi khởi động.
+ * Chạy đúng một lần cho mỗi database: lần khởi động đầu tiên sau khi thêm cột sold_count giành marker
+ * trong maintenance_markers và backfill trong cùng transaction, các lần khởi động sau bỏ qua. Nếu backfill lỗi
+ * thì marker cũng rollback và lần khởi động sau chạy lại.
+ * app.inventory.reconcile-sold-count=true ép chạy lại khi cần sửa dữ liệu lệch.
+ */
+@Slf4j
+@Configuration
+public class SoldCountReconciliationInitializer {
+
+    private static final String MARKER = "ticket_classes.sold_count.backfill";
+
+    @Bean
+    @Order(5) // Run after TicketPurchaseDataInitializer which is Order(4)
+    CommandLineRunner reconcileTicketClassSoldCounts(TicketClassRepository ticketClassRepository,
+                                                     MaintenanceMarkerRepository maintenanceMarkerRepository,
+                                                     TransactionTemplate transactionTemplate,
+                                                     @Value("${app.inventory.reconcile-sold-count:false}") boolean force) {
+        return args -> {
+            Integer updated = transactionTemplate.execute(status -> {
+                boolean firstRun = maintenanceMarkerRepository.claim(MARKER) == 1;
+                if (!firstRun && !force) {
+                    return null;
+                }
+                log.info("Reconciling sold_count of ticket classes from tickets table ({})...",
+                        firstRun ? "first run" : "forced");
+                return ticketClassRepository.reconcileSoldCounts();
+            });
+            if (updated != null) {
+                log.info("Reconciled sold_count for {} ticket classes", updated);
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.ticket.servermono.ticketcontext.infrastructure.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.entities.Ticket;
+import com.ticket.servermono.ticketcontext.entities.TicketClass;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketBulkInsertRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmark thời gian ghi vé cho một đơn 1, 10, 100 và 1000 vé:
+ * ticketRepository.saveAll (mỗi vé một INSERT) so với TicketBulkInsertRepository (JDBC batch).
+ * Mỗi lượt chạy trong một transaction bị rollback nên không để lại dữ liệu.
+ * Bật bằng app.benchmark.ticket-insert=true, cần ít nhất một hạng vé và một hóa đơn trong DB.
+ */
+@Slf4j
+@Configuration
+public class TicketInsertBenchmark {
+
+    private static final int[] ORDER_SIZES = {1, 10, 100, 1000};
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Bean
+    @Order(10)
+    @ConditionalOnProperty(name = "app.benchmark.ticket-insert", havingValue = "true")
+    CommandLineRunner runTicketInsertBenchmark(TicketClassRepository ticketClassRepository,
+                                               InvoiceRepository invoiceRepository,
+                                               TicketRepository ticketRepository,
+                                               TicketBulkInsertRepository ticketBulkInsertRepository,
+                                               EntityManager entityManager,
+                                               TransactionTemplate transactionTemplate) {
+        return args -> {
+            Optional<TicketClass> ticketClass = ticketClassRepository.findAll(PageRequest.of(0, 1)).stream().findFirst();
+            Optional<Invoice> invoice = invoiceRepository.findAll(PageRequest.of(0, 1)).stream().findFirst();
+            if (ticketClass.isEmpty() || invoice.isEmpty()) {
+                log.warn("Ticket insert benchmark skipped: need at least one ticket class and one invoice");
+                return;
+            }
+
+            log.info("Ticket insert benchmark ({} rounds, average ms per order):", MEASURED_ROUNDS);
+            log.info(String.format("%8s %14s %14s", "tickets", "saveAll", "jdbc batch"));
+
+            for (int size : ORDER_SIZES) {
+                double jpa = measure(transactionTemplate, () -> {
+                    List<Ticket> tickets = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        tickets.add(new Ticket(ticketClass.get(), invoice.get()));
+                    }
+                    ticketRepository.saveAll(tickets);
+                    entityManager.flush();
+                });
+                double bulk = measure(transactionTemplate, () ->
+                        ticketBulkInsertRepository.insertTickets(ticketClass.get(), invoice.get(), null, size));
+
+                log.info(String.format("%8d %14.2f %14.2f", size, jpa, bulk));
+            }
+        };
+    }
+
+    private static double measure(TransactionTemplate transactionTemplate, Runnable insert) {
+        long totalNanos = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long elapsed = transactionTemplate.execute(status -> {
+                long start = System.nanoTime();
+                insert.run();
+                long nanos = System.nanoTime() - start;
+                status.setRollbackOnly();
+                return nanos;
+            });
+            if (round >= WARMUP_ROUNDS) {
+                totalNanos += elapsed;
+            }
+        }
+        return totalNanos / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ticket.servermono.ticketcontext.infrastructure.events;
+
+import java.util.UUID;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Event được phát ra sau mỗi lượt cho vào phòng chờ của một show, để cập nhật vị trí cho client
+ */
+public class WaitingRoomAdvancedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UUID showId;
+
+    public WaitingRoomAdvancedEvent(UUID showId) {
+        super(showId);
+        this.showId = showId;
+    }
+
+    public UUID getShowId() {
+        return showId;
+    }
+}
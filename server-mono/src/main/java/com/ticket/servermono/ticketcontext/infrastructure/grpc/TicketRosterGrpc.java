@@ -0,0 +1,142 @@
+package com.ticket.servermono.ticketcontext.infrastructure.grpc;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ticket.servermono.common.grpc.CallerIdentityInterceptor;
+import com.ticket.servermono.ticketcontext.adapters.dtos.TicketWithRecipientInfoResponse;
+import com.ticket.servermono.ticketcontext.usecases.ShowRosterStreamService;
+import com.ticket.servermono.ticketcontext.usecases.TicketServices;
+
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import ticket.RosterTicket;
+import ticket.ShowRosterChunk;
+import ticket.ShowRosterRequest;
+import ticket.TicketRosterServicesGrpc.TicketRosterServicesImplBase;
+
+/**
+ * Danh sách vé kèm thông tin người mua của một show; chỉ người tạo show được xem,
+ * giống endpoint HTTP /tickets/export. Người gọi gửi JWT qua metadata (xem CallerIdentityInterceptor).
+ */
+@Slf4j
+@GrpcService(interceptors = CallerIdentityInterceptor.class)
+@RequiredArgsConstructor
+public class TicketRosterGrpc extends TicketRosterServicesImplBase {
+
+    private static final long READY_POLL_MS = 100;
+
+    private final ShowRosterStreamService showRosterStreamService;
+    private final TicketServices ticketServices;
+
+    @Override
+    public void streamShowRoster(ShowRosterRequest request, StreamObserver<ShowRosterChunk> responseObserver) {
+        ServerCallStreamObserver<ShowRosterChunk> observer = (ServerCallStreamObserver<ShowRosterChunk>) responseObserver;
+        Context context = Context.current();
+
+        ReentrantLock lock = new ReentrantLock();
+        Condition ready = lock.newCondition();
+        Runnable signal = () -> {
+            lock.lock();
+            try {
+                ready.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        };
+        observer.setOnReadyHandler(signal);
+        observer.setOnCancelHandler(signal);
+
+        UUID showId;
+        try {
+            showId = UUID.fromString(request.getShowId());
+        } catch (IllegalArgumentException e) {
+            observer.onError(Status.INVALID_ARGUMENT.withDescription("Invalid show ID: " + request.getShowId()).asRuntimeException());
+            return;
+        }
+
+        UUID callerId = CallerIdentityInterceptor.CALLER_ID.get();
+        try {
+            if (!ticketServices.checkUserAuthorizationForShow(callerId, showId)) {
+                log.warn("User {} is not authorized to stream roster of show {}", callerId, showId);
+                observer.onError(Status.PERMISSION_DENIED
+                        .withDescription("User is not authorized to access tickets for this show").asRuntimeException());
+                return;
+            }
+            long sent = showRosterStreamService.streamRoster(showId, request.getChunkSize(), chunk -> {
+                awaitReady(observer, context, lock, ready);
+                observer.onNext(toChunk(chunk));
+            });
+            observer.onCompleted();
+            log.info("Roster stream for show {} completed: {} tickets", showId, sent);
+        } catch (EntityNotFoundException e) {
+            observer.onError(Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException());
+        } catch (CancellationException e) {
+            log.info("Roster stream for show {} cancelled by client", showId);
+        } catch (Exception e) {
+            log.error("Error streaming roster for show {}: {}", showId, e.getMessage(), e);
+            observer.onError(Status.INTERNAL.withDescription("Failed to stream roster").asRuntimeException());
+        }
+    }
+
+    /**
+     * Chờ tới khi transport sẵn sàng nhận thêm (flow control của HTTP/2) để không dồn chunk vào bộ đệm.
+     * onReady được phát trên cùng executor của call nên có thể đến trễ; isReady() được kiểm tra lại theo chu kỳ.
+     */
+    private static void awaitReady(ServerCallStreamObserver<?> observer, Context context,
+                                   ReentrantLock lock, Condition ready) {
+        lock.lock();
+        try {
+            while (!observer.isReady()) {
+                if (observer.isCancelled() || context.isCancelled()) {
+                    throw new CancellationException("Client cancelled roster stream");
+                }
+                ready.await(READY_POLL_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for client");
+        } finally {
+            lock.unlock();
+        }
+        if (observer.isCancelled() || context.isCancelled()) {
+            throw new CancellationException("Client cancelled roster stream");
+        }
+    }
+
+    private static ShowRosterChunk toChunk(List<TicketWithRecipientInfoResponse> rows) {
+        ShowRosterChunk.Builder chunk = ShowRosterChunk.newBuilder();
+        for (TicketWithRecipientInfoResponse row : rows) {
+            chunk.addTickets(RosterTicket.newBuilder()
+                    .setTicketId(row.getTicketId().toString())
+                    .setTicketType(nullToEmpty(row.getTicketType()))
+                    .setTicketPrice(row.getTicketPrice())
+                    .setShowDate(nullToEmpty(row.getShowDate()))
+                    .setShowTime(nullToEmpty(row.getShowTime()))
+                    .setOccaTitle(nullToEmpty(row.getOccaTitle()))
+                    .setRecipientName(nullToEmpty(row.getRecipientName()))
+                    .setRecipientEmail(nullToEmpty(row.getRecipientEmail()))
+                    .setRecipientPhone(nullToEmpty(row.getRecipientPhone()))
+                    .setCheckedInAt(nullToEmpty(row.getCheckedInAt()))
+                    .setPurchasedAt(row.getPurchasedAt() != null ? row.getPurchasedAt().toString() : "")
+                    .setInvoiceId(row.getInvoiceId().toString())
+                    .setPaymentId(nullToEmpty(row.getPaymentId()))
+                    .build());
+        }
+        return chunk.build();
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,58 @@
+package com.ticket.servermono.ticketcontext.infrastructure.kafka;
+
+import java.util.UUID;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.ticketcontext.infrastructure.cache.OccaMetadataCache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Xóa near-cache metadata show/occa khi occa-service phát sự kiện thay đổi.
+ * Mỗi instance dùng group id riêng để instance nào cũng nhận được sự kiện,
+ * và chỉ đọc từ offset mới nhất vì cache rỗng lúc khởi động.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OccaMetadataInvalidationConsumer {
+
+    private static final String GROUP_ID = "occa-metadata-cache-#{T(java.util.UUID).randomUUID().toString()}";
+
+    private final OccaMetadataCache metadataCache;
+
+    @KafkaListener(topics = "update-next-show-datetime", groupId = GROUP_ID,
+            properties = "auto.offset.reset=latest")
+    public void handleShowChanged(String occaId) {
+        invalidateOcca(occaId);
+    }
+
+    @KafkaListener(topics = "occa-updated", groupId = GROUP_ID,
+            properties = "auto.offset.reset=latest")
+    public void handleOccaUpdated(String occaId) {
+        invalidateOcca(occaId);
+    }
+
+    @KafkaListener(topics = "cascade-delete-show", groupId = GROUP_ID,
+            properties = "auto.offset.reset=latest")
+    public void handleShowDeleted(String showId) {
+        try {
+            metadataCache.invalidateShow(UUID.fromString(showId));
+            log.debug("Invalidated cached show {}", showId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid show ID in cache invalidation event: {}", showId);
+        }
+    }
+
+    private void invalidateOcca(String occaId) {
+        try {
+            metadataCache.invalidateOcca(UUID.fromString(occaId));
+            log.debug("Invalidated cached occa {} and its shows", occaId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid occa ID in cache invalidation event: {}", occaId);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ticket.servermono.ticketcontext.infrastructure.kafka;
+
+import java.util.Map;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.ticketcontext.usecases.RevenueRollupService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cộng hóa đơn vừa thanh toán vào revenue_daily khi nhận payment.success.
+ * Group id riêng (không dùng chung với ticket-processor) để cả hai cùng nhận mọi event.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevenueRollupConsumer {
+
+    private final RevenueRollupService revenueRollupService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "payment.success", groupId = "revenue-rollup")
+    public void handlePaymentSuccess(String jsonEvent) {
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> event = objectMapper.readValue(jsonEvent, Map.class);
+            String paymentId = (String) event.get("paymentId");
+            if (paymentId == null) {
+                log.warn("Event payment.success không có paymentId");
+                return;
+            }
+            boolean applied = revenueRollupService.applyPayment(paymentId);
+            log.debug("Revenue rollup cho paymentId {}: {}", paymentId, applied ? "đã cộng" : "bỏ qua");
+        } catch (Exception e) {
+            // Hóa đơn bị bỏ sót sẽ được job đối soát cộng lại
+            log.error("Lỗi khi tổng hợp doanh thu từ event thanh toán: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ticket.servermono.ticketcontext.adapters.dtos.TicketClassCreateDTO;
 import com.ticket.servermono.ticketcontext.entities.TicketClass;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassBucketRepository;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -21,6 +22,7 @@ import java.util.UUID;
 public class TicketClassCreationConsumer {
 
     private final TicketClassRepository ticketClassRepository;
+    private final TicketClassBucketRepository ticketClassBucketRepository;
     private final ObjectMapper objectMapper;
 
     @Transactional
@@ -32,7 +34,8 @@ public class TicketClassCreationConsumer {
             // Deserialize message to UUID
             UUID showId = UUID.fromString(message);
             
-            // Xóa tất cả ticket class liên quan đến show
+            // Xóa các bucket (sharded inventory) rồi tất cả ticket class liên quan đến show
+            ticketClassBucketRepository.deleteAllByShowId(showId);
             ticketClassRepository.deleteAllByShowId(showId);
             log.info("Deleted all ticket classes for show with ID: {}", showId);
         } catch (Exception e) {
@@ -17,6 +17,7 @@ import com.ticket.servermono.ticketcontext.entities.TicketClass;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
 import com.ticket.servermono.ticketcontext.usecases.PaymentStatusNotifier;
+import com.ticket.servermono.ticketcontext.usecases.ShardedInventoryService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,6 +33,7 @@ public class TicketLockEventConsumer {
     private final TicketClassRepository ticketClassRepository;
     private final InvoiceRepository invoiceRepository;
     private final PaymentStatusNotifier statusNotifier;
+    private final ShardedInventoryService shardedInventoryService;
     private final ObjectMapper objectMapper;
 
     /**
@@ -56,6 +58,11 @@ public class TicketLockEventConsumer {
                 return;
             }
             
+            // Trả các vé được giữ từ bucket về đúng bucket (sharded inventory)
+            @SuppressWarnings("unchecked")
+            Map<String, Integer> bucketAllocations = (Map<String, Integer>) event.get("bucketAllocations");
+            Map<UUID, Integer> returnedToBuckets = shardedInventoryService.giveBack(bucketAllocations);
+            
             // Thu thập tất cả ticketClassId để áp dụng pessimistic lock
             List<UUID> ticketClassIds = ticketDetails.keySet().stream()
                 .map(UUID::fromString)
@@ -71,7 +78,11 @@ public class TicketLockEventConsumer {
             // Cập nhật lockedCapacity cho mỗi ticket class
             for (Map.Entry<String, Integer> entry : ticketDetails.entrySet()) {
                 UUID ticketClassId = UUID.fromString(entry.getKey());
-                int quantity = entry.getValue();
+                // Phần đã trả về bucket không còn nằm trong lockedCapacity của hạng vé
+                int quantity = entry.getValue() - returnedToBuckets.getOrDefault(ticketClassId, 0);
+                if (quantity <= 0) {
+                    continue;
+                }
                 
                 TicketClass ticketClass = ticketClassMap.get(ticketClassId);
                 
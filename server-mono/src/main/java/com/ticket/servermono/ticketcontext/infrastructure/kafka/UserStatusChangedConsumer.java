@@ -0,0 +1,35 @@
+package com.ticket.servermono.ticketcontext.infrastructure.kafka;
+
+import java.util.UUID;
+
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.ticketcontext.grpc.UserGrpcClient;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Xóa user khỏi cache tồn tại của UserGrpcClient khi authcontext đổi trạng thái user.
+ * Group id riêng cho mỗi instance để instance nào cũng nhận được sự kiện.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserStatusChangedConsumer {
+
+    private final UserGrpcClient userGrpcClient;
+
+    @KafkaListener(topics = "user-status-changed",
+            groupId = "user-exists-cache-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = "auto.offset.reset=latest")
+    public void handleUserStatusChanged(String userId) {
+        try {
+            userGrpcClient.invalidate(UUID.fromString(userId));
+            log.debug("Invalidated cached existence of user {}", userId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid user ID in user status event: {}", userId);
+        }
+    }
+}
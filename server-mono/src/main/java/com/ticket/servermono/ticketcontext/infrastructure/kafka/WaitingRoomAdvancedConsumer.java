@@ -0,0 +1,39 @@
+package com.ticket.servermono.ticketcontext.infrastructure.kafka;
+
+import java.util.UUID;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.ticketcontext.infrastructure.events.WaitingRoomAdvancedEvent;
+import com.ticket.servermono.ticketcontext.usecases.WaitingRoomService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Phát lại sự kiện hàng chờ dịch chuyển thành event nội bộ trên mọi node khi dùng store=db,
+ * vì client có thể giữ WebSocket ở node khác với node vừa cho vào.
+ * Mỗi instance dùng group id riêng và chỉ đọc từ offset mới nhất: sự kiện cũ không còn ý nghĩa.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.waiting-room.store", havingValue = "db")
+public class WaitingRoomAdvancedConsumer {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @KafkaListener(topics = WaitingRoomService.WAITING_ROOM_ADVANCED_TOPIC,
+            groupId = "waiting-room-advanced-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = "auto.offset.reset=latest")
+    public void handleAdvanced(String showId) {
+        try {
+            eventPublisher.publishEvent(new WaitingRoomAdvancedEvent(UUID.fromString(showId)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid show ID in waiting room event: {}", showId);
+        }
+    }
+}
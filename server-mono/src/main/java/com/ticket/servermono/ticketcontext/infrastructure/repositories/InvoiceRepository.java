@@ -1,6 +1,7 @@
 package com.ticket.servermono.ticketcontext.infrastructure.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -8,6 +9,9 @@ import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
@@ -16,10 +20,84 @@ import com.ticket.servermono.ticketcontext.entities.Invoice;
 @Repository
 public interface InvoiceRepository extends JpaRepository<Invoice, UUID> {    
     Optional<Invoice> findByPaymentId(String paymentId);
+
+    List<Invoice> findByPaymentIdIn(Collection<String> paymentIds);
     
     List<Invoice> findByStatusAndExpiresAtBefore(PaymentStatus status, LocalDateTime dateTime);
     
     List<Invoice> findByStatus(PaymentStatus status);
+
+    /**
+     * Tổng tiền theo show trong khoảng thời gian, tính trong DB (index idx_invoices_status_show_created)
+     * Returns Object[] { showId (UUID), amount (Double) }
+     */
+    @Query("SELECT i.showId, SUM(i.soTien) FROM Invoice i " +
+           "WHERE i.status = :status AND i.showId IN :showIds AND i.createdAt BETWEEN :from AND :to " +
+           "GROUP BY i.showId")
+    List<Object[]> sumAmountByShow(@Param("status") PaymentStatus status,
+                                   @Param("showIds") Collection<UUID> showIds,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    /**
+     * Tổng tiền theo ngày tạo hóa đơn trong khoảng thời gian, tính trong DB (index idx_invoices_status_show_created)
+     * Returns Object[] { day (LocalDate), amount (Double) }
+     */
+    @Query("SELECT CAST(i.createdAt AS LocalDate), SUM(i.soTien) FROM Invoice i " +
+           "WHERE i.status = :status AND i.showId IN :showIds AND i.createdAt BETWEEN :from AND :to " +
+           "GROUP BY CAST(i.createdAt AS LocalDate)")
+    List<Object[]> sumAmountByDay(@Param("status") PaymentStatus status,
+                                  @Param("showIds") Collection<UUID> showIds,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    /**
+     * Hóa đơn theo trạng thái chưa được cộng vào revenue_daily (dùng cho backfill/đối soát),
+     * phân trang theo id (keyset): trang sau bắt đầu sau id cuối của trang trước, kể cả khi trang trước không cộng được hóa đơn nào
+     */
+    @Query("SELECT i FROM Invoice i WHERE i.status = :status AND i.showId IS NOT NULL AND i.createdAt IS NOT NULL " +
+           "AND i.id > :afterId " +
+           "AND NOT EXISTS (SELECT 1 FROM RevenueDailyInvoice r WHERE r.invoiceId = i.id) ORDER BY i.id")
+    List<Invoice> findNotRolledUpByStatus(@Param("status") PaymentStatus status,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable pageable);
+
+    /**
+     * Lấy paymentId và expiresAt của các hóa đơn theo trạng thái, không tải cả entity
+     * @return danh sách [paymentId, expiresAt]
+     */
+    @Query("SELECT i.paymentId, i.expiresAt FROM Invoice i WHERE i.status = :status AND i.expiresAt IS NOT NULL")
+    List<Object[]> findPaymentIdAndExpiresAtByStatus(@Param("status") PaymentStatus status);
+
+    /**
+     * Lấy mã tham chiếu chuyển khoản và paymentId của các hóa đơn theo trạng thái
+     * @return danh sách [noiDung, paymentId]
+     */
+    @Query("SELECT i.noiDung, i.paymentId FROM Invoice i WHERE i.status = :status")
+    List<Object[]> findNoiDungAndPaymentIdByStatus(@Param("status") PaymentStatus status);
+
+    /**
+     * Chuyển hóa đơn sang PAYMENT_EXPIRED nếu nó vẫn đang chờ thanh toán.
+     * Trả về 0 nếu hóa đơn đã được thanh toán/hủy/hết hạn trước đó, nên an toàn khi gọi nhiều lần.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET i.status = com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus.PAYMENT_EXPIRED, " +
+           "i.version = i.version + 1 " +
+           "WHERE i.paymentId = :paymentId " +
+           "AND i.status = com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus.WAITING_PAYMENT")
+    int expireIfWaitingPayment(@Param("paymentId") String paymentId);
+
+    /**
+     * Chuyển hóa đơn sang PAYMENT_SUCCESS nếu nó vẫn đang chờ thanh toán.
+     * Cùng điều kiện với expireIfWaitingPayment nên thanh toán và hết hạn không thể cùng thắng một hóa đơn.
+     * @return 1 nếu vừa chuyển, 0 nếu hóa đơn đã ở trạng thái khác
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Invoice i SET i.status = com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus.PAYMENT_SUCCESS, " +
+           "i.version = i.version + 1 " +
+           "WHERE i.paymentId = :paymentId " +
+           "AND i.status = com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus.WAITING_PAYMENT")
+    int markPaidIfWaitingPayment(@Param("paymentId") String paymentId);
     
     List<Invoice> findByStatusAndShowId(PaymentStatus status, UUID showId);
     
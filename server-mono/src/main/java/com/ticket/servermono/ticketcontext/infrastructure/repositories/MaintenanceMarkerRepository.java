@@ -0,0 +1,22 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.ticketcontext.entities.MaintenanceMarker;
+
+@Repository
+public interface MaintenanceMarkerRepository extends JpaRepository<MaintenanceMarker, String> {
+
+    /**
+     * Giành quyền chạy một job bảo trì. Instance khác chạy cùng lúc sẽ chờ khóa của dòng này
+     * đến khi transaction giành được commit (hoặc rollback) rồi mới nhận kết quả
+     * @return 1 nếu vừa giành được, 0 nếu job đã được chạy trước đó
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO maintenance_markers (name, applied_at) VALUES (:name, NOW())", nativeQuery = true)
+    int claim(@Param("name") String name);
+}
@@ -0,0 +1,29 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.ticketcontext.entities.RevenueDailyInvoice;
+
+@Repository
+public interface RevenueDailyInvoiceRepository extends JpaRepository<RevenueDailyInvoice, UUID> {
+
+    /**
+     * Đánh dấu hóa đơn đã được tổng hợp
+     * @return 1 nếu vừa đánh dấu, 0 nếu hóa đơn đã được tổng hợp trước đó
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO revenue_daily_invoices (invoice_id, show_id, day, amount, tickets, applied_at) " +
+                   "VALUES (:invoiceId, :showId, :day, :amount, :tickets, NOW())", nativeQuery = true)
+    int markApplied(@Param("invoiceId") UUID invoiceId,
+                    @Param("showId") UUID showId,
+                    @Param("day") LocalDate day,
+                    @Param("amount") double amount,
+                    @Param("tickets") int tickets);
+}
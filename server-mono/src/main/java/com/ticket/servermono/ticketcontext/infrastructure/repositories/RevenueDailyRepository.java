@@ -0,0 +1,51 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.ticketcontext.entities.RevenueDaily;
+
+@Repository
+public interface RevenueDailyRepository extends JpaRepository<RevenueDaily, RevenueDaily.Key> {
+
+    /**
+     * Cộng một hóa đơn vào dòng (show, ngày), tạo dòng nếu chưa có
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revenue_daily (show_id, day, amount, orders, tickets, updated_at) " +
+                   "VALUES (:showId, :day, :amount, 1, :tickets, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), orders = orders + 1, " +
+                   "tickets = tickets + VALUES(tickets), updated_at = NOW()", nativeQuery = true)
+    int addInvoice(@Param("showId") UUID showId,
+                   @Param("day") LocalDate day,
+                   @Param("amount") double amount,
+                   @Param("tickets") int tickets);
+
+    /**
+     * Doanh thu theo show trong khoảng ngày
+     * Returns Object[] { showId (UUID), amount (Double) }
+     */
+    @Query("SELECT r.showId, SUM(r.amount) FROM RevenueDaily r " +
+           "WHERE r.showId IN :showIds AND r.day BETWEEN :from AND :to GROUP BY r.showId")
+    List<Object[]> sumAmountByShow(@Param("showIds") Collection<UUID> showIds,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    /**
+     * Doanh thu theo ngày của một tập show
+     * Returns Object[] { day (LocalDate), amount (Double) }
+     */
+    @Query("SELECT r.day, SUM(r.amount) FROM RevenueDaily r " +
+           "WHERE r.showId IN :showIds AND r.day BETWEEN :from AND :to GROUP BY r.day")
+    List<Object[]> sumAmountByDay(@Param("showIds") Collection<UUID> showIds,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+}
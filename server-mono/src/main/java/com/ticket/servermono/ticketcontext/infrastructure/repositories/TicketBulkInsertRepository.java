@@ -0,0 +1,105 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.common.utils.SecurityUtils;
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.entities.Ticket;
+import com.ticket.servermono.ticketcontext.entities.TicketClass;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ghi hàng loạt vé bằng JDBC batch thay cho ticketRepository.saveAll.
+ * ID được sinh sẵn và các vé không đi qua persistence context, nên không có
+ * một INSERT cho mỗi vé và không có dirty checking khi commit.
+ * Với MySQL, thêm rewriteBatchedStatements=true vào DB_URL để driver gộp batch thành INSERT nhiều dòng.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TicketBulkInsertRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO tickets (id, ticket_class_id, invoice_id, end_user_id, checked_in_at, " +
+            "created_at, updated_at, version, created_by, updated_by) " +
+            "VALUES (?, ?, ?, ?, NULL, ?, ?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.inventory.ticket-insert-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Tạo quantity vé của một hạng vé, gắn với hóa đơn và người dùng (có thể null)
+     * @return các vé vừa tạo (đã có ID, không được quản lý bởi persistence context)
+     */
+    public List<Ticket> insertTickets(TicketClass ticketClass, Invoice invoice, UUID endUserId, int quantity) {
+        // Hóa đơn có thể vừa được save trong cùng transaction nhưng chưa flush
+        entityManager.flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        UUID createdBy = SecurityUtils.getCurrentUserId();
+
+        List<Ticket> tickets = new ArrayList<>(quantity);
+        for (int i = 0; i < quantity; i++) {
+            Ticket ticket = new Ticket(ticketClass, invoice);
+            ticket.setId(UUID.randomUUID());
+            ticket.setEndUserId(endUserId);
+            ticket.setCreatedAt(now);
+            ticket.setUpdatedAt(now);
+            ticket.setVersion(0L);
+            ticket.setCreatedBy(createdBy);
+            ticket.setUpdatedBy(createdBy);
+            tickets.add(ticket);
+        }
+
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_SQL, tickets, batchSize, (ps, ticket) -> {
+            ps.setBytes(1, toBytes(ticket.getId()));
+            ps.setBytes(2, toBytes(ticketClass.getId()));
+            ps.setBytes(3, toBytes(invoice.getId()));
+            setNullableUuid(ps, 4, endUserId);
+            ps.setTimestamp(5, timestamp);
+            ps.setTimestamp(6, timestamp);
+            setNullableUuid(ps, 7, createdBy);
+            setNullableUuid(ps, 8, createdBy);
+        });
+
+        return tickets;
+    }
+
+    private static void setNullableUuid(PreparedStatement ps, int index, UUID value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.BINARY);
+        } else {
+            ps.setBytes(index, toBytes(value));
+        }
+    }
+
+    /**
+     * Hibernate lưu UUID trên MySQL dưới dạng BINARY(16)
+     */
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
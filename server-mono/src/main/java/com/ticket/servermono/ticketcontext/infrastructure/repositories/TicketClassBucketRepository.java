@@ -0,0 +1,76 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.ticketcontext.entities.TicketClassBucket;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface TicketClassBucketRepository extends JpaRepository<TicketClassBucket, UUID> {
+
+    /**
+     * Lấy số vé còn trống của từng bucket (đọc trực tiếp từ DB, không qua persistence context)
+     * Returns Object[] { bucketIndex (Integer), available (Integer) }
+     */
+    @Query("SELECT b.bucketIndex, b.available FROM TicketClassBucket b " +
+           "WHERE b.ticketClassId = :ticketClassId ORDER BY b.bucketIndex")
+    List<Object[]> findAvailabilityByTicketClassId(@Param("ticketClassId") UUID ticketClassId);
+
+    @Query("SELECT COALESCE(SUM(b.available), 0) FROM TicketClassBucket b WHERE b.ticketClassId = :ticketClassId")
+    Long sumAvailableByTicketClassId(@Param("ticketClassId") UUID ticketClassId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM TicketClassBucket b WHERE b.ticketClassId = :ticketClassId ORDER BY b.bucketIndex")
+    List<TicketClassBucket> findByTicketClassIdWithPessimisticLock(@Param("ticketClassId") UUID ticketClassId);
+
+    /**
+     * Lấy vé từ một bucket nếu bucket còn đủ
+     * @return 1 nếu thành công, 0 nếu bucket không đủ vé
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClassBucket b SET b.available = b.available - :quantity " +
+           "WHERE b.ticketClassId = :ticketClassId AND b.bucketIndex = :bucketIndex AND b.available >= :quantity")
+    int tryTake(@Param("ticketClassId") UUID ticketClassId,
+                @Param("bucketIndex") int bucketIndex,
+                @Param("quantity") int quantity);
+
+    /**
+     * Trả vé về đúng bucket đã cấp phát
+     * @return 1 nếu bucket còn tồn tại, 0 nếu không
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClassBucket b SET b.available = b.available + :quantity " +
+           "WHERE b.ticketClassId = :ticketClassId AND b.bucketIndex = :bucketIndex")
+    int giveBack(@Param("ticketClassId") UUID ticketClassId,
+                 @Param("bucketIndex") int bucketIndex,
+                 @Param("quantity") int quantity);
+
+    /**
+     * Các hạng vé có bucket bị lệch nhiều (bucket nhỏ nhất còn chưa tới một nửa bucket lớn nhất)
+     * và còn đủ vé để mỗi bucket có ít nhất một vé
+     */
+    @Query("SELECT b.ticketClassId FROM TicketClassBucket b GROUP BY b.ticketClassId " +
+           "HAVING MIN(b.available) * 2 < MAX(b.available) AND SUM(b.available) >= COUNT(b)")
+    List<UUID> findTicketClassIdsNeedingRebalance();
+
+    @Query("SELECT DISTINCT b.ticketClassId FROM TicketClassBucket b")
+    List<UUID> findShardedTicketClassIds();
+
+    @Modifying
+    @Query("DELETE FROM TicketClassBucket b WHERE b.ticketClassId = :ticketClassId")
+    void deleteAllByTicketClassId(@Param("ticketClassId") UUID ticketClassId);
+
+    @Modifying
+    @Query("DELETE FROM TicketClassBucket b WHERE b.ticketClassId IN " +
+           "(SELECT tc.id FROM TicketClass tc WHERE tc.showId = :showId)")
+    void deleteAllByShowId(@Param("showId") UUID showId);
+}
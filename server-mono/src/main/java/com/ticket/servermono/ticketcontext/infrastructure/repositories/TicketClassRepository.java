@@ -2,6 +2,7 @@ package com.ticket.servermono.ticketcontext.infrastructure.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -34,4 +35,54 @@ public interface TicketClassRepository extends JpaRepository<TicketClass, UUID>
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT tc FROM TicketClass tc WHERE tc.id IN :ids")
     List<TicketClass> findAllByIdWithPessimisticLock(@Param("ids") Collection<UUID> ids);
+    
+    /**
+     * Giữ chỗ vé bằng một câu UPDATE có điều kiện, không cần SELECT ... FOR UPDATE
+     * @return 1 nếu giữ chỗ thành công, 0 nếu không đủ vé hoặc không tìm thấy hạng vé
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClass tc SET tc.lockedCapacity = tc.lockedCapacity + :quantity " +
+           "WHERE tc.id = :id AND tc.capacity - tc.soldCount - tc.lockedCapacity >= :quantity")
+    int tryReserveCapacity(@Param("id") UUID id, @Param("quantity") int quantity);
+    
+    /**
+     * Đánh dấu hạng vé là đã chia bucket, chỉ thành công với transaction đầu tiên
+     * @return 1 nếu transaction này giành được quyền chia bucket, 0 nếu đã chia trước đó
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClass tc SET tc.shardCount = :shardCount WHERE tc.id = :id AND tc.shardCount = 0")
+    int claimForSharding(@Param("id") UUID id, @Param("shardCount") int shardCount);
+    
+    @Query("SELECT tc.capacity - tc.soldCount - tc.lockedCapacity FROM TicketClass tc WHERE tc.id = :id")
+    Integer findUnlockedCapacity(@Param("id") UUID id);
+    
+    @Query("SELECT tc.shardCount FROM TicketClass tc WHERE tc.id = :id")
+    Integer findShardCount(@Param("id") UUID id);
+    
+    /**
+     * Cộng (hoặc trừ nếu âm) lockedCapacity, dùng khi chuyển vé trống vào/ra các bucket
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClass tc SET tc.lockedCapacity = tc.lockedCapacity + :delta WHERE tc.id = :id")
+    int adjustLockedCapacity(@Param("id") UUID id, @Param("delta") int delta);
+    
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClass tc SET tc.shardCount = 0 WHERE tc.id = :id")
+    int clearSharding(@Param("id") UUID id);
+    
+    /**
+     * Tăng số vé đã bán của một hạng vé một cách nguyên tử
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE TicketClass tc SET tc.soldCount = tc.soldCount + :quantity WHERE tc.id = :id")
+    int incrementSoldCount(@Param("id") UUID id, @Param("quantity") int quantity);
+    
+    /**
+     * Tính lại sold_count của tất cả hạng vé từ bảng tickets
+     * @return số hạng vé được cập nhật
+     */
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE ticket_classes tc SET tc.sold_count = " +
+                   "(SELECT COUNT(*) FROM tickets t WHERE t.ticket_class_id = tc.id)", nativeQuery = true)
+    int reconcileSoldCounts();
 }
\ No newline at end of file
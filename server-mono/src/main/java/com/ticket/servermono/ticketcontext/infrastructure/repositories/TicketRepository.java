@@ -4,13 +4,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.ticket.servermono.ticketcontext.entities.Ticket;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, UUID> {
@@ -29,6 +34,24 @@ public interface TicketRepository extends JpaRepository<Ticket, UUID> {
            countQuery = "SELECT COUNT(t) FROM Ticket t JOIN t.ticketClass tc JOIN t.invoice i " +
                         "WHERE tc.showId = :showId AND i.status = 'PAYMENT_SUCCESS'")
     Page<Ticket> findByTicketClassShowIdAndInvoicePaid(@Param("showId") UUID showId, Pageable pageable);
+
+    /**
+     * Đọc danh sách vé đã thanh toán của một show theo cursor chỉ đi tiến (MySQL streaming result set),
+     * trả về cột thay vì entity để persistence context không phình theo số dòng.
+     * Phải đọc hết và đóng Stream trong transaction.
+     * Mỗi dòng: [ticketId, ticketClassName, price, checkedInAt, purchasedAt, invoiceId, paymentId, name, email, phone]
+     */
+    @QueryHints({
+        // Integer.MIN_VALUE: Connector/J trả từng dòng thay vì nạp toàn bộ result set vào heap
+        @QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    @Query("SELECT t.id, tc.name, tc.price, t.checkedInAt, i.createdAt, i.id, i.paymentId, " +
+           "i.nameCustomer, i.emailReceived, i.phoneCustomer " +
+           "FROM Ticket t JOIN t.ticketClass tc JOIN t.invoice i " +
+           "WHERE tc.showId = :showId AND i.status = 'PAYMENT_SUCCESS' " +
+           "ORDER BY i.createdAt, t.id")
+    Stream<Object[]> streamPaidRosterByShowId(@Param("showId") UUID showId);
     
     List<Ticket> findAllByEndUserIdIsNotNull();/**
      * Calculate total revenue for an occa by summing up the price of all purchased tickets
@@ -55,6 +78,27 @@ public interface TicketRepository extends JpaRepository<Ticket, UUID> {
     Long countTotalSoldTicketsUntilDate(@Param("showIds") List<UUID> showIds,
                                         @Param("endDate") LocalDateTime endDate);
                                         
+    /**
+     * Revenue within the date range and sold tickets up to the end date, per show, in one grouped query
+     * Returns Object[] { showId (UUID), revenue (Double), soldUntilEnd (Long) }
+     */
+    @Query("SELECT tc.showId, " +
+           "SUM(CASE WHEN t.createdAt BETWEEN :startDate AND :endDate THEN tc.price ELSE 0 END), " +
+           "SUM(CASE WHEN t.createdAt <= :endDate THEN 1 ELSE 0 END) " +
+           "FROM Ticket t JOIN t.ticketClass tc " +
+           "WHERE tc.showId IN :showIds AND t.endUserId IS NOT NULL " +
+           "GROUP BY tc.showId")
+    List<Object[]> sumRevenueAndSoldByShowIds(@Param("showIds") Collection<UUID> showIds,
+                                              @Param("startDate") LocalDateTime startDate,
+                                              @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Total capacity per show
+     * Returns Object[] { showId (UUID), capacity (Long) }
+     */
+    @Query("SELECT tc.showId, SUM(tc.capacity) FROM TicketClass tc WHERE tc.showId IN :showIds GROUP BY tc.showId")
+    List<Object[]> sumCapacityByShowIds(@Param("showIds") Collection<UUID> showIds);
+
     /**
      * Get the total capacity for a list of shows
      */    @Query("SELECT SUM(tc.capacity) FROM TicketClass tc WHERE tc.showId IN :showIds")
@@ -0,0 +1,36 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomAdmissionTick;
+
+@Repository
+public interface WaitingRoomAdmissionTickRepository extends JpaRepository<WaitingRoomAdmissionTick, UUID> {
+
+    /**
+     * Giành lượt cho vào của giây tick
+     * @return 1 nếu giành được, 0 nếu node khác đã giành giây này (hoặc show chưa có dòng)
+     */
+    @Modifying
+    @Query("UPDATE WaitingRoomAdmissionTick t SET t.lastTick = :tick WHERE t.showId = :showId AND t.lastTick < :tick")
+    int claimTick(@Param("showId") UUID showId, @Param("tick") long tick);
+
+    /**
+     * Tạo dòng cho show lần đầu và giành luôn giây tick
+     * @return 1 nếu vừa tạo, 0 nếu dòng đã tồn tại
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO waiting_room_admission_ticks (show_id, last_tick) VALUES (:showId, :tick)",
+            nativeQuery = true)
+    int insertClaimed(@Param("showId") UUID showId, @Param("tick") long tick);
+
+    @Modifying
+    @Query("DELETE FROM WaitingRoomAdmissionTick t WHERE t.lastTick < :tick")
+    int deleteByLastTickLessThan(@Param("tick") long tick);
+}
@@ -0,0 +1,71 @@
+package com.ticket.servermono.ticketcontext.infrastructure.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ticket.servermono.ticketcontext.domain.enums.WaitingRoomStatus;
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface WaitingRoomEntryRepository extends JpaRepository<WaitingRoomEntry, UUID> {
+
+    Optional<WaitingRoomEntry> findByQueueToken(String queueToken);
+
+    Optional<WaitingRoomEntry> findByPassToken(String passToken);
+
+    Optional<WaitingRoomEntry> findFirstByShowIdAndUserIdAndStatusInOrderBySequenceDesc(
+            UUID showId, UUID userId, Collection<WaitingRoomStatus> statuses);
+
+    long countByShowIdAndStatusAndSequenceLessThan(UUID showId, WaitingRoomStatus status, Long sequence);
+
+    /**
+     * Sequence của các lượt đang chờ (đã sắp xếp), chỉ đọc từ index nên không chạm tới dòng dữ liệu
+     */
+    @Query("SELECT e.sequence FROM WaitingRoomEntry e WHERE e.showId = :showId AND e.status = 'WAITING' " +
+           "AND e.sequence <= :maxSequence ORDER BY e.sequence")
+    List<Long> findWaitingSequences(@Param("showId") UUID showId, @Param("maxSequence") Long maxSequence);
+
+    @Query("SELECT DISTINCT e.showId FROM WaitingRoomEntry e WHERE e.status = :status")
+    List<UUID> findShowIdsByStatus(@Param("status") WaitingRoomStatus status);
+
+    /**
+     * Lấy các lượt đầu hàng để cho vào, bỏ qua các dòng đang bị node khác khóa (SKIP LOCKED)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints({@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2")})
+    @Query("SELECT e FROM WaitingRoomEntry e WHERE e.showId = :showId AND e.status = 'WAITING' ORDER BY e.sequence")
+    List<WaitingRoomEntry> findHeadOfQueueForAdmission(@Param("showId") UUID showId, Pageable pageable);
+
+    /**
+     * ADMITTED -> USED trong một câu UPDATE có điều kiện: chỉ một request giành được pass
+     */
+    @Modifying
+    @Query("UPDATE WaitingRoomEntry e SET e.status = 'USED' WHERE e.passToken = :passToken " +
+           "AND e.showId = :showId AND e.userId = :userId AND e.status = 'ADMITTED' AND e.passExpiresAt > :now")
+    int claimPass(@Param("showId") UUID showId, @Param("passToken") String passToken,
+                  @Param("userId") UUID userId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE WaitingRoomEntry e SET e.status = 'ADMITTED' WHERE e.passToken = :passToken AND e.status = 'USED'")
+    int releasePass(@Param("passToken") String passToken);
+
+    @Modifying
+    @Query("DELETE FROM WaitingRoomEntry e WHERE e.status = 'USED' " +
+           "OR (e.status = 'ADMITTED' AND e.passExpiresAt < :now)")
+    int deleteFinishedEntries(@Param("now") LocalDateTime now);
+}
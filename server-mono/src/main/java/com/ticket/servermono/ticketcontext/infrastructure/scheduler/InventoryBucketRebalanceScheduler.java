@@ -0,0 +1,51 @@
+package com.ticket.servermono.ticketcontext.infrastructure.scheduler;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.ticketcontext.domain.enums.ReservationMode;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassBucketRepository;
+import com.ticket.servermono.ticketcontext.usecases.ShardedInventoryService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Scheduler cân bằng lại các bucket của sharded inventory khi chúng cạn không đều.
+ * Khi chế độ giữ chỗ không còn là SHARDED, gộp các bucket còn lại về hạng vé.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryBucketRebalanceScheduler {
+
+    private final TicketClassBucketRepository bucketRepository;
+    private final ShardedInventoryService shardedInventoryService;
+
+    @Value("${app.inventory.reservation-mode:PESSIMISTIC}")
+    private ReservationMode reservationMode;
+
+    @Scheduled(fixedDelayString = "${app.inventory.shard-rebalance-interval-ms:2000}")
+    public void rebalanceBuckets() {
+        try {
+            if (reservationMode != ReservationMode.SHARDED) {
+                List<UUID> shardedIds = bucketRepository.findShardedTicketClassIds();
+                for (UUID ticketClassId : shardedIds) {
+                    shardedInventoryService.collapse(ticketClassId);
+                }
+                return;
+            }
+
+            List<UUID> ticketClassIds = bucketRepository.findTicketClassIdsNeedingRebalance();
+            for (UUID ticketClassId : ticketClassIds) {
+                shardedInventoryService.rebalance(ticketClassId);
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi cân bằng lại bucket của sharded inventory: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.ticket.servermono.ticketcontext.infrastructure.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.ticketcontext.usecases.RevenueRollupService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Đối soát revenue_daily: cộng các hóa đơn đã thanh toán mà event payment.success chưa cộng
+ * (dữ liệu có trước bảng tổng hợp, event lỗi/mất, hóa đơn được tạo thẳng ở trạng thái PAYMENT_SUCCESS).
+ * Lượt chạy đầu tiên ngay sau khi khởi động đóng vai trò backfill.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RevenueRollupReconcileScheduler {
+
+    private final RevenueRollupService revenueRollupService;
+
+    @Scheduled(initialDelayString = "${app.revenue-rollup.backfill-initial-delay-ms:10000}",
+            fixedDelayString = "${app.revenue-rollup.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        try {
+            revenueRollupService.backfill();
+        } catch (Exception e) {
+            log.error("Lỗi khi đối soát revenue_daily: {}", e.getMessage(), e);
+        }
+    }
+}
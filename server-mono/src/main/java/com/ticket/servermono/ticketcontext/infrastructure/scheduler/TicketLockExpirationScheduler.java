@@ -3,19 +3,18 @@ package com.ticket.servermono.ticketcontext.infrastructure.scheduler;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
 import com.ticket.servermono.ticketcontext.entities.Invoice;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.PaymentReferenceIndex;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,18 +30,17 @@ public class TicketLockExpirationScheduler {
     private final InvoiceRepository invoiceRepository;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final PaymentReferenceIndex paymentReferenceIndex;
+    private final TransactionTemplate transactionTemplate;
     
     private static final String TICKET_LOCK_EXPIRATION_TOPIC = "ticket.lock.expiration";
 
     /**
-     * Chạy định kỳ mỗi 30 giây để kiểm tra và xử lý các khóa vé đã hết hạn
-     * Cách tiếp cận tối ưu:
-     * 1. Chỉ truy vấn các invoice đang ở trạng thái WAITING_PAYMENT và đã hết hạn
-     * 2. Đánh dấu các invoice này là hết hạn
-     * 3. Gửi sự kiện để xử lý giải phóng khóa vé trong một quá trình riêng
+     * Lưới an toàn chạy thưa (mặc định 5 phút) cho các khóa vé bị TicketLockExpiryQueue bỏ sót,
+     * ví dụ khi node giữ khóa bị tắt trước lúc hết hạn.
+     * Việc giải phóng đúng hạn do TicketLockExpiryQueue đảm nhận.
      */
-    @Scheduled(fixedRate = 30000) // 30 giây
-    @Transactional
+    @Scheduled(fixedRateString = "${app.inventory.lock-expiry-sweep-interval-ms:300000}")
     public void processExpiredTicketLocks() {
         LocalDateTime now = LocalDateTime.now();
         
@@ -57,23 +55,37 @@ public class TicketLockExpirationScheduler {
             
             log.info("Tìm thấy {} hóa đơn đã hết hạn cần giải phóng khóa vé", expiredInvoices.size());
             
-            // Cập nhật trạng thái sang PAYMENT_EXPIRED
-            expiredInvoices.forEach(invoice -> {
-                invoice.setStatus(PaymentStatus.PAYMENT_EXPIRED);
-            });
-            
-            // Lưu tất cả các invoice đã cập nhật
-            invoiceRepository.saveAll(expiredInvoices);
-            
-            // Gửi sự kiện để xử lý giải phóng khóa vé
             for (Invoice invoice : expiredInvoices) {
-                sendTicketLockExpirationEvent(invoice);
+                // Lỗi ở một hóa đơn không được chặn việc giải phóng các hóa đơn còn lại
+                try {
+                    expireLock(invoice.getPaymentId());
+                } catch (Exception e) {
+                    log.error("Lỗi khi giải phóng khóa vé của paymentId {}: {}", invoice.getPaymentId(), e.getMessage(), e);
+                }
             }
             
         } catch (Exception e) {
             log.error("Lỗi khi xử lý các khóa vé hết hạn: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Đánh dấu hóa đơn là hết hạn và gửi sự kiện giải phóng khóa vé.
+     * Không làm gì nếu hóa đơn đã được thanh toán, hủy hoặc đã hết hạn trước đó.
+     * Transaction được mở bằng TransactionTemplate (không dùng @Transactional) vì processExpiredTicketLocks
+     * gọi trực tiếp method này, lời gọi nội bộ không đi qua proxy.
+     */
+    public void expireLock(String paymentId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (invoiceRepository.expireIfWaitingPayment(paymentId) == 0) {
+                return;
+            }
+            invoiceRepository.findByPaymentId(paymentId).ifPresent(invoice -> {
+                paymentReferenceIndex.remove(invoice.getNoiDung(), paymentId);
+                sendTicketLockExpirationEvent(invoice);
+            });
+        });
+    }
     
     /**
      * Gửi sự kiện để xử lý giải phóng khóa vé
@@ -84,6 +96,7 @@ public class TicketLockExpirationScheduler {
                 "invoiceId", invoice.getId().toString(),
                 "paymentId", invoice.getPaymentId(),
                 "ticketDetails", invoice.getTicketDetails(),
+                "bucketAllocations", invoice.getBucketAllocations() != null ? invoice.getBucketAllocations() : Map.of(),
                 "timestamp", LocalDateTime.now().toString()
             );
             
@@ -0,0 +1,106 @@
+package com.ticket.servermono.ticketcontext.infrastructure.scheduler;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Giải phóng khóa vé ngay khi hết hạn thay vì chờ lượt quét định kỳ.
+ * Mỗi lượt giữ chỗ được đưa vào một DelayQueue khi lockTicketsForBooking tạo hóa đơn;
+ * một thread riêng lấy ra đúng lúc expiresAt và gọi TicketLockExpirationScheduler.expireLock.
+ * Khi khởi động, hàng đợi được dựng lại từ các hóa đơn đang WAITING_PAYMENT.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketLockExpiryQueue {
+
+    private final TicketLockExpirationScheduler ticketLockExpirationScheduler;
+    private final InvoiceRepository invoiceRepository;
+
+    private final DelayQueue<ExpiringLock> queue = new DelayQueue<>();
+    private volatile Thread worker;
+
+    private record ExpiringLock(String paymentId, long expiresAtMillis) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((ExpiringLock) other).expiresAtMillis);
+        }
+    }
+
+    /**
+     * Đăng ký một khóa vé; nếu đang trong transaction thì chỉ đăng ký sau khi commit
+     * để không giải phóng khóa của một hóa đơn chưa tồn tại
+     */
+    public void register(String paymentId, LocalDateTime expiresAt) {
+        ExpiringLock lock = new ExpiringLock(paymentId,
+                expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    queue.add(lock);
+                }
+            });
+        } else {
+            queue.add(lock);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Object[]> waiting = invoiceRepository.findPaymentIdAndExpiresAtByStatus(PaymentStatus.WAITING_PAYMENT);
+        for (Object[] row : waiting) {
+            register((String) row[0], (LocalDateTime) row[1]);
+        }
+        log.info("Đã nạp {} khóa vé đang chờ thanh toán vào hàng đợi hết hạn", waiting.size());
+
+        worker = new Thread(this::run, "ticket-lock-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                ExpiringLock lock = queue.take();
+                ticketLockExpirationScheduler.expireLock(lock.paymentId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Lượt quét định kỳ trong TicketLockExpirationScheduler sẽ xử lý lại
+                log.error("Lỗi khi giải phóng khóa vé hết hạn: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ticket.servermono.ticketcontext.infrastructure.sepay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.infrastructure.events.PaymentStatusEvent;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Giả lập Sepay cho môi trường local: mỗi giây gửi webhook "đã chuyển khoản" cho tối đa
+ * rate hóa đơn đang chờ, rồi đo thời gian từ lúc gửi tới khi thanh toán được xác nhận
+ * (sự kiện payment_received). Dùng để kiểm tra throughput và độ trễ xác nhận đầu-cuối.
+ * Bật bằng app.sepay.fake-notifier.enabled=true, không dùng ở production.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sepay.fake-notifier.enabled", havingValue = "true")
+public class FakeSepayNotifier {
+
+    private final PaymentReferenceIndex paymentReferenceIndex;
+    private final InvoiceRepository invoiceRepository;
+    private final RestTemplate restTemplate;
+
+    @Value("${app.sepay.fake-notifier.rate:50}")
+    private int ratePerSecond;
+
+    @Value("${app.sepay.fake-notifier.target-url:http://localhost:${server.port:8080}/v1/payment/sepay-webhook}")
+    private String targetUrl;
+
+    @Value("${app.sepay.webhook-api-key:}")
+    private String webhookApiKey;
+
+    // paymentId -> thời điểm gửi webhook (nano)
+    private final Map<String, Long> sentAt = new ConcurrentHashMap<>();
+    private final Queue<Long> latenciesMs = new ConcurrentLinkedQueue<>();
+    private long fakeTransactionId = 0;
+
+    @Scheduled(fixedRate = 1000)
+    public void notifyPendingPayments() {
+        int sent = 0;
+        for (String referenceCode : paymentReferenceIndex.referenceCodes()) {
+            if (sent >= ratePerSecond) {
+                break;
+            }
+            for (String paymentId : paymentReferenceIndex.findPaymentIds(referenceCode)) {
+                if (sent >= ratePerSecond || sentAt.containsKey(paymentId)) {
+                    continue;
+                }
+                Optional<Invoice> invoice = invoiceRepository.findByPaymentId(paymentId);
+                if (invoice.isEmpty()) {
+                    continue;
+                }
+                send(paymentId, referenceCode, invoice.get().getSoTien());
+                sent++;
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận độ trễ khi thanh toán được xác nhận
+     */
+    @EventListener
+    public void onPaymentStatus(PaymentStatusEvent event) {
+        if (!"payment_received".equals(event.getStatus())) {
+            return;
+        }
+        Long start = sentAt.remove(event.getPaymentId());
+        if (start != null) {
+            latenciesMs.add((System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * In thống kê mỗi 10 giây: số thanh toán được xác nhận, throughput và độ trễ
+     */
+    @Scheduled(fixedRate = 10000)
+    public void reportLatency() {
+        List<Long> snapshot = new ArrayList<>();
+        Long latency;
+        while ((latency = latenciesMs.poll()) != null) {
+            snapshot.add(latency);
+        }
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        snapshot.sort(Long::compare);
+        double average = snapshot.stream().mapToLong(Long::longValue).average().orElse(0);
+        long p95 = snapshot.get((int) Math.ceil(snapshot.size() * 0.95) - 1);
+        log.info("Fake Sepay: {} thanh toan xac nhan trong 10s ({}/s), do tre trung binh {} ms, p95 {} ms, max {} ms",
+                snapshot.size(), snapshot.size() / 10.0, String.format("%.1f", average), p95,
+                snapshot.get(snapshot.size() - 1));
+    }
+
+    private void send(String paymentId, String referenceCode, double amount) {
+        Map<String, Object> payload = Map.of(
+                "id", ++fakeTransactionId,
+                "gateway", "FakeBank",
+                "code", referenceCode,
+                "content", referenceCode,
+                "transferType", "in",
+                "transferAmount", amount
+        );
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Apikey " + webhookApiKey);
+
+        sentAt.put(paymentId, System.nanoTime());
+        try {
+            restTemplate.postForEntity(targetUrl, new HttpEntity<>(payload, headers), String.class);
+        } catch (Exception e) {
+            log.error("Fake Sepay: loi gui webhook cho {}: {}", paymentId, e.getMessage());
+        }
+    }
+}
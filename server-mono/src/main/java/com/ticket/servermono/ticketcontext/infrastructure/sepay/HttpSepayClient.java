@@ -0,0 +1,89 @@
+package com.ticket.servermono.ticketcontext.infrastructure.sepay;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gọi API /userapi/transactions/list của Sepay
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sepay.client", havingValue = "http", matchIfMissing = true)
+public class HttpSepayClient implements SepayClient {
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.sepayUrl}")
+    private String sepayUrl;
+
+    @Value("${app.sepayApiKey}")
+    private String sepayApiKey;
+
+    @Override
+    public List<SepayTransaction> fetchTransactionsSince(Long sinceId) {
+        List<SepayTransaction> transactions = new ArrayList<>();
+        try {
+            // Ngày hiện tại theo định dạng yyyy-MM-dd
+            String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+
+            UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(sepayUrl + "/userapi/transactions/list")
+                    .queryParam("transaction_date_min", today);
+            if (sinceId != null) {
+                builder.queryParam("since_id", sinceId);
+            }
+            String url = builder.build().toUriString();
+
+            log.debug("Gọi API Sepay: {}", url);
+
+            // Thiết lập headers với Bearer token
+            HttpHeaders headers = new HttpHeaders();
+            headers.setBearerAuth(sepayApiKey);
+
+            ResponseEntity<String> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    String.class);
+
+            JsonNode rootNode = objectMapper.readTree(response.getBody());
+
+            // Kiểm tra response status
+            if (rootNode.path("status").asInt() == 200
+                    && rootNode.path("messages").path("success").asBoolean()) {
+                for (JsonNode transaction : rootNode.path("transactions")) {
+                    transactions.add(SepayTransaction.builder()
+                            .id(transaction.path("id").asLong())
+                            .code(transaction.path("code").asText(null))
+                            .amountIn(transaction.path("amount_in").asDouble())
+                            .transactionDate(transaction.path("transaction_date").asText(null))
+                            .build());
+                }
+            } else {
+                log.warn("API Sepay trả về lỗi: {}", response.getBody());
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi gọi API Sepay: {}", e.getMessage(), e);
+        }
+        return transactions;
+    }
+}
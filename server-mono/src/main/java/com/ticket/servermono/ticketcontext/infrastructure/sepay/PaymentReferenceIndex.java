@@ -0,0 +1,87 @@
+package com.ticket.servermono.ticketcontext.infrastructure.sepay;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chỉ mục trong bộ nhớ: mã tham chiếu chuyển khoản (Invoice.noiDung) -> paymentId
+ * của các hóa đơn đang WAITING_PAYMENT, để webhook tìm được hóa đơn mà không truy vấn DB.
+ * Mã tham chiếu sinh theo giây nên có thể trùng giữa các hóa đơn; mỗi mã giữ một tập paymentId.
+ * Dựng lại từ DB khi khởi động.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentReferenceIndex {
+
+    private final InvoiceRepository invoiceRepository;
+
+    private final Map<String, Set<String>> paymentIdsByReferenceCode = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> waiting = invoiceRepository.findNoiDungAndPaymentIdByStatus(PaymentStatus.WAITING_PAYMENT);
+        for (Object[] row : waiting) {
+            if (row[0] != null) {
+                add((String) row[0], (String) row[1]);
+            }
+        }
+        log.info("Đã nạp {} mã tham chiếu đang chờ thanh toán", waiting.size());
+    }
+
+    /**
+     * Thêm mã tham chiếu; nếu đang trong transaction thì chỉ thêm sau khi commit
+     */
+    public void register(String referenceCode, String paymentId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(referenceCode, paymentId);
+                }
+            });
+        } else {
+            add(referenceCode, paymentId);
+        }
+    }
+
+    public Set<String> findPaymentIds(String referenceCode) {
+        Set<String> paymentIds = paymentIdsByReferenceCode.get(referenceCode);
+        return paymentIds != null ? Set.copyOf(paymentIds) : Set.of();
+    }
+
+    public List<String> referenceCodes() {
+        return List.copyOf(paymentIdsByReferenceCode.keySet());
+    }
+
+    /**
+     * Xóa mã tham chiếu khi hóa đơn không còn chờ thanh toán
+     */
+    public void remove(String referenceCode, String paymentId) {
+        if (referenceCode == null) {
+            return;
+        }
+        paymentIdsByReferenceCode.computeIfPresent(referenceCode, (code, paymentIds) -> {
+            paymentIds.remove(paymentId);
+            return paymentIds.isEmpty() ? null : paymentIds;
+        });
+    }
+
+    private void add(String referenceCode, String paymentId) {
+        paymentIdsByReferenceCode.computeIfAbsent(referenceCode, code -> ConcurrentHashMap.newKeySet()).add(paymentId);
+    }
+}
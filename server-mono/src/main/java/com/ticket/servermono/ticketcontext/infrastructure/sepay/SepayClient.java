@@ -0,0 +1,16 @@
+package com.ticket.servermono.ticketcontext.infrastructure.sepay;
+
+import java.util.List;
+
+/**
+ * Nguồn giao dịch ngân hàng dùng để đối soát thanh toán.
+ * app.sepay.client=http gọi Sepay thật, app.sepay.client=stub dùng dữ liệu trong bộ nhớ (test, local).
+ */
+public interface SepayClient {
+
+    /**
+     * Lấy các giao dịch tiền vào trong ngày hôm nay có id lớn hơn sinceId
+     * @param sinceId id giao dịch lớn nhất đã xử lý, null để lấy từ đầu ngày
+     */
+    List<SepayTransaction> fetchTransactionsSince(Long sinceId);
+}
@@ -0,0 +1,21 @@
+package com.ticket.servermono.ticketcontext.infrastructure.sepay;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một giao dịch tiền vào từ Sepay
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SepayTransaction {
+    private long id;
+    // Mã thanh toán Sepay tách ra từ nội dung chuyển khoản (Invoice.noiDung)
+    private String code;
+    private double amountIn;
+    private String transactionDate;
+}
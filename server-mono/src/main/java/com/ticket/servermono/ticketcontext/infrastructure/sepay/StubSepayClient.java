@@ -0,0 +1,40 @@
+package com.ticket.servermono.ticketcontext.infrastructure.sepay;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sepay giả lập trong bộ nhớ cho test và môi trường local.
+ * Thêm giao dịch bằng addTransaction, bộ đối soát sẽ nhận được ở lượt kế tiếp.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sepay.client", havingValue = "stub")
+public class StubSepayClient implements SepayClient {
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final List<SepayTransaction> transactions = new CopyOnWriteArrayList<>();
+
+    public SepayTransaction addTransaction(String code, double amountIn) {
+        SepayTransaction transaction = SepayTransaction.builder()
+                .id(nextId.incrementAndGet())
+                .code(code)
+                .amountIn(amountIn)
+                .transactionDate(LocalDateTime.now().toString())
+                .build();
+        transactions.add(transaction);
+        return transaction;
+    }
+
+    @Override
+    public List<SepayTransaction> fetchTransactionsSince(Long sinceId) {
+        long after = sinceId != null ? sinceId : 0;
+        return transactions.stream()
+                .filter(transaction -> transaction.getId() > after)
+                .toList();
+    }
+}
@@ -0,0 +1,179 @@
+package com.ticket.servermono.ticketcontext.infrastructure.waitingroom;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ticket.servermono.ticketcontext.domain.enums.WaitingRoomStatus;
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+
+/**
+ * Phòng chờ trong bộ nhớ. Hàng đợi FIFO nên vị trí = sequence - sequence của lượt cuối cùng đã được cho vào.
+ */
+@Component
+@ConditionalOnProperty(name = "app.waiting-room.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryWaitingRoomStore implements WaitingRoomStore {
+
+    private final Map<UUID, ShowQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, WaitingRoomEntry> entriesByToken = new ConcurrentHashMap<>();
+    private final Map<String, WaitingRoomEntry> entriesByPass = new ConcurrentHashMap<>();
+    private final Map<String, WaitingRoomEntry> entriesByUser = new ConcurrentHashMap<>();
+
+    private static class ShowQueue {
+        private final AtomicLong nextSequence = new AtomicLong();
+        private volatile long lastAdmittedSequence = 0;
+        private final Queue<WaitingRoomEntry> waiting = new ConcurrentLinkedQueue<>();
+        // ReentrantLock thay cho synchronized để không ghim carrier thread khi chạy virtual thread
+        private final ReentrantLock enqueueLock = new ReentrantLock();
+    }
+
+    @Override
+    public WaitingRoomEntry enqueue(UUID showId, UUID userId) {
+        ShowQueue queue = queues.computeIfAbsent(showId, id -> new ShowQueue());
+        return entriesByUser.compute(showId + ":" + userId, (key, existing) -> {
+            if (existing != null && isActive(existing)) {
+                return existing;
+            }
+            WaitingRoomEntry entry = WaitingRoomEntry.builder()
+                    .showId(showId)
+                    .userId(userId)
+                    .queueToken(UUID.randomUUID().toString())
+                    .status(WaitingRoomStatus.WAITING)
+                    .build();
+            // Cấp sequence và thêm vào hàng cùng lúc để hàng luôn theo đúng thứ tự sequence
+            queue.enqueueLock.lock();
+            try {
+                entry.setSequence(queue.nextSequence.incrementAndGet());
+                queue.waiting.add(entry);
+            } finally {
+                queue.enqueueLock.unlock();
+            }
+            entriesByToken.put(entry.getQueueToken(), entry);
+            return entry;
+        });
+    }
+
+    @Override
+    public Optional<WaitingRoomEntry> findByQueueToken(String queueToken) {
+        return Optional.ofNullable(entriesByToken.get(queueToken));
+    }
+
+    @Override
+    public Optional<WaitingRoomEntry> findByPassToken(String passToken) {
+        return Optional.ofNullable(entriesByPass.get(passToken));
+    }
+
+    @Override
+    public long positionOf(WaitingRoomEntry entry) {
+        if (entry.getStatus() != WaitingRoomStatus.WAITING) {
+            return 0;
+        }
+        ShowQueue queue = queues.get(entry.getShowId());
+        return queue == null ? 0 : Math.max(1, entry.getSequence() - queue.lastAdmittedSequence);
+    }
+
+    @Override
+    public QueuePositions snapshotPositions(UUID showId, long maxSequence) {
+        ShowQueue queue = queues.get(showId);
+        long lastAdmitted = queue == null ? Long.MAX_VALUE : queue.lastAdmittedSequence;
+        return sequence -> sequence > lastAdmitted ? sequence - lastAdmitted : 0;
+    }
+
+    @Override
+    public List<WaitingRoomEntry> admitNext(UUID showId, int count, LocalDateTime passExpiresAt) {
+        List<WaitingRoomEntry> admitted = new ArrayList<>();
+        ShowQueue queue = queues.get(showId);
+        if (queue == null) {
+            return admitted;
+        }
+
+        for (int i = 0; i < count; i++) {
+            WaitingRoomEntry entry = queue.waiting.poll();
+            if (entry == null) {
+                break;
+            }
+            entry.setPassToken(UUID.randomUUID().toString());
+            entry.setPassExpiresAt(passExpiresAt);
+            entry.setStatus(WaitingRoomStatus.ADMITTED);
+            entriesByPass.put(entry.getPassToken(), entry);
+            queue.lastAdmittedSequence = entry.getSequence();
+            admitted.add(entry);
+        }
+        return admitted;
+    }
+
+    @Override
+    public boolean claimAdmissionTick(UUID showId, long tick) {
+        // Chỉ có một node nên luôn giành được
+        return true;
+    }
+
+    @Override
+    public boolean claimPass(UUID showId, String passToken, UUID userId, LocalDateTime now) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        // computeIfPresent chạy nguyên tử trên key nên kiểm tra và đổi trạng thái không bị xen giữa
+        entriesByPass.computeIfPresent(passToken, (token, entry) -> {
+            if (entry.getStatus() == WaitingRoomStatus.ADMITTED
+                    && entry.getShowId().equals(showId)
+                    && entry.getUserId().equals(userId)
+                    && entry.getPassExpiresAt().isAfter(now)) {
+                entry.setStatus(WaitingRoomStatus.USED);
+                claimed.set(true);
+            }
+            return entry;
+        });
+        return claimed.get();
+    }
+
+    @Override
+    public void releasePass(String passToken) {
+        entriesByPass.computeIfPresent(passToken, (token, entry) -> {
+            if (entry.getStatus() == WaitingRoomStatus.USED) {
+                entry.setStatus(WaitingRoomStatus.ADMITTED);
+            }
+            return entry;
+        });
+    }
+
+    @Override
+    public List<UUID> findShowsWithWaitingEntries() {
+        List<UUID> showIds = new ArrayList<>();
+        queues.forEach((showId, queue) -> {
+            if (!queue.waiting.isEmpty()) {
+                showIds.add(showId);
+            }
+        });
+        return showIds;
+    }
+
+    @Override
+    public void purgeFinished(LocalDateTime now) {
+        entriesByToken.values().removeIf(entry -> {
+            boolean finished = entry.getStatus() == WaitingRoomStatus.USED
+                    || (entry.getStatus() == WaitingRoomStatus.ADMITTED && entry.getPassExpiresAt().isBefore(now));
+            if (finished) {
+                entriesByPass.remove(entry.getPassToken());
+                entriesByUser.remove(entry.getShowId() + ":" + entry.getUserId(), entry);
+            }
+            return finished;
+        });
+    }
+
+    private boolean isActive(WaitingRoomEntry entry) {
+        return entry.getStatus() == WaitingRoomStatus.WAITING
+                || (entry.getStatus() == WaitingRoomStatus.ADMITTED
+                        && entry.getPassExpiresAt().isAfter(LocalDateTime.now()));
+    }
+}
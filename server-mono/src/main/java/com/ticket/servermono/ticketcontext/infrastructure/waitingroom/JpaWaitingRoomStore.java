@@ -0,0 +1,143 @@
+package com.ticket.servermono.ticketcontext.infrastructure.waitingroom;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ticket.servermono.ticketcontext.domain.enums.WaitingRoomStatus;
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.WaitingRoomAdmissionTickRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.WaitingRoomEntryRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Phòng chờ lưu trong DB để nhiều node dùng chung một hàng đợi.
+ * Việc cho vào dùng SELECT ... FOR UPDATE SKIP LOCKED nên hai node không cấp pass cho cùng một lượt.
+ * Mỗi giây chỉ node giành được dòng waiting_room_admission_ticks của show mới cho vào,
+ * nên tốc độ tổng vẫn là tốc độ của một node dù chạy bao nhiêu node.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.waiting-room.store", havingValue = "db")
+public class JpaWaitingRoomStore implements WaitingRoomStore {
+
+    private final WaitingRoomEntryRepository repository;
+    private final WaitingRoomAdmissionTickRepository tickRepository;
+
+    // Phân biệt các lượt vào hàng trong cùng một mili giây
+    private final AtomicInteger sequenceCounter = new AtomicInteger();
+
+    @Override
+    @Transactional
+    public WaitingRoomEntry enqueue(UUID showId, UUID userId) {
+        Optional<WaitingRoomEntry> existing = repository.findFirstByShowIdAndUserIdAndStatusInOrderBySequenceDesc(
+                showId, userId, List.of(WaitingRoomStatus.WAITING, WaitingRoomStatus.ADMITTED));
+        if (existing.isPresent() && (existing.get().getStatus() == WaitingRoomStatus.WAITING
+                || existing.get().getPassExpiresAt().isAfter(LocalDateTime.now()))) {
+            return existing.get();
+        }
+
+        WaitingRoomEntry entry = WaitingRoomEntry.builder()
+                .showId(showId)
+                .userId(userId)
+                .queueToken(UUID.randomUUID().toString())
+                .sequence(System.currentTimeMillis() * 1000 + Math.floorMod(sequenceCounter.incrementAndGet(), 1000))
+                .status(WaitingRoomStatus.WAITING)
+                .build();
+        return repository.save(entry);
+    }
+
+    @Override
+    public Optional<WaitingRoomEntry> findByQueueToken(String queueToken) {
+        return repository.findByQueueToken(queueToken);
+    }
+
+    @Override
+    public Optional<WaitingRoomEntry> findByPassToken(String passToken) {
+        return repository.findByPassToken(passToken);
+    }
+
+    @Override
+    public long positionOf(WaitingRoomEntry entry) {
+        if (entry.getStatus() != WaitingRoomStatus.WAITING) {
+            return 0;
+        }
+        return repository.countByShowIdAndStatusAndSequenceLessThan(
+                entry.getShowId(), WaitingRoomStatus.WAITING, entry.getSequence()) + 1;
+    }
+
+    /**
+     * Một lượt đọc index (show_id, status, sequence) cho cả show thay vì một COUNT cho mỗi lượt:
+     * sequence trong DB không liên tiếp nên vị trí = thứ hạng trong danh sách sequence đang chờ
+     */
+    @Override
+    public QueuePositions snapshotPositions(UUID showId, long maxSequence) {
+        long[] waiting = repository.findWaitingSequences(showId, maxSequence).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        return sequence -> {
+            int index = Arrays.binarySearch(waiting, sequence);
+            return index >= 0 ? index + 1 : 0;
+        };
+    }
+
+    @Override
+    @Transactional
+    public List<WaitingRoomEntry> admitNext(UUID showId, int count, LocalDateTime passExpiresAt) {
+        List<WaitingRoomEntry> entries = repository.findHeadOfQueueForAdmission(showId, PageRequest.of(0, count));
+        for (WaitingRoomEntry entry : entries) {
+            entry.setPassToken(UUID.randomUUID().toString());
+            entry.setPassExpiresAt(passExpiresAt);
+            entry.setStatus(WaitingRoomStatus.ADMITTED);
+        }
+        return repository.saveAll(entries);
+    }
+
+    /**
+     * UPDATE có điều kiện trước: dòng đã có thì node đầu tiên đổi last_tick sang giây này thắng,
+     * các node sau thấy last_tick = tick nên nhận 0. Chỉ show mới thấy dòng lần đầu mới cần INSERT IGNORE
+     */
+    @Override
+    @Transactional
+    public boolean claimAdmissionTick(UUID showId, long tick) {
+        if (tickRepository.claimTick(showId, tick) > 0) {
+            return true;
+        }
+        return tickRepository.insertClaimed(showId, tick) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean claimPass(UUID showId, String passToken, UUID userId, LocalDateTime now) {
+        return repository.claimPass(showId, passToken, userId, now) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void releasePass(String passToken) {
+        repository.releasePass(passToken);
+    }
+
+    @Override
+    public List<UUID> findShowsWithWaitingEntries() {
+        return repository.findShowIdsByStatus(WaitingRoomStatus.WAITING);
+    }
+
+    @Override
+    @Transactional
+    public void purgeFinished(LocalDateTime now) {
+        repository.deleteFinishedEntries(now);
+        // Show không còn ai chờ trong một giờ thì bỏ dòng tick, lần sau sẽ được tạo lại
+        tickRepository.deleteByLastTickLessThan(now.atZone(ZoneId.systemDefault()).toEpochSecond() - 3600);
+    }
+}
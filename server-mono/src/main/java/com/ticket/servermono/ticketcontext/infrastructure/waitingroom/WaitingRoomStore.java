@@ -0,0 +1,75 @@
+package com.ticket.servermono.ticketcontext.infrastructure.waitingroom;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+
+/**
+ * Nơi lưu trạng thái phòng chờ. Mặc định lưu trong bộ nhớ (một node),
+ * bật app.waiting-room.store=db để dùng bảng waiting_room_entries khi chạy nhiều node.
+ */
+public interface WaitingRoomStore {
+
+    /**
+     * Vào hàng; nếu người dùng đã có lượt còn hiệu lực cho show này thì trả về lượt đó
+     */
+    WaitingRoomEntry enqueue(UUID showId, UUID userId);
+
+    Optional<WaitingRoomEntry> findByQueueToken(String queueToken);
+
+    Optional<WaitingRoomEntry> findByPassToken(String passToken);
+
+    /**
+     * Vị trí hiện tại trong hàng (bắt đầu từ 1), 0 nếu đã được cho vào
+     */
+    long positionOf(WaitingRoomEntry entry);
+
+    /**
+     * Ảnh chụp hàng chờ của một show đủ để tính vị trí của mọi lượt có sequence <= maxSequence
+     * mà không phải truy vấn riêng từng lượt (dùng khi đẩy vị trí cho nhiều client cùng lúc)
+     */
+    QueuePositions snapshotPositions(UUID showId, long maxSequence);
+
+    /**
+     * Vị trí theo sequence trong một ảnh chụp hàng chờ
+     */
+    @FunctionalInterface
+    interface QueuePositions {
+        /**
+         * Vị trí (bắt đầu từ 1) của lượt có sequence này, 0 nếu lượt không còn chờ
+         */
+        long positionOf(long sequence);
+    }
+
+    /**
+     * Cho tối đa count lượt đầu hàng vào và cấp pass có hạn tới passExpiresAt
+     */
+    List<WaitingRoomEntry> admitNext(UUID showId, int count, LocalDateTime passExpiresAt);
+
+    /**
+     * Giành lượt cho vào của một giây (tick = epoch second) cho show này.
+     * Khi nhiều node dùng chung hàng đợi, mỗi giây chỉ một node nhận được true
+     */
+    boolean claimAdmissionTick(UUID showId, long tick);
+
+    /**
+     * Giành pass một cách nguyên tử (ADMITTED -> USED) nếu pass thuộc show và người dùng này và chưa hết hạn.
+     * Hai request đồng thời dùng cùng một pass thì chỉ một request nhận được true.
+     */
+    boolean claimPass(UUID showId, String passToken, UUID userId, LocalDateTime now);
+
+    /**
+     * Trả lại pass đã giành (USED -> ADMITTED) khi khóa vé thất bại, để người dùng thử lại trong thời hạn của pass
+     */
+    void releasePass(String passToken);
+
+    List<UUID> findShowsWithWaitingEntries();
+
+    /**
+     * Xóa các lượt đã dùng pass hoặc pass đã hết hạn
+     */
+    void purgeFinished(LocalDateTime now);
+}
@@ -1,32 +1,25 @@
 package com.ticket.servermono.ticketcontext.usecases;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ticket.servermono.ticketcontext.adapters.dtos.BookingLockRequest;
 import com.ticket.servermono.ticketcontext.adapters.dtos.BookingPayload;
@@ -36,12 +29,13 @@ import com.ticket.servermono.ticketcontext.entities.TicketClass;
 import com.ticket.servermono.ticketcontext.grpc.OccaGrpcClient;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.PaymentReferenceIndex;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.SepayClient;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.SepayTransaction;
 
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import occa.OccaDataResponse;
-import occa.OccaResquest;
-import occa.ShowDataResponse;
+import occa.ShowWithOccaData;
 
 /**
  * Service đơn giản để quản lý trạng thái thanh toán và thông báo qua WebSocket
@@ -52,7 +46,8 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
     private final InvoiceRepository invoiceRepository;
     private final TicketClassRepository ticketClassRepository;
     private final TicketServices ticketServices;
-    private final RestTemplate restTemplate;
+    private final SepayClient sepayClient;
+    private final PaymentReferenceIndex paymentReferenceIndex;
     private final ObjectMapper objectMapper;
     
     private final KafkaTemplate<String, Object> kafkaTemplate;// Tên của Kafka topic cho sự kiện thanh toán thành công
@@ -62,17 +57,32 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
     // Tên của Kafka topic cho sự kiện gửi email thông báo đặt vé thành công
     private static final String PURCHASE_NOTIFICATION_TOPIC = "mail.purchase.success";
     
-    @Value("${app.sepayUrl}")
-    private String sepayUrl;
-    
-    @Value("${app.sepayApiKey}")
-    private String sepayApiKey;
-    
-    // Lưu trữ các task đang chạy để tránh trùng lặp
-    private final Map<String, ScheduledFuture<?>> runningTrackers = new ConcurrentHashMap<>();
-    
-    // Executor để lên lịch các task
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(5);    /**
+    // Khi bật, thanh toán được xác nhận tự động sau một lượt đối soát (chưa thu tiền thật)
+    @Value("${app.payment.auto-confirm:true}")
+    private boolean autoConfirm;
+
+    // Các thanh toán đang chờ đối soát: paymentId -> thông tin theo dõi
+    private final Map<String, PendingPayment> pendingPayments = new ConcurrentHashMap<>();
+
+    // Giao dịch trong ngày chưa khớp với thanh toán nào (người dùng chuyển khoản trước khi mở WebSocket)
+    private final Map<String, SepayTransaction> unmatchedTransactions = new ConcurrentHashMap<>();
+
+    // Các thanh toán đang được hoàn tất
+    private final Set<String> completingPayments = ConcurrentHashMap.newKeySet();
+
+    // id giao dịch Sepay lớn nhất đã xử lý trong ngày
+    private volatile Long transactionCursor;
+    private volatile LocalDate cursorDate;
+
+    // Scheduler cho các thông báo trễ (chuyển sang completed); chạy trên virtual thread khi bật spring.threads.virtual.
+    // Mỗi lượt chạy một thread mới nên giới hạn số lượt chạy đồng thời (platform thread khi tắt virtual thread)
+    private final SimpleAsyncTaskScheduler taskScheduler;
+    private final TransactionTemplate transactionTemplate;
+
+    private record PendingPayment(String referenceCode, double amount, long trackedSinceMillis) {
+    }
+
+    /**
      * Constructor với PaymentStatusNotifier 
      */
     public PaymentService(
@@ -80,19 +90,29 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
             InvoiceRepository invoiceRepository,
             TicketClassRepository ticketClassRepository,
             TicketServices ticketServices,
-            RestTemplate restTemplate,
+            SepayClient sepayClient,
+            PaymentReferenceIndex paymentReferenceIndex,
             ObjectMapper objectMapper,
             KafkaTemplate<String, Object> kafkaTemplate,
-            OccaGrpcClient occaGrpcClient
+            OccaGrpcClient occaGrpcClient,
+            SimpleAsyncTaskSchedulerBuilder taskSchedulerBuilder,
+            TransactionTemplate transactionTemplate,
+            @Value("${app.payment.status-task-concurrency:4}") int statusTaskConcurrency
             ) {
         this.statusNotifier = statusNotifier;
         this.invoiceRepository = invoiceRepository;
         this.ticketClassRepository = ticketClassRepository;
         this.ticketServices = ticketServices;
-        this.restTemplate = restTemplate;
+        this.sepayClient = sepayClient;
+        this.paymentReferenceIndex = paymentReferenceIndex;
         this.objectMapper = objectMapper;
         this.kafkaTemplate = kafkaTemplate;
         this.occaGrpcClient = occaGrpcClient;
+        this.taskScheduler = taskSchedulerBuilder
+                .threadNamePrefix("payment-status-")
+                .concurrencyLimit(statusTaskConcurrency)
+                .build();
+        this.transactionTemplate = transactionTemplate;
     }
 
     /**
@@ -101,9 +121,11 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
      * @param amount Số tiền thanh toán
      * @param referenceCode Mã tham chiếu để đối chiếu với giao dịch từ Sepay
      */
-    public synchronized void startPaymentTracking(String paymentId, double amount, String referenceCode) {
+    public void startPaymentTracking(String paymentId, double amount, String referenceCode) {
         // Kiểm tra xem đã đang theo dõi payment này chưa
-        if (runningTrackers.containsKey(paymentId)) {
+        PendingPayment existing = pendingPayments.putIfAbsent(paymentId,
+                new PendingPayment(referenceCode, amount, System.currentTimeMillis()));
+        if (existing != null) {
             log.info("Da co tien trinh theo doi thanh toan cho paymentId={}", paymentId);
             return;
         }
@@ -113,88 +135,183 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
         
         // Cập nhật trạng thái ban đầu
         updatePaymentStatus(paymentId, "waiting_payment");
-        
-        // Lên lịch polling thanh toán trong một thread riêng
-        ScheduledFuture<?> trackerTask = scheduler.scheduleAtFixedRate(
-            () -> checkPaymentStatus(paymentId, amount, referenceCode),
-            10, // Delay ban đầu (giây)
-            10, // Khoảng thời gian giữa các lần kiểm tra (giây)
-            TimeUnit.SECONDS
-        );
-        
-        runningTrackers.put(paymentId, trackerTask);
     }
 
     /**
-     * Kiểm tra trạng thái thanh toán
+     * Một vòng đối soát cho tất cả thanh toán đang chờ: tải các invoice trong một truy vấn,
+     * lấy giao dịch mới từ Sepay một lần (theo since-cursor) rồi so khớp mã tham chiếu trong bộ nhớ.
      */
-    private void checkPaymentStatus(String paymentId, double amount, String referenceCode) {
+    @Scheduled(fixedDelayString = "${app.payment.poll-interval-ms:10000}")
+    public void reconcilePendingPayments() {
+        if (pendingPayments.isEmpty()) {
+            return;
+        }
+
         try {
-            log.debug("Kiểm tra thanh toán: paymentId={}, amount={}, referenceCode={}", 
-                    paymentId, amount, referenceCode);
-            
-            // Lấy thông tin invoice từ database
-            Invoice invoice = invoiceRepository.findByPaymentId(paymentId).orElse(null);
-            if (invoice == null) {
-                log.warn("Không tìm thấy invoice với paymentId: {}", paymentId);
-                stopPaymentTracking(paymentId);
-                return;
+            Map<String, Invoice> invoices = invoiceRepository.findByPaymentIdIn(pendingPayments.keySet()).stream()
+                    .collect(Collectors.toMap(Invoice::getPaymentId, invoice -> invoice));
+
+            Map<String, String> waitingByReferenceCode = new HashMap<>();
+            for (Map.Entry<String, PendingPayment> entry : pendingPayments.entrySet()) {
+                String paymentId = entry.getKey();
+                if (isStillWaiting(paymentId, invoices.get(paymentId))) {
+                    waitingByReferenceCode.put(entry.getValue().referenceCode(), paymentId);
+                }
             }
-            
-            // Kiểm tra xem invoice có hết hạn không
-            if (invoice.getExpiresAt() != null && LocalDateTime.now().isAfter(invoice.getExpiresAt())) {
-                log.info("Invoice đã hết hạn: {}", paymentId);
-                invoice.setStatus(PaymentStatus.PAYMENT_EXPIRED);
-                invoiceRepository.save(invoice);
-                updatePaymentStatus(paymentId, "expired");
-                stopPaymentTracking(paymentId);
+
+            if (waitingByReferenceCode.isEmpty()) {
                 return;
             }
-            
-            // Kiểm tra nếu trạng thái đã thay đổi (không còn ở WAITING_PAYMENT)
-            if (invoice.getStatus() != PaymentStatus.WAITING_PAYMENT) {
-                log.info("Invoice không còn ở trạng thái chờ thanh toán: {}, status={}", 
-                        paymentId, invoice.getStatus());
-                updatePaymentStatus(paymentId, convertPaymentStatus(invoice.getStatus()));
-                stopPaymentTracking(paymentId);
-                return;
+
+            List<String> paidPaymentIds = new ArrayList<>();
+            if (autoConfirm) {
+                //TODO:Tắt app.payment.auto-confirm để thanh toán tiền thật
+                long now = System.currentTimeMillis();
+                for (String paymentId : waitingByReferenceCode.values()) {
+                    PendingPayment pending = pendingPayments.get(paymentId);
+                    if (pending != null && now - pending.trackedSinceMillis() >= 10_000) {
+                        paidPaymentIds.add(paymentId);
+                    }
+                }
+            } else {
+                collectNewTransactions();
+                for (Map.Entry<String, String> entry : waitingByReferenceCode.entrySet()) {
+                    SepayTransaction transaction = unmatchedTransactions.get(entry.getKey());
+                    PendingPayment pending = pendingPayments.get(entry.getValue());
+                    if (transaction != null && pending != null && transaction.getAmountIn() >= pending.amount()) {
+                        log.info("Tìm thấy giao dịch phù hợp: id={}, code={}", transaction.getId(), transaction.getCode());
+                        unmatchedTransactions.remove(entry.getKey());
+                        paidPaymentIds.add(entry.getValue());
+                    }
+                }
             }
-            
-            // Gọi API Sepay để lấy giao dịch mới nhất
-            JsonNode transactionsNode = getSepayTransactions(amount);
-            
-            // Xử lý response khi nhận được dữ liệu từ Sepay
-            //TODO:Xoá chú thích để thanh toán tiền thật
-            // if (transactionsNode != null && transactionsNode.isArray()) {
-            //     for (JsonNode transaction : transactionsNode) {
-            //         if (transaction.has("code")) {
-            //             String code = transaction.get("code").asText();
-                        
-            //             // So sánh mã tham chiếu
-            //             if (referenceCode.equals(code)) {
-            //                 log.info("Tìm thấy giao dịch phù hợp: {}", transaction.toString());
-            //                 processSuccessfulTransaction(paymentId);
-            //                 return;
-            //             }
-            //         }
-            //     }
-            // }
-            
-            //TODO:Xoá đoạn này để thanh toán tiền thật
-            processSuccessfulTransaction(paymentId);
 
+            if (!paidPaymentIds.isEmpty()) {
+                prefetchBuyers(paidPaymentIds, invoices);
+                paidPaymentIds.forEach(this::completePayment);
+            }
         } catch (Exception e) {
             log.error("Lỗi khi kiểm tra thanh toán: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Kiểm tra tồn tại người mua của cả vòng bằng một lượt CheckUsersExist, để bookTicket của từng
+     * thanh toán được trả lời từ cache. Lỗi ở đây không chặn vòng: bookTicket sẽ tự kiểm tra từng user.
+     */
+    private void prefetchBuyers(List<String> paymentIds, Map<String, Invoice> invoices) {
+        Set<UUID> userIds = paymentIds.stream()
+                .map(invoices::get)
+                .filter(invoice -> invoice != null && invoice.getUserId() != null)
+                .map(Invoice::getUserId)
+                .collect(Collectors.toSet());
+        if (userIds.size() < 2) {
+            return;
+        }
+        try {
+            ticketServices.findExistingUsers(userIds);
+        } catch (Exception e) {
+            log.warn("Không kiểm tra được {} người mua theo lô: {}", userIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Invoice còn chờ thanh toán không; nếu không thì thông báo trạng thái cuối và ngừng theo dõi
+     */
+    private boolean isStillWaiting(String paymentId, Invoice invoice) {
+        if (invoice == null) {
+            log.warn("Không tìm thấy invoice với paymentId: {}", paymentId);
+            stopPaymentTracking(paymentId);
+            return false;
+        }
+
+        // Kiểm tra xem invoice có hết hạn không
+        if (invoice.getExpiresAt() != null && LocalDateTime.now().isAfter(invoice.getExpiresAt())) {
+            log.info("Invoice đã hết hạn: {}", paymentId);
+            updatePaymentStatus(paymentId, "expired");
+            stopPaymentTracking(paymentId);
+            return false;
+        }
+
+        // Kiểm tra nếu trạng thái đã thay đổi (không còn ở WAITING_PAYMENT)
+        if (invoice.getStatus() != PaymentStatus.WAITING_PAYMENT) {
+            log.info("Invoice không còn ở trạng thái chờ thanh toán: {}, status={}", 
+                    paymentId, invoice.getStatus());
+            updatePaymentStatus(paymentId, convertPaymentStatus(invoice.getStatus()));
+            stopPaymentTracking(paymentId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Lấy các giao dịch mới từ Sepay kể từ lần trước và ghi nhận theo mã tham chiếu
+     */
+    private void collectNewTransactions() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(cursorDate)) {
+            // Sang ngày mới: Sepay chỉ trả giao dịch trong ngày nên đọc lại từ đầu ngày
+            unmatchedTransactions.clear();
+            transactionCursor = null;
+            cursorDate = today;
+        }
+
+        List<SepayTransaction> transactions = sepayClient.fetchTransactionsSince(transactionCursor);
+        for (SepayTransaction transaction : transactions) {
+            if (transaction.getCode() != null) {
+                unmatchedTransactions.put(transaction.getCode(), transaction);
+            }
+            if (transactionCursor == null || transaction.getId() > transactionCursor) {
+                transactionCursor = transaction.getId();
+            }
+        }
+        log.debug("Đã lấy {} giao dịch mới từ Sepay, cursor={}", transactions.size(), transactionCursor);
+    }
+
+    /**
+     * Xử lý một giao dịch tiền vào được đẩy về qua webhook: tìm hóa đơn đang chờ theo mã tham chiếu
+     * và hoàn tất thanh toán ngay, không chờ vòng đối soát
+     * @return true nếu giao dịch khớp với một hóa đơn đang chờ
+     */
+    public boolean handleIncomingTransaction(SepayTransaction transaction) {
+        if (transaction.getCode() == null) {
+            return false;
+        }
+
+        for (String paymentId : paymentReferenceIndex.findPaymentIds(transaction.getCode())) {
+            Invoice invoice = invoiceRepository.findByPaymentId(paymentId).orElse(null);
+            if (invoice != null && invoice.getStatus() == PaymentStatus.WAITING_PAYMENT
+                    && transaction.getAmountIn() >= invoice.getSoTien()) {
+                log.info("Webhook khớp giao dịch {} với paymentId {}", transaction.getId(), paymentId);
+                completePayment(paymentId);
+                return true;
+            }
+        }
+
+        // Chưa khớp (ví dụ client chưa mở WebSocket): giữ lại cho vòng đối soát
+        unmatchedTransactions.put(transaction.getCode(), transaction);
+        log.info("Giao dịch {} với mã {} chưa khớp hóa đơn nào", transaction.getId(), transaction.getCode());
+        return false;
+    }
+
+    private void completePayment(String paymentId) {
+        // Tránh xử lý song song cùng một thanh toán (webhook và vòng đối soát)
+        if (!completingPayments.add(paymentId)) {
+            return;
+        }
+        try {
+            stopPaymentTracking(paymentId);
+            processSuccessfulTransaction(paymentId);
+        } finally {
+            completingPayments.remove(paymentId);
+        }
+    }
     
     /**
      * Dừng theo dõi thanh toán
      */
     private void stopPaymentTracking(String paymentId) {
-        ScheduledFuture<?> future = runningTrackers.remove(paymentId);
-        if (future != null && !future.isDone()) {
-            future.cancel(false);
+        if (pendingPayments.remove(paymentId) != null) {
             log.info("Đã dừng theo dõi thanh toán cho: {}", paymentId);
         }
     }
@@ -219,82 +336,46 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
         }
     }
     
-    /**
-     * Lấy danh sách giao dịch từ Sepay API
-     * @param amount Số tiền cần lọc
-     * @return Danh sách giao dịch (JsonNode)
-     */
-    private JsonNode getSepayTransactions(double amount) {
-        try {
-            // Ngày hiện tại theo định dạng yyyy-MM-dd
-            String today = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-            
-            // Xây dựng URL với các tham số
-            String url = UriComponentsBuilder.fromUriString(sepayUrl + "/userapi/transactions/list")
-                    .queryParam("transaction_date_min", today)
-                    .queryParam("amount_in", String.format("%.2f", amount))
-                    .build()
-                    .toUriString();
-            
-            log.debug("Gọi API Sepay: {}", url);
-            
-            // Thiết lập headers với Bearer token
-            HttpHeaders headers = new HttpHeaders();
-            headers.setBearerAuth(sepayApiKey);
-            
-            // Gọi API
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    new HttpEntity<>(headers),
-                    String.class);
-            
-            // Parse JSON response
-            JsonNode rootNode = objectMapper.readTree(response.getBody());
-            
-            // Kiểm tra response status
-            if (rootNode.has("status") && rootNode.get("status").asInt() == 200 
-                    && rootNode.has("messages") && rootNode.path("messages").has("success") 
-                    && rootNode.path("messages").get("success").asBoolean()) {
-                
-                if (rootNode.has("transactions")) {
-                    return rootNode.get("transactions");
-                } else {
-                    log.warn("API Sepay không trả về transactions");
-                }
-            } else {
-                log.warn("API Sepay trả về lỗi: {}", response.getBody());
-            }
-        } catch (Exception e) {
-            log.error("Lỗi khi gọi API Sepay: {}", e.getMessage(), e);
-        }
-        
-        return null;
-    }
-    
     /**
      * Xử lý khi tìm thấy giao dịch thành công
      * @param paymentId ID thanh toán
      * @param transaction Thông tin giao dịch từ Sepay
      */
-    @Transactional
     private void processSuccessfulTransaction(String paymentId) {
         try {
-            // Cập nhật trạng thái: đã nhận thanh toán
-            updatePaymentStatus(paymentId, "payment_received");
-            
             // Tìm invoice theo paymentId
             Invoice invoice = invoiceRepository.findByPaymentId(paymentId)
                     .orElseThrow(() -> new RuntimeException("Không tìm thấy invoice cho paymentId: " + paymentId));
+
+            // Webhook và vòng đối soát có thể cùng báo một giao dịch
+            if (invoice.getStatus() == PaymentStatus.PAYMENT_SUCCESS) {
+                log.info("Invoice đã được thanh toán trước đó: {}", paymentId);
+                return;
+            }
+            // Chuyển sang PAYMENT_SUCCESS bằng UPDATE có điều kiện: nếu job hết hạn vừa chuyển invoice sang
+            // PAYMENT_EXPIRED (và đã trả lại chỗ) thì không được đặt vé
+            Integer paid = transactionTemplate.execute(status -> invoiceRepository.markPaidIfWaitingPayment(paymentId));
+            if (paid == null || paid == 0) {
+                PaymentStatus current = invoiceRepository.findByPaymentId(paymentId)
+                        .map(Invoice::getStatus)
+                        .orElse(invoice.getStatus());
+                log.warn("Invoice không còn chờ thanh toán, không đặt vé: {}, status={}", paymentId, current);
+                if (current != PaymentStatus.PAYMENT_SUCCESS) {
+                    updatePaymentStatus(paymentId, convertPaymentStatus(current));
+                }
+                return;
+            }
+            invoice.setStatus(PaymentStatus.PAYMENT_SUCCESS);
+            log.info("Đã cập nhật invoice thành PAYMENT_SUCCESS: {}", paymentId);
+            paymentReferenceIndex.remove(invoice.getNoiDung(), paymentId);
+
+            // Cập nhật trạng thái: đã nhận thanh toán
+            updatePaymentStatus(paymentId, "payment_received");
             
             // Chuyển sang trạng thái processing
             updatePaymentStatus(paymentId, "processing");
             
             try {
-                // Cập nhật invoice thành PAYMENT_SUCCESS
-                invoice.setStatus(PaymentStatus.PAYMENT_SUCCESS);
-                invoiceRepository.save(invoice);
-                log.info("Đã cập nhật invoice thành PAYMENT_SUCCESS: {}", paymentId);
                 
                 // Lấy thông tin từ invoice để tạo vé
                 UUID userId = invoice.getUserId();
@@ -308,10 +389,10 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
                             BookingPayload payload = createBookingPayload(showId, ticketItems);
                               // Tạo vé cho người dùng
                             log.info("Bắt đầu tạo vé cho userId: {}, showId: {}", userId, showId);
-                            ticketServices.bookTicket(payload, userId);
+                            ticketServices.bookTicket(payload, userId, invoice);
                             log.info("Đã tạo vé thành công cho userId: {}, showId: {}", userId, showId);
                               // Gửi event thanh toán thành công qua Kafka để xử lý giải phóng khóa vé
-                            sendPaymentSuccessEvent(paymentId, ticketItems);
+                            sendPaymentSuccessEvent(paymentId, showId, ticketItems);
                             
                             // Gửi thông báo đặt vé thành công qua Kafka
                             sendPurchaseConfirmationEmail(paymentId, userId, showId, ticketItems);
@@ -324,9 +405,9 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
                 }
                 
                 // Delay 2 giây sau đó chuyển sang trạng thái completed
-                scheduler.schedule(() -> {
+                taskScheduler.schedule(() -> {
                     updatePaymentStatus(paymentId, "completed");
-                }, 2, TimeUnit.SECONDS);
+                }, Instant.now().plusSeconds(2));
             } catch (Exception e) {
                 log.error("Lỗi khi cập nhật trạng thái invoice: {}", e.getMessage(), e);
                 updatePaymentStatus(paymentId, "failed");
@@ -340,11 +421,12 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
     /**
      * Gửi event thanh toán thành công qua Kafka
      */
-    private void sendPaymentSuccessEvent(String paymentId, List<BookingLockRequest.TicketItem> ticketItems) {
+    private void sendPaymentSuccessEvent(String paymentId, UUID showId, List<BookingLockRequest.TicketItem> ticketItems) {
         try {
             // Tạo map dữ liệu
             Map<String, Object> eventData = new HashMap<>();
             eventData.put("paymentId", paymentId);
+            eventData.put("showId", showId.toString());
             eventData.put("ticketItems", ticketItems);
             eventData.put("timestamp", LocalDateTime.now().toString());
             
@@ -467,13 +549,12 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
                 return;
             }
             
-            // Lấy thông tin sự kiện từ Occa
-            ShowDataResponse showData = occaGrpcClient.getShowById(showId);
-            OccaResquest occaRequest = OccaResquest.newBuilder()
-                    .setOccaId(showData.getOccaId())
-                    .build();
-                
-            OccaDataResponse occaData = occaGrpcClient.getOccaById(occaRequest);
+            // Lấy thông tin show và sự kiện từ Occa trong một lần gọi
+            ShowWithOccaData showData = occaGrpcClient.getShowsWithOccaByIds(List.of(showId)).get(showId);
+            if (showData == null) {
+                log.error("Không tìm thấy show {} để gửi email xác nhận", showId);
+                return;
+            }
 
             // Chuyển đổi danh sách ticket items sang định dạng phù hợp cho email
             List<Map<String, Object>> ticketItemsForEmail = convertTicketItemsForEmail(ticketItems);
@@ -486,8 +567,8 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
             emailData.put("userEmail", invoice.getEmailReceived());
             emailData.put("userName", invoice.getNameCustomer());
             emailData.put("totalAmount", invoice.getSoTien());
-            emailData.put("occaName", occaData.getTitle());
-            emailData.put("location", occaData.getLocation());
+            emailData.put("occaName", showData.getOccaTitle());
+            emailData.put("location", showData.getOccaLocation());
             emailData.put("time", showData.getDate() + "-" + showData.getTime());
 
             // URL để xem vé
@@ -520,7 +601,7 @@ public class PaymentService {    private final PaymentStatusNotifier statusNotif
      */
     @PreDestroy
     public void cleanup() {
-        scheduler.shutdownNow();
+        taskScheduler.close();
         log.info("Đã dọn dẹp tài nguyên PaymentService");
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import com.ticket.servermono.ticketcontext.adapters.dtos.RevenueOverviewResponse.RevenueDistributionItem;
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+
+/**
+ * Gộp doanh thu hóa đơn: cộng theo showId trước (không cần gọi remote),
+ * sau đó mới đổi sang tên occa cho các show khác nhau.
+ */
+public final class RevenueAggregator {
+
+    private RevenueAggregator() {
+    }
+
+    /**
+     * Tổng tiền theo showId; hóa đơn không có showId bị bỏ qua
+     */
+    public static Map<UUID, Double> sumByShow(Collection<Invoice> invoices) {
+        Map<UUID, Double> revenueByShow = new HashMap<>();
+        for (Invoice invoice : invoices) {
+            if (invoice.getShowId() != null) {
+                revenueByShow.merge(invoice.getShowId(), invoice.getSoTien(), Double::sum);
+            }
+        }
+        return revenueByShow;
+    }
+
+    /**
+     * Gộp doanh thu theo show thành phân bổ theo tên occa
+     * @param occaNames showId -> tên occa (thiếu thì tính vào "Khác")
+     */
+    public static List<RevenueDistributionItem> distributeByOcca(Map<UUID, Double> revenueByShow, Map<UUID, String> occaNames) {
+        Map<String, Double> revenueByOcca = new HashMap<>();
+        revenueByShow.forEach((showId, amount) ->
+                revenueByOcca.merge(occaNames.getOrDefault(showId, "Khác"), amount, Double::sum));
+
+        return revenueByOcca.entrySet().stream()
+                .map(entry -> RevenueDistributionItem.builder()
+                        .name(entry.getKey())
+                        .amount(entry.getValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,166 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.RevenueDailyInvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.RevenueDailyRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Duy trì bảng revenue_daily (doanh thu theo show và ngày):
+ * cộng dồn từng hóa đơn khi nhận payment.success, và đối soát định kỳ các hóa đơn đã thanh toán nhưng chưa được cộng
+ * (dữ liệu cũ, event bị mất, hóa đơn tạo thẳng ở trạng thái PAYMENT_SUCCESS).
+ * Mỗi hóa đơn chỉ được cộng một lần nhờ bảng đánh dấu revenue_daily_invoices.
+ * Khi tắt app.revenue-rollup.serve-queries, các truy vấn thống kê được tính thẳng trên invoices bằng GROUP BY trong DB.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RevenueRollupService {
+
+    private final InvoiceRepository invoiceRepository;
+    private final RevenueDailyRepository revenueDailyRepository;
+    private final RevenueDailyInvoiceRepository revenueDailyInvoiceRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.revenue-rollup.backfill-page-size:500}")
+    private int backfillPageSize;
+
+    @Value("${app.revenue-rollup.serve-queries:true}")
+    private boolean serveFromRollup;
+
+    /**
+     * Cộng hóa đơn của một thanh toán vào revenue_daily (an toàn khi gọi nhiều lần)
+     */
+    @Transactional
+    public boolean applyPayment(String paymentId) {
+        return invoiceRepository.findByPaymentId(paymentId)
+                .map(this::applyInvoice)
+                .orElseGet(() -> {
+                    log.warn("Không tìm thấy invoice để tổng hợp doanh thu: {}", paymentId);
+                    return false;
+                });
+    }
+
+    /**
+     * @return true nếu hóa đơn vừa được cộng, false nếu đã cộng trước đó hoặc không thuộc diện tổng hợp
+     */
+    @Transactional
+    public boolean applyInvoice(Invoice invoice) {
+        if (invoice.getStatus() != PaymentStatus.PAYMENT_SUCCESS || invoice.getShowId() == null
+                || invoice.getCreatedAt() == null) {
+            return false;
+        }
+        LocalDate day = invoice.getCreatedAt().toLocalDate();
+        double amount = invoice.getSoTien() != null ? invoice.getSoTien() : 0.0;
+        int tickets = countTickets(invoice);
+
+        // Đánh dấu trước: lượt thứ hai (event lặp, đối soát chạy song song) sẽ chờ khóa rồi nhận 0 và bỏ qua
+        if (revenueDailyInvoiceRepository.markApplied(invoice.getId(), invoice.getShowId(), day, amount, tickets) == 0) {
+            return false;
+        }
+        revenueDailyRepository.addInvoice(invoice.getShowId(), day, amount, tickets);
+        return true;
+    }
+
+    /**
+     * Cộng các hóa đơn đã thanh toán nhưng chưa có trong revenue_daily, mỗi trang một transaction.
+     * Duyệt theo id nên hóa đơn không cộng được (vd. vừa được cộng song song) không chặn các trang sau.
+     * @return số hóa đơn đã cộng
+     */
+    public long backfill() {
+        long applied = 0;
+        UUID afterId = new UUID(0, 0);
+        while (true) {
+            UUID from = afterId;
+            BackfillPage result = transactionTemplate.execute(status -> {
+                List<Invoice> page = invoiceRepository.findNotRolledUpByStatus(
+                        PaymentStatus.PAYMENT_SUCCESS, from, PageRequest.of(0, backfillPageSize));
+                int done = 0;
+                for (Invoice invoice : page) {
+                    if (applyInvoice(invoice)) {
+                        done++;
+                    }
+                }
+                return new BackfillPage(page.isEmpty() ? null : page.get(page.size() - 1).getId(), page.size(), done);
+            });
+            if (result == null || result.lastId() == null) {
+                break;
+            }
+            applied += result.applied();
+            if (result.size() < backfillPageSize) {
+                break;
+            }
+            afterId = result.lastId();
+        }
+        if (applied > 0) {
+            log.info("Revenue rollup backfill: đã cộng {} hóa đơn", applied);
+        }
+        return applied;
+    }
+
+    /**
+     * Doanh thu theo show trong khoảng [from, to] (theo ngày nếu đọc từ revenue_daily)
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, Double> revenueByShow(Collection<UUID> showIds, LocalDateTime from, LocalDateTime to) {
+        Map<UUID, Double> result = new HashMap<>();
+        if (showIds.isEmpty()) {
+            return result;
+        }
+        List<Object[]> rows = serveFromRollup
+                ? revenueDailyRepository.sumAmountByShow(showIds, from.toLocalDate(), to.toLocalDate())
+                : invoiceRepository.sumAmountByShow(PaymentStatus.PAYMENT_SUCCESS, showIds, from, to);
+        for (Object[] row : rows) {
+            result.put((UUID) row[0], ((Number) row[1]).doubleValue());
+        }
+        return result;
+    }
+
+    /**
+     * Doanh thu theo ngày trong khoảng [from, to]; ngày không có doanh thu thì không có trong map
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, Double> revenueByDay(Collection<UUID> showIds, LocalDateTime from, LocalDateTime to) {
+        Map<LocalDate, Double> result = new HashMap<>();
+        if (showIds.isEmpty()) {
+            return result;
+        }
+        List<Object[]> rows = serveFromRollup
+                ? revenueDailyRepository.sumAmountByDay(showIds, from.toLocalDate(), to.toLocalDate())
+                : invoiceRepository.sumAmountByDay(PaymentStatus.PAYMENT_SUCCESS, showIds, from, to);
+        for (Object[] row : rows) {
+            result.put((LocalDate) row[0], ((Number) row[1]).doubleValue());
+        }
+        return result;
+    }
+
+    private record BackfillPage(UUID lastId, int size, int applied) {
+    }
+
+    private static int countTickets(Invoice invoice) {
+        if (invoice.getTicketDetails() == null) {
+            return 0;
+        }
+        return invoice.getTicketDetails().values().stream()
+                .mapToInt(quantity -> quantity != null ? quantity : 0)
+                .sum();
+    }
+}
@@ -0,0 +1,203 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ticket.servermono.ticketcontext.entities.TicketClass;
+import com.ticket.servermono.ticketcontext.entities.TicketClassBucket;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassBucketRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Quản lý sharded inventory: chia số vé còn trống của hạng vé "nóng" thành nhiều bucket
+ * để các lượt giữ chỗ đồng thời không cùng tranh một dòng ticket_classes.
+ *
+ * Bất biến: vé trống trong bucket đã được cộng vào TicketClass.lockedCapacity (ký quỹ),
+ * nên capacity = soldCount + lockedCapacity + vé trống ngoài bucket, và
+ * số vé còn lại thực tế = (capacity - soldCount - lockedCapacity) + tổng available của các bucket.
+ * Khi thanh toán thành công, luồng cũ (soldCount += q, lockedCapacity -= q) vẫn giữ đúng bất biến.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardedInventoryService {
+
+    private final TicketClassRepository ticketClassRepository;
+    private final TicketClassBucketRepository bucketRepository;
+
+    @Value("${app.inventory.shard-count:8}")
+    private int shardCount;
+
+    @Value("${app.inventory.shard-min-capacity:1000}")
+    private int shardMinCapacity;
+
+    /**
+     * Hạng vé có đi qua bucket không (đã chia, hoặc đủ lớn để chia)
+     */
+    public boolean isShardable(TicketClass ticketClass) {
+        return ticketClass.getShardCount() > 0 || ticketClass.getCapacity() >= shardMinCapacity;
+    }
+
+    /**
+     * Tổng số vé còn trống trong các bucket của một hạng vé
+     */
+    public int getAvailableInBuckets(UUID ticketClassId) {
+        Long sum = bucketRepository.sumAvailableByTicketClassId(ticketClassId);
+        return sum != null ? sum.intValue() : 0;
+    }
+
+    /**
+     * Giữ chỗ từ các bucket: ưu tiên bucket theo hash người mua, rồi đến các bucket lân cận.
+     * Chạy trong transaction của lockTicketsForBooking, nên nếu đơn thất bại thì các bucket được rollback.
+     *
+     * @param allocations nơi ghi lại số vé lấy từ mỗi bucket (key: "ticketClassId:bucketIndex")
+     * @return số vé giữ được từ bucket (có thể nhỏ hơn quantity nếu các bucket gần cạn)
+     */
+    public int reserve(TicketClass ticketClass, int quantity, String buyerKey, Map<String, Integer> allocations) {
+        UUID ticketClassId = ticketClass.getId();
+        int buckets = ensureSharded(ticketClass);
+        if (buckets == 0) {
+            return 0;
+        }
+
+        int home = Math.floorMod(buyerKey.hashCode(), buckets);
+
+        // Lấy toàn bộ số lượng từ bucket của người mua hoặc bucket lân cận gần nhất
+        for (int i = 0; i < buckets; i++) {
+            int bucketIndex = (home + i) % buckets;
+            if (bucketRepository.tryTake(ticketClassId, bucketIndex, quantity) == 1) {
+                allocations.merge(allocationKey(ticketClassId, bucketIndex), quantity, Integer::sum);
+                return quantity;
+            }
+        }
+
+        // Không bucket nào đủ một mình: gom từ nhiều bucket
+        Map<Integer, Integer> snapshot = new HashMap<>();
+        for (Object[] row : bucketRepository.findAvailabilityByTicketClassId(ticketClassId)) {
+            snapshot.put((Integer) row[0], (Integer) row[1]);
+        }
+
+        int remaining = quantity;
+        for (int i = 0; i < buckets && remaining > 0; i++) {
+            int bucketIndex = (home + i) % buckets;
+            int take = Math.min(remaining, snapshot.getOrDefault(bucketIndex, 0));
+            if (take > 0 && bucketRepository.tryTake(ticketClassId, bucketIndex, take) == 1) {
+                allocations.merge(allocationKey(ticketClassId, bucketIndex), take, Integer::sum);
+                remaining -= take;
+            }
+        }
+
+        return quantity - remaining;
+    }
+
+    /**
+     * Trả vé về đúng bucket đã cấp phát (khi khóa vé hết hạn)
+     * @param allocations key "ticketClassId:bucketIndex" -> số lượng
+     * @return số vé đã trả về bucket theo từng hạng vé; phần còn lại (bucket đã bị gộp) phải trả qua lockedCapacity
+     */
+    public Map<UUID, Integer> giveBack(Map<String, Integer> allocations) {
+        Map<UUID, Integer> returned = new HashMap<>();
+        if (allocations == null) {
+            return returned;
+        }
+
+        for (Map.Entry<String, Integer> entry : allocations.entrySet()) {
+            String[] parts = entry.getKey().split(":");
+            UUID ticketClassId = UUID.fromString(parts[0]);
+            int bucketIndex = Integer.parseInt(parts[1]);
+            int quantity = entry.getValue();
+
+            if (bucketRepository.giveBack(ticketClassId, bucketIndex, quantity) == 1) {
+                returned.merge(ticketClassId, quantity, Integer::sum);
+                log.info("Đã trả {} vé về bucket {} của hạng vé {}", quantity, bucketIndex, ticketClassId);
+            }
+        }
+        return returned;
+    }
+
+    /**
+     * Chia đều lại số vé còn trống giữa các bucket của một hạng vé
+     */
+    @Transactional
+    public void rebalance(UUID ticketClassId) {
+        List<TicketClassBucket> buckets = bucketRepository.findByTicketClassIdWithPessimisticLock(ticketClassId);
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        int total = buckets.stream().mapToInt(TicketClassBucket::getAvailable).sum();
+        int base = total / buckets.size();
+        int extra = total % buckets.size();
+
+        for (int i = 0; i < buckets.size(); i++) {
+            buckets.get(i).setAvailable(base + (i < extra ? 1 : 0));
+        }
+        bucketRepository.saveAll(buckets);
+        log.debug("Rebalanced {} vé trống giữa {} bucket của hạng vé {}", total, buckets.size(), ticketClassId);
+    }
+
+    /**
+     * Gộp các bucket trở lại hạng vé (dùng khi tắt chế độ SHARDED)
+     */
+    @Transactional
+    public void collapse(UUID ticketClassId) {
+        List<TicketClassBucket> buckets = bucketRepository.findByTicketClassIdWithPessimisticLock(ticketClassId);
+        int total = buckets.stream().mapToInt(TicketClassBucket::getAvailable).sum();
+
+        ticketClassRepository.adjustLockedCapacity(ticketClassId, -total);
+        ticketClassRepository.clearSharding(ticketClassId);
+        bucketRepository.deleteAllByTicketClassId(ticketClassId);
+        log.info("Đã gộp {} vé trống từ {} bucket về hạng vé {}", total, buckets.size(), ticketClassId);
+    }
+
+    /**
+     * Chia hạng vé thành bucket nếu chưa chia. Transaction đầu tiên giành được quyền sẽ
+     * chuyển toàn bộ vé trống vào bucket và cộng chúng vào lockedCapacity.
+     * @return số bucket của hạng vé
+     */
+    private int ensureSharded(TicketClass ticketClass) {
+        UUID ticketClassId = ticketClass.getId();
+        if (ticketClass.getShardCount() > 0) {
+            return ticketClass.getShardCount();
+        }
+
+        if (ticketClassRepository.claimForSharding(ticketClassId, shardCount) == 0) {
+            // Một transaction khác đã chia trước
+            Integer existing = ticketClassRepository.findShardCount(ticketClassId);
+            return existing != null ? existing : 0;
+        }
+
+        // Đã giữ khóa dòng ticket_classes nhờ câu UPDATE ở trên
+        int unlocked = Math.max(0, ticketClassRepository.findUnlockedCapacity(ticketClassId));
+        ticketClassRepository.adjustLockedCapacity(ticketClassId, unlocked);
+
+        List<TicketClassBucket> buckets = new ArrayList<>();
+        int base = unlocked / shardCount;
+        int extra = unlocked % shardCount;
+        for (int i = 0; i < shardCount; i++) {
+            buckets.add(TicketClassBucket.builder()
+                    .ticketClassId(ticketClassId)
+                    .bucketIndex(i)
+                    .available(base + (i < extra ? 1 : 0))
+                    .build());
+        }
+        bucketRepository.saveAll(buckets);
+
+        log.info("Đã chia {} vé trống của hạng vé {} thành {} bucket", unlocked, ticketClassId, shardCount);
+        return shardCount;
+    }
+
+    private static String allocationKey(UUID ticketClassId, int bucketIndex) {
+        return ticketClassId + ":" + bucketIndex;
+    }
+}
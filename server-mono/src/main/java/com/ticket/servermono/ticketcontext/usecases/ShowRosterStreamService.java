@@ -0,0 +1,100 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ticket.servermono.ticketcontext.adapters.dtos.TicketWithRecipientInfoResponse;
+import com.ticket.servermono.ticketcontext.grpc.OccaGrpcClient;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import occa.ShowWithOccaData;
+
+/**
+ * Xuất toàn bộ danh sách vé đã bán của một show theo từng chunk, đọc thẳng từ cursor DB.
+ * Bộ nhớ chỉ giữ một chunk tại một thời điểm nên không phụ thuộc vào số vé của show.
+ * Flow control do phía nhận đảm nhiệm: chunkSink chặn cho tới khi client sẵn sàng nhận tiếp.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShowRosterStreamService {
+
+    private final TicketRepository ticketRepository;
+    private final OccaGrpcClient occaGrpcClient;
+    private final EntityManager entityManager;
+
+    @Value("${app.roster.stream-chunk-size:500}")
+    private int defaultChunkSize;
+
+    @Value("${app.roster.max-chunk-size:5000}")
+    private int maxChunkSize;
+
+    /**
+     * @param chunkSize số dòng mỗi chunk (<= 0 thì dùng mặc định)
+     * @param chunkSink nhận từng chunk; ném exception (vd. client hủy) để dừng và đóng cursor
+     * @return tổng số dòng đã gửi
+     */
+    @Transactional(readOnly = true)
+    public long streamRoster(UUID showId, int chunkSize, Consumer<List<TicketWithRecipientInfoResponse>> chunkSink) {
+        ShowWithOccaData show = occaGrpcClient.getShowsWithOccaByIds(List.of(showId)).get(showId);
+        if (show == null) {
+            throw new EntityNotFoundException("Show not found: " + showId);
+        }
+        String occaTitle = show.getOccaTitle().isEmpty() ? "Unknown Event" : show.getOccaTitle();
+        int size = chunkSize > 0 ? Math.min(chunkSize, maxChunkSize) : defaultChunkSize;
+
+        long sent = 0;
+        try (Stream<Object[]> rows = ticketRepository.streamPaidRosterByShowId(showId)) {
+            List<TicketWithRecipientInfoResponse> chunk = new ArrayList<>(size);
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(toRosterRow(iterator.next(), showId, show, occaTitle));
+                if (chunk.size() == size) {
+                    chunkSink.accept(chunk);
+                    sent += chunk.size();
+                    chunk = new ArrayList<>(size);
+                    // Dòng dạng cột không được quản lý, nhưng vẫn dọn persistence context phòng khi có entity được nạp kèm
+                    entityManager.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunkSink.accept(chunk);
+                sent += chunk.size();
+            }
+        }
+        log.info("Streamed {} roster rows for show {}", sent, showId);
+        return sent;
+    }
+
+    private static TicketWithRecipientInfoResponse toRosterRow(Object[] row, UUID showId, ShowWithOccaData show, String occaTitle) {
+        return TicketWithRecipientInfoResponse.builder()
+                .ticketId((UUID) row[0])
+                .ticketType(row[1] != null ? (String) row[1] : "Unknown")
+                .ticketPrice(row[2] != null ? (Double) row[2] : 0.0)
+                .checkedInAt((String) row[3])
+                .purchasedAt((LocalDateTime) row[4])
+                .invoiceId((UUID) row[5])
+                .paymentId((String) row[6])
+                .recipientName((String) row[7])
+                .recipientEmail((String) row[8])
+                .recipientPhone((String) row[9])
+                .showId(showId)
+                .showDate(show.getDate())
+                .showTime(show.getTime())
+                .occaTitle(occaTitle)
+                .build();
+    }
+}
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -19,6 +20,7 @@ import com.ticket.servermono.ticketcontext.adapters.dtos.TicketWithRecipientInfo
 import com.ticket.servermono.ticketcontext.adapters.dtos.TicketsWithRevenueResponse;
 import com.ticket.servermono.ticketcontext.entities.ShowAuthCode;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -41,26 +43,27 @@ import com.ticket.servermono.ticketcontext.adapters.dtos.RevenueOverviewResponse
 import com.ticket.servermono.ticketcontext.adapters.dtos.RevenueOverviewResponse.RevenueDistributionItem;
 import com.ticket.servermono.ticketcontext.adapters.dtos.TicketClassResponse;
 import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+import com.ticket.servermono.ticketcontext.domain.enums.ReservationMode;
 import com.ticket.servermono.ticketcontext.entities.Invoice;
 import com.ticket.servermono.ticketcontext.entities.PaymentInfo;
 import com.ticket.servermono.ticketcontext.entities.Ticket;
 import com.ticket.servermono.ticketcontext.entities.TicketClass;
 import com.ticket.servermono.ticketcontext.grpc.OccaCreatorGrpcClient;
 import com.ticket.servermono.ticketcontext.grpc.OccaGrpcClient;
+import com.ticket.servermono.ticketcontext.grpc.UserGrpcClient;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.PaymentInfoRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketBulkInsertRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassBucketRepository;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketClassRepository;
 import com.ticket.servermono.ticketcontext.infrastructure.repositories.TicketRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.scheduler.TicketLockExpiryQueue;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.PaymentReferenceIndex;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.devh.boot.grpc.client.inject.GrpcClient;
-import occa.OccaDataResponse;
-import occa.OccaResquest;
-import occa.ShowDataResponse;
-import user.UserExistsRequest;
-import user.UserServiceGrpc;
+import occa.ShowWithOccaData;
 import org.springframework.kafka.core.KafkaTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -71,21 +74,36 @@ public class TicketServices {
     private static final String TICKET_BOOKING_TOPIC = "ticket.booking.stats";
     
     private final TicketClassRepository ticketClassRepository;
+    private final TicketClassBucketRepository ticketClassBucketRepository;
     private final TicketRepository ticketRepository;
+    private final TicketBulkInsertRepository ticketBulkInsertRepository;
+    private final TicketLockExpiryQueue ticketLockExpiryQueue;
+    private final PaymentReferenceIndex paymentReferenceIndex;
     private final InvoiceRepository invoiceRepository;
     private final PaymentInfoRepository paymentInfoRepository;    private final OccaGrpcClient occaGrpcClient;
     private final OccaCreatorGrpcClient occaCreatorGrpcClient;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
     private final ShowAuthCodeServices showAuthCodeServices;
+    private final ShardedInventoryService shardedInventoryService;
+    private final UserGrpcClient userGrpcClient;
+    private final RevenueRollupService revenueRollupService;
 
-    @GrpcClient("user-service")
-    private UserServiceGrpc.UserServiceBlockingStub userStub;
+    @Value("${app.inventory.reservation-mode:PESSIMISTIC}")
+    private ReservationMode reservationMode;
 
     public int calculateAvailableTickets(TicketClass ticketClass) {
-        Long soldTickets = ticketRepository.countByTicketClassId(ticketClass.getId());
-        // Subtract both sold tickets and locked tickets from capacity
-        return ticketClass.getCapacity() - soldTickets.intValue() - ticketClass.getLockedCapacity();
+        int available = calculateUnbucketedAvailableTickets(ticketClass);
+        // Vé trống của hạng vé đã chia bucket nằm trong các bucket (đã được tính vào lockedCapacity)
+        if (ticketClass.getShardCount() > 0) {
+            available += shardedInventoryService.getAvailableInBuckets(ticketClass.getId());
+        }
+        return available;
+    }
+
+    private int calculateUnbucketedAvailableTickets(TicketClass ticketClass) {
+        // Subtract both sold tickets (denormalized counter) and locked tickets from capacity
+        return ticketClass.getCapacity() - ticketClass.getSoldCount() - ticketClass.getLockedCapacity();
     }
 
     @Transactional
@@ -102,8 +120,8 @@ public class TicketServices {
                 throw new IllegalStateException("Ticket class is sold out");
             }
             // Generate ticket for user and save with invoice association
-            Ticket sellTicket = new Ticket(ticketClass, invoice);
-            ticketRepository.save(sellTicket);
+            ticketBulkInsertRepository.insertTickets(ticketClass, invoice, null, 1);
+            ticketClassRepository.incrementSoldCount(ticketClassId, 1);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -142,6 +160,15 @@ public class TicketServices {
         }
     }@Transactional
     public void bookTicket(BookingPayload payload, UUID userId) {
+        bookTicket(payload, userId, null);
+    }
+
+    /**
+     * Tạo vé cho một đơn đã thanh toán
+     * @param invoice hóa đơn của đơn hàng (tìm theo paymentId); null thì tạo hóa đơn mới
+     */
+    @Transactional
+    public void bookTicket(BookingPayload payload, UUID userId, Invoice invoice) {
 
         // Kiểm tra xem show có tồn tại không thông qua gRPC
         try {
@@ -194,31 +221,11 @@ public class TicketServices {
             ticketClassesToBook.put(ticketClass, item.getQuantity());
         }
 
-        log.info("Validated all ticket classes for booking. Creating tickets for user: {}", userId);        // Tìm hóa đơn liên quan để liên kết với các vé
-        Invoice invoice = null;
-        // Tìm hóa đơn với các thông tin từ payload
-        List<Invoice> matchingInvoices = invoiceRepository.findByShowIdAndStatus(payload.getShowId(), PaymentStatus.PAYMENT_SUCCESS);
-        
-        // Lọc các hóa đơn theo thông tin chi tiết vé
-        for (Invoice inv : matchingInvoices) {
-            // Kiểm tra xem hóa đơn này có chứa các hạng vé trong payload không
-            boolean matches = true;
-            for (BookingPayload.TicketPayload ticketPayload : payload.getTickets()) {
-                String ticketClassId = ticketPayload.getId().toString();
-                if (!inv.getTicketDetails().containsKey(ticketClassId)) {
-                    matches = false;
-                    break;
-                }
-            }
-            if (matches) {
-                invoice = inv;
-                break;
-            }
-        }
-        
+        log.info("Validated all ticket classes for booking. Creating tickets for user: {}", userId);
+
         if (invoice == null) {
-            // Không tìm thấy hóa đơn phù hợp, tạo một hóa đơn mới
-            log.warn("No matching invoice found for booking, creating a new one");
+            // Không có hóa đơn đi kèm, tạo một hóa đơn mới
+            log.warn("No invoice provided for booking, creating a new one");
             double totalAmount = 0.0;
             Map<String, Integer> ticketDetails = new HashMap<>();
             
@@ -248,19 +255,16 @@ public class TicketServices {
         List<Ticket> createdTickets = new ArrayList<>();
 
         // Tạo vé cho từng loại và số lượng, liên kết với hóa đơn
+        // Ghi vé theo JDBC batch với ID sinh sẵn, không đi qua persistence context
         for (Map.Entry<TicketClass, Integer> entry : ticketClassesToBook.entrySet()) {
-            TicketClass ticketClass = entry.getKey();
-            int quantity = entry.getValue();
-
-            for (int i = 0; i < quantity; i++) {
-                Ticket ticket = new Ticket(ticketClass, finalInvoice);
-                ticket.setEndUserId(userId);
-                createdTickets.add(ticket);
-            }
+            createdTickets.addAll(ticketBulkInsertRepository.insertTickets(
+                    entry.getKey(), finalInvoice, userId, entry.getValue()));
         }
 
-        // Lưu tất cả vé vào database trong một lần
-        ticketRepository.saveAll(createdTickets);
+        // Cập nhật số vé đã bán của từng hạng vé
+        for (Map.Entry<TicketClass, Integer> entry : ticketClassesToBook.entrySet()) {
+            ticketClassRepository.incrementSoldCount(entry.getKey().getId(), entry.getValue());
+        }
 
         log.info("Successfully booked {} tickets for user {} in show {}",
                 createdTickets.size(), userId, payload.getShowId());
@@ -290,27 +294,24 @@ public class TicketServices {
     }
 
     /**
-     * Kiểm tra xem người dùng có tồn tại không thông qua gRPC
+     * Kiểm tra xem người dùng có tồn tại không (user đã biết được trả lời từ cache, còn lại gọi gRPC)
      * 
      * @param userId ID người dùng cần kiểm tra
      * @return true nếu người dùng tồn tại, false nếu không
      */
     public boolean checkUserExists(UUID userId) {
-        try {
-            log.info("Sending gRPC request to check if user exists: {}", userId);
-
-            var request = UserExistsRequest.newBuilder()
-                    .setUserId(userId.toString())
-                    .build();
-
-            var response = userStub.checkUserExists(request);
+        return userGrpcClient.userExists(userId);
+    }
 
-            log.info("User exists response: {}", response.getExists());
-            return response.getExists();
-        } catch (Exception e) {
-            log.error("Error checking if user exists via gRPC: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to check user existence", e);
-        }
+    /**
+     * Kiểm tra tồn tại cho nhiều người dùng trong một lượt gọi gRPC; kết quả được nhớ vào cùng cache
+     * với checkUserExists
+     * 
+     * @param userIds Các ID người dùng cần kiểm tra
+     * @return Các ID người dùng tồn tại
+     */
+    public Set<UUID> findExistingUsers(Collection<UUID> userIds) {
+        return userGrpcClient.findExistingUsers(userIds);
     }    
     private List<ListTicketsResponse> buildTicketsResponse(List<Ticket> tickets) {
         if (tickets == null || tickets.isEmpty()) {
@@ -337,21 +338,25 @@ public class TicketServices {
         
         List<ListTicketsResponse> responses = new ArrayList<>();
         
-        // Xử lý từng showId để giảm số lượng gRPC calls
+        // Lấy thông tin show + occa của tất cả show trong một gRPC call
+        Map<UUID, ShowWithOccaData> showsById;
+        try {
+            showsById = occaGrpcClient.getShowsWithOccaByIds(ticketsByShowId.keySet());
+        } catch (Exception e) {
+            log.error("Error fetching show/occa data for {} shows: {}", ticketsByShowId.size(), e.getMessage(), e);
+            return responses;
+        }
+        
         for (Map.Entry<UUID, List<Ticket>> entry : ticketsByShowId.entrySet()) {
             UUID showId = entry.getKey();
             List<Ticket> showTickets = entry.getValue();
             
             try {
-                // Lấy thông tin show từ gRPC client
-                ShowDataResponse showData = occaGrpcClient.getShowById(showId);
-                
-                // Lấy thông tin occa từ gRPC client
-                OccaResquest occaRequest = OccaResquest.newBuilder()
-                    .setOccaId(showData.getOccaId())
-                    .build();
-                
-                OccaDataResponse occaData = occaGrpcClient.getOccaById(occaRequest);
+                ShowWithOccaData showData = showsById.get(showId);
+                if (showData == null) {
+                    log.warn("Show {} not found, skipping its tickets", showId);
+                    continue;
+                }
                 
                 // Tạo response cho mỗi vé trong show
                 for (Ticket ticket : showTickets) {
@@ -381,8 +386,8 @@ public class TicketServices {
                     // Thông tin occa
                     response.setOcca(response.new Occa(
                         UUID.fromString(showData.getOccaId()),
-                        occaData.getTitle(),
-                        occaData.getLocation()
+                        showData.getOccaTitle(),
+                        showData.getOccaLocation()
                     ));
                     
                     responses.add(response);
@@ -583,7 +588,8 @@ public class TicketServices {
             throw new IllegalStateException("Cannot delete ticket class with sold tickets");
         }
         
-        // Delete the ticket class
+        // Delete the ticket class together with its inventory buckets (if sharded)
+        ticketClassBucketRepository.deleteAllByTicketClassId(ticketId);
         ticketClassRepository.delete(ticketClass);
         log.info("Deleted ticket class with ID: {}", ticketId);
     }
@@ -629,37 +635,28 @@ public class TicketServices {
             }
         }
         
-        // Use pessimistic locking to lock all ticket classes at once
-        List<TicketClass> lockedTicketClasses = ticketClassRepository.findAllByIdWithPessimisticLock(ticketClassIds);
-        
-        // Map for easier access
-        Map<UUID, TicketClass> ticketClassMap = lockedTicketClasses.stream()
-                .collect(Collectors.toMap(TicketClass::getId, tc -> tc));
+        // Vé giữ từ bucket (chỉ dùng trong chế độ SHARDED)
+        Map<String, Integer> bucketAllocations = new HashMap<>();
         
-        // Check if all requested ticket classes were found
-        for (UUID ticketClassId : ticketClassIds) {
-            if (!ticketClassMap.containsKey(ticketClassId)) {
-                throw new EntityNotFoundException("Ticket class not found: " + ticketClassId);
-            }
+        // Reserve capacity using the configured mode; throws (and rolls back) if any class is short
+        Map<UUID, TicketClass> ticketClassMap;
+        switch (reservationMode) {
+            case CONDITIONAL_UPDATE:
+                ticketClassMap = reserveWithConditionalUpdate(ticketClassIds, requestedQuantities);
+                break;
+            case SHARDED:
+                ticketClassMap = reserveWithShardedInventory(ticketClassIds, requestedQuantities,
+                        resolveBuyerKey(request), bucketAllocations);
+                break;
+            default:
+                ticketClassMap = reserveWithPessimisticLock(ticketClassIds, requestedQuantities);
         }
         
-        // Second pass: check availability and update locked capacity
+        // Second pass: compute amount and ticket details
         for (UUID ticketClassId : ticketClassIds) {
             TicketClass ticketClass = ticketClassMap.get(ticketClassId);
             int requestedQuantity = requestedQuantities.get(ticketClassId);
             
-            // Calculate available tickets (capacity - sold - locked)
-            int availableTickets = calculateAvailableTickets(ticketClass);
-            
-            // Check if enough tickets are available
-            if (availableTickets < requestedQuantity) {
-                throw new IllegalStateException("Vé đã hết hoặc đã được đặt bởi người khác. " +
-                        "Requested: " + requestedQuantity + ", Available: " + availableTickets);
-            }
-            
-            // Lock the requested tickets by increasing the locked capacity
-            ticketClass.setLockedCapacity(ticketClass.getLockedCapacity() + requestedQuantity);
-            
             // Add to total amount - using ticket class price * quantity
             totalAmount += ticketClass.getPrice() * requestedQuantity;
             
@@ -667,9 +664,6 @@ public class TicketServices {
             ticketDetails.put(ticketClassId.toString(), requestedQuantity);
         }
         
-        // Save all updated ticket classes in one transaction
-        ticketClassRepository.saveAll(lockedTicketClasses);
-        
         // Generate payment ID - timestamp + random string
         String timestamp = String.valueOf(System.currentTimeMillis()).substring(0, 10);
         String randomStr = UUID.randomUUID().toString().substring(0, 12);
@@ -690,10 +684,16 @@ public class TicketServices {
                 .nameCustomer(request.getRecipient().getName())
                 .phoneCustomer(request.getRecipient().getPhoneNumber())
                 .ticketDetails(ticketDetails) // Lưu chi tiết vé vào invoice
+                .bucketAllocations(bucketAllocations)
                 .build();
         
         // Save invoice information
         invoiceRepository.save(invoice);
+
+        // Giải phóng khóa vé ngay khi hết hạn (sau khi transaction commit)
+        ticketLockExpiryQueue.register(invoice.getPaymentId(), invoice.getExpiresAt());
+        // Cho phép webhook thanh toán tìm hóa đơn theo mã tham chiếu
+        paymentReferenceIndex.register(invoice.getNoiDung(), invoice.getPaymentId());
         
         // Create and return response with basic information, without payment details
         return BookingLockResponse.builder()
@@ -704,6 +704,133 @@ public class TicketServices {
                 .build();
     }
     
+    /**
+     * Giữ chỗ bằng pessimistic lock: SELECT ... FOR UPDATE tất cả hạng vé, kiểm tra rồi tăng lockedCapacity
+     * @return map ticketClassId -> TicketClass đã được giữ chỗ
+     */
+    private Map<UUID, TicketClass> reserveWithPessimisticLock(List<UUID> ticketClassIds,
+                                                              Map<UUID, Integer> requestedQuantities) {
+        // Use pessimistic locking to lock all ticket classes at once
+        List<TicketClass> lockedTicketClasses = ticketClassRepository.findAllByIdWithPessimisticLock(ticketClassIds);
+        
+        // Map for easier access
+        Map<UUID, TicketClass> ticketClassMap = lockedTicketClasses.stream()
+                .collect(Collectors.toMap(TicketClass::getId, tc -> tc));
+        
+        // Check if all requested ticket classes were found
+        for (UUID ticketClassId : ticketClassIds) {
+            if (!ticketClassMap.containsKey(ticketClassId)) {
+                throw new EntityNotFoundException("Ticket class not found: " + ticketClassId);
+            }
+        }
+        
+        for (Map.Entry<UUID, Integer> entry : requestedQuantities.entrySet()) {
+            TicketClass ticketClass = ticketClassMap.get(entry.getKey());
+            int requestedQuantity = entry.getValue();
+            
+            // Calculate available tickets (capacity - sold - locked), excluding units held in buckets
+            int availableTickets = calculateUnbucketedAvailableTickets(ticketClass);
+            
+            // Check if enough tickets are available
+            if (availableTickets < requestedQuantity) {
+                throw new IllegalStateException("Vé đã hết hoặc đã được đặt bởi người khác. " +
+                        "Requested: " + requestedQuantity + ", Available: " + availableTickets);
+            }
+            
+            // Lock the requested tickets by increasing the locked capacity
+            ticketClass.setLockedCapacity(ticketClass.getLockedCapacity() + requestedQuantity);
+        }
+        
+        // Save all updated ticket classes in one transaction
+        ticketClassRepository.saveAll(lockedTicketClasses);
+        return ticketClassMap;
+    }
+    
+    /**
+     * Giữ chỗ bằng UPDATE có điều kiện cho từng hạng vé, không đọc-sửa-ghi dưới khóa.
+     * Nếu một hạng vé không đủ, ném IllegalStateException để transaction rollback các hạng đã giữ trước đó.
+     * @return map ticketClassId -> TicketClass (dùng để lấy giá)
+     */
+    private Map<UUID, TicketClass> reserveWithConditionalUpdate(List<UUID> ticketClassIds,
+                                                                Map<UUID, Integer> requestedQuantities) {
+        Map<UUID, TicketClass> ticketClassMap = ticketClassRepository.findAllById(ticketClassIds).stream()
+                .collect(Collectors.toMap(TicketClass::getId, tc -> tc));
+        
+        for (UUID ticketClassId : ticketClassIds) {
+            if (!ticketClassMap.containsKey(ticketClassId)) {
+                throw new EntityNotFoundException("Ticket class not found: " + ticketClassId);
+            }
+        }
+        
+        // Cập nhật theo thứ tự id cố định để tránh deadlock giữa các đơn nhiều hạng vé
+        List<UUID> orderedIds = new ArrayList<>(requestedQuantities.keySet());
+        orderedIds.sort(null);
+        
+        for (UUID ticketClassId : orderedIds) {
+            int requestedQuantity = requestedQuantities.get(ticketClassId);
+            if (ticketClassRepository.tryReserveCapacity(ticketClassId, requestedQuantity) == 0) {
+                throw new IllegalStateException("Vé đã hết hoặc đã được đặt bởi người khác. " +
+                        "Requested: " + requestedQuantity + ", Ticket class: " + ticketClassId);
+            }
+        }
+        
+        return ticketClassMap;
+    }
+    
+    /**
+     * Giữ chỗ qua sharded inventory: hạng vé lớn lấy vé từ bucket theo hash người mua,
+     * phần thiếu (và các hạng vé nhỏ) giữ chỗ bằng UPDATE có điều kiện trên ticket_classes.
+     * @param bucketAllocations nơi ghi lại bucket đã cấp phát để lưu vào invoice
+     * @return map ticketClassId -> TicketClass (dùng để lấy giá)
+     */
+    private Map<UUID, TicketClass> reserveWithShardedInventory(List<UUID> ticketClassIds,
+                                                               Map<UUID, Integer> requestedQuantities,
+                                                               String buyerKey,
+                                                               Map<String, Integer> bucketAllocations) {
+        Map<UUID, TicketClass> ticketClassMap = ticketClassRepository.findAllById(ticketClassIds).stream()
+                .collect(Collectors.toMap(TicketClass::getId, tc -> tc));
+        
+        for (UUID ticketClassId : ticketClassIds) {
+            if (!ticketClassMap.containsKey(ticketClassId)) {
+                throw new EntityNotFoundException("Ticket class not found: " + ticketClassId);
+            }
+        }
+        
+        List<UUID> orderedIds = new ArrayList<>(requestedQuantities.keySet());
+        orderedIds.sort(null);
+        
+        for (UUID ticketClassId : orderedIds) {
+            TicketClass ticketClass = ticketClassMap.get(ticketClassId);
+            int requestedQuantity = requestedQuantities.get(ticketClassId);
+            
+            int remaining = requestedQuantity;
+            if (shardedInventoryService.isShardable(ticketClass)) {
+                remaining -= shardedInventoryService.reserve(ticketClass, requestedQuantity, buyerKey, bucketAllocations);
+            }
+            
+            if (remaining > 0 && ticketClassRepository.tryReserveCapacity(ticketClassId, remaining) == 0) {
+                throw new IllegalStateException("Vé đã hết hoặc đã được đặt bởi người khác. " +
+                        "Requested: " + requestedQuantity + ", Ticket class: " + ticketClassId);
+            }
+        }
+        
+        return ticketClassMap;
+    }
+    
+    /**
+     * Khóa dùng để chọn bucket cho người mua: id người nhận, email, hoặc ngẫu nhiên
+     */
+    private String resolveBuyerKey(BookingLockRequest request) {
+        BookingLockRequest.Recipient recipient = request.getRecipient();
+        if (recipient != null && recipient.getId() != null) {
+            return recipient.getId();
+        }
+        if (recipient != null && recipient.getEmail() != null) {
+            return recipient.getEmail();
+        }
+        return UUID.randomUUID().toString();
+    }
+    
     /**
      * Lấy thông tin thanh toán cho đơn đặt vé
      * @param paymentId ID của thanh toán
@@ -799,45 +926,21 @@ public class TicketServices {
         log.info("Getting revenue overview from {} to {} for creator {}", from, to, creatorId);
         
         // Get all show_id belong principal
-        List<UUID> showIds = occaCreatorGrpcClient.getShowIdsByCreatorId(creatorId);
-        
-        // Get all successful payment invoices within the date range with showId filter
-        List<Invoice> allInvoices = invoiceRepository.findByStatus(PaymentStatus.PAYMENT_SUCCESS).stream()
-                .filter(invoice -> {
-                    LocalDateTime createdAt = invoice.getCreatedAt();
-                    return createdAt != null && 
-                           !createdAt.isBefore(from) && 
-                           !createdAt.isAfter(to) && 
-                           showIds.contains(invoice.getShowId());
-                })
-                .collect(Collectors.toList());
+        Set<UUID> showIds = new HashSet<>(occaCreatorGrpcClient.getShowIdsByCreatorId(creatorId));
+        
+        // Revenue per show within the date range, aggregated in the database (daily rollup or invoices)
+        Map<UUID, Double> revenueByShow = revenueRollupService.revenueByShow(showIds, from, to);
         
-        log.info("Found {} successful payments in date range", allInvoices.size());
+        log.info("Found revenue for {} shows in date range", revenueByShow.size());
         
         // Calculate total revenue
-        double totalRevenue = allInvoices.stream()
-                .mapToDouble(Invoice::getSoTien)
+        double totalRevenue = revenueByShow.values().stream()
+                .mapToDouble(Double::doubleValue)
                 .sum();
                 
-        // Group invoices by occa name for revenue distribution
-        Map<String, Double> revenueByOcca = new HashMap<>();
-        
-        for (Invoice invoice : allInvoices) {
-            UUID showId = invoice.getShowId();
-            if (showId != null) {
-                // Use OccaGrpcClient to get occa name
-                String occaName = occaGrpcClient.getOccaNameByShowId(showId);
-                revenueByOcca.put(occaName, revenueByOcca.getOrDefault(occaName, 0.0) + invoice.getSoTien());
-            }
-        }
-        
-        // Convert the map to list of revenue distribution items
-        List<RevenueDistributionItem> distributionItems = revenueByOcca.entrySet().stream()
-                .map(entry -> RevenueDistributionItem.builder()
-                        .name(entry.getKey())
-                        .amount(entry.getValue())
-                        .build())
-                .collect(Collectors.toList());
+        // Resolve occa names for the distinct shows (cached, batched and fetched concurrently)
+        Map<UUID, String> occaNames = occaGrpcClient.getOccaNamesByShowIds(revenueByShow.keySet());
+        List<RevenueDistributionItem> distributionItems = RevenueAggregator.distributeByOcca(revenueByShow, occaNames);
         
         // Create period object
         Period period = Period.builder()
@@ -867,18 +970,8 @@ public class TicketServices {
         // Get all show_id belong principal
         List<UUID> showIds = occaCreatorGrpcClient.getShowIdsByCreatorId(userId.toString());
 
-        // Get all successful payment invoices within the date range for the user
-        List<Invoice> allInvoices = invoiceRepository.findByStatus(PaymentStatus.PAYMENT_SUCCESS).stream()
-                .filter(invoice -> {
-                    LocalDateTime createdAt = invoice.getCreatedAt();
-                    return createdAt != null &&
-                           !createdAt.isBefore(from) &&
-                           !createdAt.isAfter(to) &&
-                           showIds.contains(invoice.getShowId());
-                })
-                .collect(Collectors.toList());
-        
-        log.info("Found {} successful payments in date range", allInvoices.size());
+        // Revenue per day within the date range, aggregated in the database (daily rollup or invoices)
+        Map<LocalDate, Double> dailyRevenue = revenueRollupService.revenueByDay(showIds, from, to);
         
         // Group invoices by date and calculate total revenue for each date
         Map<LocalDate, Double> revenueByDate = new HashMap<>();
@@ -894,13 +987,7 @@ public class TicketServices {
         }
         
         // Add actual revenue to dates that have it
-        for (Invoice invoice : allInvoices) {
-            LocalDateTime createdAt = invoice.getCreatedAt();
-            if (createdAt != null) {
-                LocalDate invoiceDate = createdAt.toLocalDate();
-                revenueByDate.put(invoiceDate, revenueByDate.getOrDefault(invoiceDate, 0.0) + invoice.getSoTien());
-            }
-        }
+        revenueByDate.putAll(dailyRevenue);
 
         // Convert the map to list of daily revenue items
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
@@ -936,19 +1023,16 @@ public class TicketServices {
         
         // Calculate total unique occas the user has participated in
         Set<UUID> uniqueOccas = new HashSet<>();
+        Set<UUID> showIds = userTickets.stream()
+                .map(ticket -> ticket.getTicketClass().getShowId())
+                .collect(Collectors.toSet());
         
-        for (Ticket ticket : userTickets) {
-            TicketClass ticketClass = ticket.getTicketClass();
-            UUID showId = ticketClass.getShowId();
-            
-            try {
-                // Get occa ID through show ID
-                ShowDataResponse showData = occaGrpcClient.getShowById(showId);
-                uniqueOccas.add(UUID.fromString(showData.getOccaId()));
-            } catch (Exception e) {
-                log.warn("Failed to get occa ID for show {}: {}", showId, e.getMessage());
-                // Continue to next ticket
-            }
+        try {
+            // Get occa IDs of all shows in one call
+            occaGrpcClient.getShowsWithOccaByIds(showIds).values()
+                    .forEach(show -> uniqueOccas.add(UUID.fromString(show.getOccaId())));
+        } catch (Exception e) {
+            log.warn("Failed to get occa IDs for {} shows: {}", showIds.size(), e.getMessage());
         }
         
         // Build and return the statistics map
@@ -1127,7 +1211,7 @@ public class TicketServices {
      * @param showId ID của show
      * @return true nếu người dùng có quyền truy cập, false nếu không
      */
-    private boolean checkUserAuthorizationForShow(UUID userId, UUID showId) {
+    public boolean checkUserAuthorizationForShow(UUID userId, UUID showId) {
         List<TicketClass> ticketClasses = ticketClassRepository.findByShowId(showId);
         
         if (ticketClasses.isEmpty()) {
@@ -1169,29 +1253,23 @@ public class TicketServices {
         // Tạo đối tượng Pageable 
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortField));
         
-        // Lấy thông tin show
-        ShowDataResponse showData;
+        // Lấy thông tin show kèm occa trong một gRPC call
+        ShowWithOccaData showData;
         try {
-            showData = occaGrpcClient.getShowById(showId);
+            showData = occaGrpcClient.getShowsWithOccaByIds(List.of(showId)).get(showId);
         } catch (Exception e) {
             log.error("Error fetching show data for showId {}: {}", showId, e.getMessage());
             throw new RuntimeException("Failed to fetch show data");
         }
-        
-        // Lấy thông tin occa
-        final String[] occaTitle = {""};
-        try {
-            OccaResquest occaRequest = OccaResquest.newBuilder()
-                .setOccaId(showData.getOccaId())
-                .build();
-            OccaDataResponse occaData = occaGrpcClient.getOccaById(occaRequest);
-            occaTitle[0] = occaData.getTitle();
-        } catch (Exception e) {
-            log.error("Error fetching occa data for occaId {}: {}", showData.getOccaId(), e.getMessage());
-            // Continue without occa title rather than failing
-            occaTitle[0] = "Unknown Event";
+        if (showData == null) {
+            log.error("Show {} not found", showId);
+            throw new RuntimeException("Failed to fetch show data");
         }
         
+        final String[] occaTitle = {
+            showData.getOccaTitle().isEmpty() ? "Unknown Event" : showData.getOccaTitle()
+        };
+        
         // Lấy danh sách vé trực tiếp từ repository với phân trang
         Page<Ticket> ticketsPage = ticketRepository.findByTicketClassShowIdAndInvoicePaid(showId, pageable);
         
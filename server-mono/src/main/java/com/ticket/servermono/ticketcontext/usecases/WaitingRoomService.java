@@ -0,0 +1,272 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ticket.servermono.ticketcontext.adapters.dtos.QueueStatusResponse;
+import com.ticket.servermono.ticketcontext.domain.enums.WaitingRoomStatus;
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+import com.ticket.servermono.ticketcontext.infrastructure.events.WaitingRoomAdvancedEvent;
+import com.ticket.servermono.ticketcontext.infrastructure.waitingroom.WaitingRoomStore;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Phòng chờ ảo trước /v1/booking/lock: người dùng vào hàng theo show, được cho vào
+ * với tốc độ thích ứng theo độ trễ của lockTicketsForBooking và nhận một pass ngắn hạn.
+ *
+ * Tốc độ điều chỉnh kiểu AIMD: độ trễ khóa vé (EWMA) dưới ngưỡng thì tăng thêm một bước,
+ * vượt ngưỡng thì giảm một nửa, luôn nằm trong [min-rate, max-rate]. Giây nào không có lần khóa vé nào
+ * thì giữ nguyên tốc độ, và quá latency-stale-seconds không có mẫu mới thì bỏ EWMA cũ để không tăng tốc theo dữ liệu cũ.
+ *
+ * Với store=db, mỗi giây chỉ một node giành được lượt cho vào của show (xem {@link WaitingRoomStore#claimAdmissionTick})
+ * và sự kiện hàng chờ dịch chuyển được phát qua Kafka để node nào đang giữ WebSocket của client cũng cập nhật vị trí.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaitingRoomService {
+
+    private static final double LATENCY_SMOOTHING = 0.2;
+    public static final String WAITING_ROOM_ADVANCED_TOPIC = "waiting-room-advanced";
+
+    private final WaitingRoomStore store;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @Value("${app.waiting-room.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.waiting-room.store:memory}")
+    private String storeType;
+
+    @Value("${app.waiting-room.initial-rate:20}")
+    private double initialRate;
+
+    @Value("${app.waiting-room.min-rate:5}")
+    private double minRate;
+
+    @Value("${app.waiting-room.max-rate:500}")
+    private double maxRate;
+
+    @Value("${app.waiting-room.rate-step:5}")
+    private double rateStep;
+
+    @Value("${app.waiting-room.target-lock-latency-ms:300}")
+    private double targetLockLatencyMs;
+
+    @Value("${app.waiting-room.pass-ttl-seconds:120}")
+    private long passTtlSeconds;
+
+    @Value("${app.waiting-room.latency-stale-seconds:10}")
+    private long latencyStaleSeconds;
+
+    private volatile double admitRate = -1;
+    private volatile double lockLatencyMs = 0;
+    private volatile long lastLatencySampleAt = 0;
+    private final AtomicInteger latencySamplesSinceAdjust = new AtomicInteger();
+    private final Map<UUID, Double> admissionCredits = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Vào hàng chờ của một show
+     */
+    public QueueStatusResponse join(String showId, UUID userId) {
+        WaitingRoomEntry entry = store.enqueue(UUID.fromString(showId), userId);
+        log.info("Nguoi dung {} vao hang cho show {}, sequence {}", userId, showId, entry.getSequence());
+        return toResponse(entry);
+    }
+
+    /**
+     * Lấy trạng thái hiện tại của một lượt xếp hàng
+     */
+    public Optional<QueueStatusResponse> getStatus(String queueToken) {
+        return store.findByQueueToken(queueToken).map(this::toResponse);
+    }
+
+    public Optional<WaitingRoomEntry> findEntry(String queueToken) {
+        return store.findByQueueToken(queueToken);
+    }
+
+    /**
+     * Trạng thái của nhiều lượt trong cùng một show từ một ảnh chụp hàng chờ.
+     * Lượt còn chờ được tính vị trí từ sequence; chỉ lượt vừa rời hàng (đã được cho vào) mới được đọc lại để lấy pass.
+     *
+     * @param sequenceByToken queueToken -> sequence
+     * @return queueToken -> trạng thái (bỏ qua lượt không còn tồn tại)
+     */
+    public Map<String, QueueStatusResponse> getStatuses(UUID showId, Map<String, Long> sequenceByToken) {
+        Map<String, QueueStatusResponse> statuses = new HashMap<>();
+        if (sequenceByToken.isEmpty()) {
+            return statuses;
+        }
+        long maxSequence = sequenceByToken.values().stream().mapToLong(Long::longValue).max().getAsLong();
+        WaitingRoomStore.QueuePositions positions = store.snapshotPositions(showId, maxSequence);
+        sequenceByToken.forEach((queueToken, sequence) -> {
+            long position = positions.positionOf(sequence);
+            if (position > 0) {
+                statuses.put(queueToken, QueueStatusResponse.builder()
+                        .showId(showId.toString())
+                        .queueToken(queueToken)
+                        .status(WaitingRoomStatus.WAITING.name())
+                        .position(position)
+                        .admitRatePerSecond(currentAdmitRate())
+                        .build());
+            } else {
+                store.findByQueueToken(queueToken).ifPresent(entry -> statuses.put(queueToken, toResponse(entry)));
+            }
+        });
+        return statuses;
+    }
+
+    /**
+     * Giành pass trước khi khóa vé: kiểm tra và đánh dấu đã dùng trong một bước nguyên tử,
+     * nên hai request cùng pass không thể cùng khóa vé
+     *
+     * @return false nếu pass không hợp lệ, hết hạn, không thuộc show/người dùng này hoặc đã bị request khác giành
+     */
+    public boolean claimPass(String showId, String passToken, UUID userId) {
+        if (passToken == null || passToken.isBlank()) {
+            return false;
+        }
+        UUID showUuid;
+        try {
+            showUuid = UUID.fromString(showId);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return false;
+        }
+        return store.claimPass(showUuid, passToken, userId, LocalDateTime.now());
+    }
+
+    /**
+     * Trả lại pass khi khóa vé thất bại
+     */
+    public void releasePass(String passToken) {
+        store.releasePass(passToken);
+    }
+
+    /**
+     * Ghi nhận độ trễ của một lần lockTicketsForBooking
+     */
+    public synchronized void recordLockLatency(long latencyMs) {
+        lockLatencyMs = lockLatencyMs == 0
+                ? latencyMs
+                : LATENCY_SMOOTHING * latencyMs + (1 - LATENCY_SMOOTHING) * lockLatencyMs;
+        lastLatencySampleAt = System.currentTimeMillis();
+        latencySamplesSinceAdjust.incrementAndGet();
+    }
+
+    /**
+     * Mỗi giây cho vào số lượt tương ứng với tốc độ hiện tại ở từng show có người chờ
+     */
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        if (!enabled) {
+            return;
+        }
+        adjustRate();
+
+        List<UUID> showIds = store.findShowsWithWaitingEntries();
+        admissionCredits.keySet().retainAll(showIds);
+        LocalDateTime passExpiresAt = LocalDateTime.now().plusSeconds(passTtlSeconds);
+        long tick = System.currentTimeMillis() / 1000;
+
+        for (UUID showId : showIds) {
+            try {
+                // Node khác đã cho vào show này trong giây hiện tại
+                if (!store.claimAdmissionTick(showId, tick)) {
+                    continue;
+                }
+
+                // Cộng dồn phần lẻ để tốc độ dưới 1 lượt/giây vẫn cho vào đều
+                double credit = admissionCredits.getOrDefault(showId, 0.0) + admitRate;
+                int count = (int) credit;
+                admissionCredits.put(showId, credit - count);
+                if (count == 0) {
+                    continue;
+                }
+
+                int admitted = store.admitNext(showId, count, passExpiresAt).size();
+                if (admitted > 0) {
+                    log.debug("Da cho {} luot vao show {}, toc do {}/s", admitted, showId, admitRate);
+                    publishAdvanced(showId);
+                }
+            } catch (Exception e) {
+                log.error("Loi khi cho vao phong cho show {}: {}", showId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Dọn các lượt đã dùng pass hoặc pass đã hết hạn
+     */
+    @Scheduled(fixedRate = 60000)
+    public void purgeFinishedEntries() {
+        if (enabled) {
+            store.purgeFinished(LocalDateTime.now());
+        }
+    }
+
+    private void adjustRate() {
+        if (admitRate < 0) {
+            admitRate = initialRate;
+        }
+        if (lockLatencyMs == 0) {
+            return;
+        }
+        if (latencySamplesSinceAdjust.getAndSet(0) == 0) {
+            // Không có lần khóa vé nào từ lần điều chỉnh trước: giữ tốc độ, quá lâu thì bỏ EWMA cũ
+            if (System.currentTimeMillis() - lastLatencySampleAt > latencyStaleSeconds * 1000) {
+                lockLatencyMs = 0;
+            }
+            return;
+        }
+        double next = lockLatencyMs > targetLockLatencyMs ? admitRate / 2 : admitRate + rateStep;
+        admitRate = Math.max(minRate, Math.min(maxRate, next));
+    }
+
+    /**
+     * Store trong bộ nhớ chỉ có một node nên phát event nội bộ;
+     * store db phát qua Kafka để mọi node (kể cả node này) đẩy vị trí cho các WebSocket của mình
+     */
+    private void publishAdvanced(UUID showId) {
+        if ("db".equals(storeType)) {
+            kafkaTemplate.send(WAITING_ROOM_ADVANCED_TOPIC, showId.toString());
+        } else {
+            eventPublisher.publishEvent(new WaitingRoomAdvancedEvent(showId));
+        }
+    }
+
+    private double currentAdmitRate() {
+        return admitRate < 0 ? initialRate : admitRate;
+    }
+
+    public QueueStatusResponse toResponse(WaitingRoomEntry entry) {
+        boolean admitted = entry.getStatus() == WaitingRoomStatus.ADMITTED;
+        return QueueStatusResponse.builder()
+                .showId(entry.getShowId().toString())
+                .queueToken(entry.getQueueToken())
+                .status(entry.getStatus().name())
+                .position(store.positionOf(entry))
+                .passToken(admitted ? entry.getPassToken() : null)
+                .passExpiresAt(admitted ? entry.getPassExpiresAt() : null)
+                .admitRatePerSecond(currentAdmitRate())
+                .build();
+    }
+}
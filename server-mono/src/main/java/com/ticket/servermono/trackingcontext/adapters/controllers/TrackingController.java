@@ -3,7 +3,9 @@ package com.ticket.servermono.trackingcontext.adapters.controllers;
 import com.ticket.servermono.trackingcontext.adapters.dtos.TrackingRequest;
 import com.ticket.servermono.trackingcontext.adapters.dtos.TrackingResponse;
 import com.ticket.servermono.trackingcontext.usecases.TrackingService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -12,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.security.Principal;
+import java.util.Set;
 
 @RestController
 @RequestMapping("v1/tracking")
@@ -19,17 +22,26 @@ import java.security.Principal;
 public class TrackingController {
     
     private final TrackingService trackingService;
+
+    // Địa chỉ các reverse proxy được tin X-Forwarded-For; rỗng thì luôn dùng địa chỉ kết nối
+    @Value("${app.tracking.trusted-proxies:}")
+    private Set<String> trustedProxies;
     
     @PostMapping
     public ResponseEntity<TrackingResponse> receiveTracking(
             @RequestBody TrackingRequest trackingRequest,
-            @Nullable Principal principal) {
+            @Nullable Principal principal,
+            HttpServletRequest request) {
             
         // Kiểm tra xem có người dùng đăng nhập không
         if (principal == null) {
             // For top occas, we still process tracking data even without a user
             if (trackingRequest.getTopOccas() != null && !trackingRequest.getTopOccas().isEmpty()) {
-                trackingService.processAnonymousTracking(trackingRequest);
+                String visitorId = trackingService.anonymousVisitorId(
+                        request.getHeader("X-Visitor-Id"),
+                        clientIp(request),
+                        request.getHeader("User-Agent"));
+                trackingService.processAnonymousTracking(trackingRequest, visitorId);
                 return ResponseEntity.ok(new TrackingResponse(true, "Anonymous tracking data processed successfully"));
             }
             return ResponseEntity.status(401).body(new TrackingResponse(false, "Unauthorized"));
@@ -45,4 +57,24 @@ public class TrackingController {
             return ResponseEntity.badRequest().body(new TrackingResponse(false, e.getMessage()));
         }
     }
+    
+    /**
+     * IP của client. X-Forwarded-For chỉ được dùng khi kết nối đến từ proxy tin cậy: đọc từ phải sang trái,
+     * bỏ qua các proxy tin cậy và lấy địa chỉ đầu tiên không phải proxy (phần bên trái do client tự ghi nên có thể giả)
+     */
+    private String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (!trustedProxies.contains(remoteAddr) || forwarded == null || forwarded.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwarded.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remoteAddr;
+    }
 }
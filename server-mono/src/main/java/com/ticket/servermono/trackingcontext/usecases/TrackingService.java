@@ -6,9 +6,11 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -21,6 +23,7 @@ public class TrackingService {
     private final ObjectMapper objectMapper;
     
     private static final String TRACKING_TOPIC = "user-tracking-topic";
+    private static final int MAX_VISITOR_ID_LENGTH = 128;
     
     /**
      * Process tracking data for authenticated users
@@ -44,6 +47,7 @@ public class TrackingService {
             
             // Add userId for authenticated users
             message.put("userId", userId);
+            message.put("visitorId", "user:" + userId);
             
             // Convert the message to JSON
             String jsonMessage = objectMapper.writeValueAsString(message);
@@ -61,13 +65,14 @@ public class TrackingService {
     /**
      * Process anonymous tracking data (only top occas without user authentication)
      */
-    public void processAnonymousTracking(TrackingRequest trackingRequest) {
+    public void processAnonymousTracking(TrackingRequest trackingRequest, String visitorId) {
         try {
             Map<String, Object> message = new HashMap<>();
             
             // Only include top occas for anonymous users
             if (trackingRequest.getTopOccas() != null && !trackingRequest.getTopOccas().isEmpty()) {
                 message.put("topOccas", trackingRequest.getTopOccas());
+                message.put("visitorId", visitorId);
                 
                 // Convert the message to JSON
                 String jsonMessage = objectMapper.writeValueAsString(message);
@@ -82,4 +87,19 @@ public class TrackingService {
             throw new RuntimeException("Failed to process tracking data: " + e.getMessage());
         }
     }
+    
+    /**
+     * Định danh khách chưa đăng nhập dùng để đếm khách duy nhất:
+     * X-Visitor-Id do client tự sinh và lưu lại nếu có, nếu không thì băm IP + User-Agent.
+     * Dấu vân tay IP + User-Agent chỉ là xấp xỉ: nhiều người chung NAT bị gộp làm một, một người đổi mạng bị tính hai lần.
+     * Chỉ lưu giá trị băm, không lưu IP.
+     */
+    public String anonymousVisitorId(String visitorHeader, String ip, String userAgent) {
+        if (visitorHeader != null && !visitorHeader.isBlank()) {
+            String id = visitorHeader.trim();
+            return "visitor:" + (id.length() > MAX_VISITOR_ID_LENGTH ? id.substring(0, MAX_VISITOR_ID_LENGTH) : id);
+        }
+        String fingerprint = (ip != null ? ip : "") + "|" + (userAgent != null ? userAgent : "");
+        return "anon:" + Hashing.sha256().hashString(fingerprint, StandardCharsets.UTF_8);
+    }
 }
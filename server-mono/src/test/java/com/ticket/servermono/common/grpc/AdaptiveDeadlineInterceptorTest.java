@@ -0,0 +1,41 @@
+package com.ticket.servermono.common.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AdaptiveDeadlineInterceptorTest {
+
+    private static final String POINT_LOOKUP = "occa.ShowServices/IsShowExist";
+    private static final String BATCH_CALL = "ticket.TicketStatsService/GetTicketStatsByOccaIds";
+
+    @Test
+    void onlyOptedInMethodsUseTheirOwnP99AndNeverGoBelowTheFloor() {
+        GrpcLatencyTracker tracker = new GrpcLatencyTracker();
+        ReflectionTestUtils.setField(tracker, "windowSize", 100);
+        for (int i = 0; i < 100; i++) {
+            // In-process: p99 dưới 1ms
+            tracker.record(POINT_LOOKUP, 200_000, false);
+            tracker.record(BATCH_CALL, 200_000, false);
+        }
+        AdaptiveDeadlineInterceptor interceptor = new AdaptiveDeadlineInterceptor(tracker, 3.0,
+                1000, 5000, 5000, 50, Set.of(POINT_LOOKUP));
+
+        assertEquals(1000, interceptor.deadlineMs(POINT_LOOKUP));
+        assertEquals(5000, interceptor.deadlineMs(BATCH_CALL));
+    }
+
+    @Test
+    void optedInMethodUsesDefaultUntilEnoughSamples() {
+        GrpcLatencyTracker tracker = new GrpcLatencyTracker();
+        ReflectionTestUtils.setField(tracker, "windowSize", 100);
+        tracker.record(POINT_LOOKUP, 2_000_000_000L, false);
+        AdaptiveDeadlineInterceptor interceptor = new AdaptiveDeadlineInterceptor(tracker, 3.0,
+                1000, 5000, 4000, 50, Set.of(POINT_LOOKUP));
+
+        assertEquals(4000, interceptor.deadlineMs(POINT_LOOKUP));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ticket.servermono.common.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.ticket.servermono.authcontext.entities.EndUser;
+import com.ticket.servermono.authcontext.infrastructure.config.JWTUtils;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+
+public class CallerIdentityInterceptorTest {
+
+    private static final Metadata.Key<String> AUTHORIZATION =
+            Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final JWTUtils jwtUtils = new JWTUtils("0123456789abcdef".repeat(4));
+    private final CallerIdentityInterceptor interceptor = new CallerIdentityInterceptor(jwtUtils);
+
+    @Test
+    void validBearerTokenExposesCallerId() {
+        UUID userId = UUID.randomUUID();
+        EndUser user = new EndUser();
+        user.setId(userId);
+        user.setRoles("ROLE_USER");
+        Metadata headers = new Metadata();
+        headers.put(AUTHORIZATION, "Bearer " + jwtUtils.createToken(user, false));
+
+        AtomicReference<UUID> seen = new AtomicReference<>();
+        ServerCallHandler<Object, Object> next = (call, metadata) -> {
+            seen.set(CallerIdentityInterceptor.CALLER_ID.get());
+            return new ServerCall.Listener<>() {
+            };
+        };
+        interceptor.interceptCall(serverCall(), headers, next);
+
+        assertEquals(userId, seen.get());
+    }
+
+    @Test
+    void missingOrForgedTokenIsRejected() {
+        Metadata forged = new Metadata();
+        forged.put(AUTHORIZATION, "Bearer " + new JWTUtils("fedcba9876543210".repeat(4)).createToken(userWithRandomId(), false));
+
+        for (Metadata headers : new Metadata[] { new Metadata(), forged }) {
+            @SuppressWarnings("unchecked")
+            ServerCallHandler<Object, Object> next = mock(ServerCallHandler.class);
+            ServerCall<Object, Object> call = serverCall();
+
+            interceptor.interceptCall(call, headers, next);
+
+            ArgumentCaptor<Status> status = ArgumentCaptor.forClass(Status.class);
+            verify(call).close(status.capture(), any(Metadata.class));
+            assertEquals(Status.Code.UNAUTHENTICATED, status.getValue().getCode());
+            verify(next, never()).startCall(any(), any());
+        }
+    }
+
+    private static EndUser userWithRandomId() {
+        EndUser user = new EndUser();
+        user.setId(UUID.randomUUID());
+        user.setRoles("ROLE_USER");
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ServerCall<Object, Object> serverCall() {
+        return mock(ServerCall.class);
+    }
+}
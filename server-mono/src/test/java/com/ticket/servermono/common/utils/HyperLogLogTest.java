@@ -0,0 +1,98 @@
+package com.ticket.servermono.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HyperLogLogTest {
+
+    // Sai số chuẩn với precision 12 là 1.04 / sqrt(4096) ≈ 1.6%; kiểm tra trong 3 lần sai số chuẩn
+    private static final double MAX_RELATIVE_ERROR = 3 * 1.04 / Math.sqrt(4096);
+
+    @Test
+    void emptySketchEstimatesZero() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.estimate());
+    }
+
+    @Test
+    void duplicatesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int refresh = 0; refresh < 1_000; refresh++) {
+            sketch.add("user:42");
+        }
+
+        assertEquals(1, sketch.estimate());
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sketch.add("user:" + i);
+            sketch.add("user:" + i);
+        }
+
+        assertEquals(100, sketch.estimate(), 2);
+    }
+
+    @Test
+    void largeCardinalitiesStayWithinErrorBound() {
+        for (int cardinality : new int[] {10_000, 100_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < cardinality; i++) {
+                sketch.add("visitor-" + cardinality + "-" + i);
+            }
+
+            double relativeError = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertTrue(relativeError < MAX_RELATIVE_ERROR,
+                    "cardinality " + cardinality + ": relative error " + relativeError);
+        }
+    }
+
+    @Test
+    void mergeEstimatesUnionOfOverlappingSets() {
+        // Hai ngày với 30k khách, trùng nhau 10k: hợp là 50k
+        HyperLogLog day1 = new HyperLogLog();
+        HyperLogLog day2 = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            day1.add("user:" + i);
+            day2.add("user:" + (i + 20_000));
+        }
+
+        day1.merge(day2);
+
+        double relativeError = Math.abs(day1.estimate() - 50_000) / 50_000.0;
+        assertTrue(relativeError < MAX_RELATIVE_ERROR, "relative error " + relativeError);
+    }
+
+    @Test
+    void serializationRoundTripsSparseAndDense() {
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 50; i++) {
+            small.add("user:" + i);
+        }
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            large.add("user:" + i);
+        }
+
+        byte[] smallBytes = small.toBytes();
+        byte[] largeBytes = large.toBytes();
+
+        // Tập nhỏ lưu dạng sparse, nhỏ hơn nhiều so với 4096 register
+        assertTrue(smallBytes.length < 200, "sparse size " + smallBytes.length);
+        assertEquals(4096 + 2, largeBytes.length);
+        assertEquals(small.estimate(), HyperLogLog.fromBytes(smallBytes).estimate());
+        assertEquals(large.estimate(), HyperLogLog.fromBytes(largeBytes).estimate());
+    }
+
+    @Test
+    void mergeRejectsDifferentPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+}
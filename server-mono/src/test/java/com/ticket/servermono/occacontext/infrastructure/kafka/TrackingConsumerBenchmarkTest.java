@@ -0,0 +1,313 @@
+package com.ticket.servermono.occacontext.infrastructure.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaAnalyticsBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaViewBucketBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaVisitorSketchBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository;
+
+/**
+ * Benchmark thông lượng tracking trên Kafka nhúng: cùng một luồng message được tiêu thụ bởi consumer cũ
+ * (từng record, findById + save cho từng dòng thống kê) và bởi TrackingConsumer theo lô (vài câu upsert mỗi lượt poll).
+ * DB được giả lập bằng độ trễ cố định cho mỗi round-trip, không cần MySQL; số round-trip của consumer cũ
+ * được mô phỏng theo các câu lệnh Hibernate mà nó phát ra (xem LegacyPerRecordConsumer).
+ * Chạy bằng TRACKING_BENCHMARK=true ./gradlew test --tests '*TrackingConsumerBenchmarkTest'
+ */
+@EnabledIfEnvironmentVariable(named = "TRACKING_BENCHMARK", matches = "true")
+public class TrackingConsumerBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackingConsumerBenchmarkTest.class);
+
+    private static final String TOPIC = "user-tracking-topic";
+    private static final int MESSAGES = 5_000;
+    private static final int OCCAS = 200;
+    private static final int USERS = 1_000;
+    private static final String[] SOURCES = {"search", "home", "trending", "category", "direct"};
+    private static final long STATEMENT_LATENCY_NANOS = 300_000;
+    private static final int MAX_POLL_RECORDS = 500;
+    // app.tracking.batch.upsert-chunk-size mặc định
+    private static final int UPSERT_CHUNK_SIZE = 500;
+
+    private static EmbeddedKafkaKraftBroker broker;
+    private static long expectedViews;
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong appliedViews = new AtomicLong();
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 1, TOPIC);
+        broker.afterPropertiesSet();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<UUID> occaIds = new ArrayList<>();
+        List<UUID> categoryIds = new ArrayList<>();
+        for (int i = 0; i < OCCAS; i++) {
+            occaIds.add(UUID.randomUUID());
+            categoryIds.add(UUID.randomUUID());
+        }
+
+        Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+        producerProps.put("key.serializer", StringSerializer.class);
+        producerProps.put("value.serializer", StringSerializer.class);
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(producerProps);
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+        try {
+            for (int i = 0; i < MESSAGES; i++) {
+                List<Map<String, Object>> topOccas = new ArrayList<>();
+                for (int j = 0; j < 3; j++) {
+                    Map<String, Object> occa = new HashMap<>();
+                    occa.put("occaId", occaIds.get((i * 7 + j * 31) % OCCAS).toString());
+                    occa.put("sources", Map.of(SOURCES[(i + j) % SOURCES.length], 2, SOURCES[(i + j + 1) % SOURCES.length], 1));
+                    occa.put("totalCount", 3);
+                    topOccas.add(occa);
+                    expectedViews += 3;
+                }
+                Map<String, Object> message = new HashMap<>();
+                message.put("topOccas", topOccas);
+                if (i % 2 == 0) {
+                    String userId = new UUID(0, i % USERS).toString();
+                    message.put("userId", userId);
+                    message.put("visitorId", "user:" + userId);
+                    message.put("topCategories", List.of(
+                            Map.of("categoryId", categoryIds.get(i % OCCAS).toString(), "count", 1),
+                            Map.of("categoryId", categoryIds.get((i + 1) % OCCAS).toString(), "count", 2)));
+                } else {
+                    message.put("visitorId", "anon:" + (i % (USERS * 5)));
+                }
+                template.send(new ProducerRecord<>(TOPIC, objectMapper.writeValueAsString(message)));
+            }
+            template.flush();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+
+    @Test
+    void batchListenerOutperformsLegacyPerRecordConsumer() throws Exception {
+        Result perRecord = run("bench-legacy", false);
+        Result batch = run("bench-batch", true);
+
+        log.info("Tracking consumer benchmark: {} messages, {} µs per DB statement", MESSAGES, STATEMENT_LATENCY_NANOS / 1_000);
+        log.info(String.format("  legacy:     %10.1f msg/s, %8d statements", perRecord.messagesPerSecond(), perRecord.statements()));
+        log.info(String.format("  batch:      %10.1f msg/s, %8d statements", batch.messagesPerSecond(), batch.statements()));
+
+        assertEquals(expectedViews, perRecord.views());
+        assertEquals(expectedViews, batch.views());
+        assertTrue(batch.statements() < perRecord.statements());
+    }
+
+    private Result run(String groupId, boolean batchMode) throws Exception {
+        statements.set(0);
+        appliedViews.set(0);
+
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(groupId, "false", broker);
+        consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, MAX_POLL_RECORDS);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+        ContainerProperties containerProps = new ContainerProperties(TOPIC);
+        containerProps.setAckMode(ContainerProperties.AckMode.BATCH);
+        if (batchMode) {
+            TrackingConsumer consumer = newConsumer();
+            containerProps.setMessageListener((BatchMessageListener<String, String>) records -> {
+                consumer.consume(records);
+                records.forEach(record -> done.countDown());
+            });
+        } else {
+            LegacyPerRecordConsumer consumer = new LegacyPerRecordConsumer();
+            containerProps.setMessageListener((MessageListener<String, String>) record -> {
+                consumer.consume(record.value());
+                done.countDown();
+            });
+        }
+
+        KafkaMessageListenerContainer<String, String> container = new KafkaMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(consumerProps), containerProps);
+        long start = System.nanoTime();
+        container.start();
+        try {
+            assertTrue(done.await(5, TimeUnit.MINUTES), "Timed out consuming " + groupId);
+        } finally {
+            container.stop();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(MESSAGES / seconds, statements.get(), appliedViews.get());
+    }
+
+    /**
+     * TrackingConsumer với các bulk repository giả lập: mỗi câu lệnh tốn STATEMENT_LATENCY_NANOS.
+     * Mock dạng stubOnly để Mockito không giữ lại mọi lượt gọi (và các map tham số) trong bộ nhớ.
+     */
+    @SuppressWarnings("unchecked")
+    private TrackingConsumer newConsumer() {
+        TrackingStatsBulkRepository trackingStats = mock(TrackingStatsBulkRepository.class, withSettings().stubOnly());
+        OccaViewBucketBulkRepository viewBuckets = mock(OccaViewBucketBulkRepository.class, withSettings().stubOnly());
+        OccaAnalyticsBulkRepository analytics = mock(OccaAnalyticsBulkRepository.class, withSettings().stubOnly());
+        OccaVisitorSketchBulkRepository sketches = mock(OccaVisitorSketchBulkRepository.class, withSettings().stubOnly());
+
+        // INSERT nhiều dòng: một round-trip cho mỗi nhóm UPSERT_CHUNK_SIZE dòng
+        doAnswer(invocation -> {
+            Map<UUID, Long> totals = invocation.getArgument(0);
+            totals.values().forEach(appliedViews::addAndGet);
+            return statement(chunks(totals));
+        }).when(trackingStats).addOccaTotals(anyMap());
+        doAnswer(invocation -> statement(chunks(invocation.getArgument(0))))
+                .when(trackingStats).addOccaSources(anyMap());
+        doAnswer(invocation -> statement(chunks(invocation.getArgument(0))))
+                .when(trackingStats).addPersonalCounts(anyMap());
+        // Batch JDBC: một round-trip cho cả lô
+        doAnswer(invocation -> statement(((Map<?, ?>) invocation.getArgument(0)).isEmpty() ? 0 : 1))
+                .when(viewBuckets).addHourlyViews(anyMap());
+        doAnswer(invocation -> statement(((Map<?, ?>) invocation.getArgument(0)).isEmpty() ? 0 : 1))
+                .when(analytics).addReach(anyMap());
+        // Đọc-gộp-ghi: INSERT ... ON DUPLICATE KEY, SELECT ... FOR UPDATE và batch UPDATE cho mỗi nhóm sketch
+        doAnswer(invocation -> statement(3 * chunks(invocation.getArgument(0))))
+                .when(sketches).addVisitors(anyMap());
+
+        return new TrackingConsumer(trackingStats, viewBuckets, analytics, sketches, new ObjectMapper(),
+                new TransactionTemplate(new InMemoryTransactionManager()));
+    }
+
+    private static int chunks(Map<?, ?> rows) {
+        return (rows.size() + UPSERT_CHUNK_SIZE - 1) / UPSERT_CHUNK_SIZE;
+    }
+
+    /**
+     * Mô phỏng consumer trước khi nhận theo lô, cùng độ trễ mỗi round-trip. Mỗi message được xử lý riêng:
+     * <ul>
+     * <li>mỗi occa: findById (SELECT occa_tracking_stats), nạp collection nguồn (SELECT occa_tracking_sources),
+     * rồi lúc flush UPDATE dòng tổng và UPDATE/INSERT từng nguồn; occa chưa có thì INSERT dòng tổng và từng nguồn;</li>
+     * <li>mỗi mục personal (category, location, occa): findByUserIdAndTypeAndTypeId rồi UPDATE/INSERT;</li>
+     * <li>bucket giờ, reach và sketch đã là batch từ trước: mỗi loại một lượt (sketch ba lệnh) cho mỗi message.</li>
+     * </ul>
+     * Các occa đã có dòng được giữ trong bộ nhớ: occa mới không cần nạp collection nguồn.
+     */
+    private final class LegacyPerRecordConsumer {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final Set<UUID> knownOccas = new HashSet<>();
+
+        @SuppressWarnings("unchecked")
+        void consume(String message) {
+            Map<String, Object> data;
+            try {
+                data = objectMapper.readValue(message, Map.class);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            List<Map<String, Object>> topOccas = (List<Map<String, Object>>) data.getOrDefault("topOccas", List.of());
+            for (Map<String, Object> occa : topOccas) {
+                UUID occaId = UUID.fromString((String) occa.get("occaId"));
+                Map<String, Object> sources = (Map<String, Object>) occa.get("sources");
+                appliedViews.addAndGet(((Number) occa.get("totalCount")).longValue());
+
+                // findById (+ nạp nguồn nếu dòng đã có), rồi ghi dòng tổng và từng nguồn
+                statement(knownOccas.add(occaId) ? 1 : 2);
+                statement(1 + sources.size());
+            }
+            if (!topOccas.isEmpty()) {
+                // bucket giờ + reach, và ba lệnh sketch khi có khách
+                statement(data.containsKey("visitorId") ? 5 : 2);
+            }
+
+            if (data.containsKey("userId")) {
+                personal((List<Map<String, Object>>) data.get("topCategories"));
+                personal((List<Map<String, Object>>) data.get("topLocations"));
+                personal(topOccas);
+            }
+        }
+
+        private void personal(List<Map<String, Object>> tracks) {
+            if (tracks == null) {
+                return;
+            }
+            // SELECT rồi UPDATE/INSERT cho từng mục
+            statement(2 * tracks.size());
+        }
+    }
+
+    private Void statement(int count) {
+        for (int i = 0; i < count; i++) {
+            statements.incrementAndGet();
+            LockSupport.parkNanos(STATEMENT_LATENCY_NANOS);
+        }
+        return null;
+    }
+
+    private record Result(double messagesPerSecond, long statements, long views) {
+    }
+
+    private static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
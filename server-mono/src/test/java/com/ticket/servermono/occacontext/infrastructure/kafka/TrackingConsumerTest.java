@@ -0,0 +1,253 @@
+package com.ticket.servermono.occacontext.infrastructure.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.common.utils.HyperLogLog;
+import com.ticket.servermono.occacontext.entities.OccaViewBucket;
+import com.ticket.servermono.occacontext.entities.OccaVisitorSketch;
+import com.ticket.servermono.occacontext.entities.PersonalTrackingStats.TrackingType;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaAnalyticsBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaViewBucketBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.OccaVisitorSketchBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository.PersonalKey;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository.SourceKey;
+
+public class TrackingConsumerTest {
+
+    private static final String TOPIC = "user-tracking-topic";
+    private static final long TIMESTAMP = 1_760_000_000_000L;
+
+    private final UUID occaA = UUID.randomUUID();
+    private final UUID occaB = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+    private final UUID categoryId = UUID.randomUUID();
+
+    private TrackingStatsBulkRepository trackingStats;
+    private OccaViewBucketBulkRepository viewBuckets;
+    private OccaAnalyticsBulkRepository analytics;
+    private OccaVisitorSketchBulkRepository sketches;
+    private TrackingConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        trackingStats = mock(TrackingStatsBulkRepository.class);
+        viewBuckets = mock(OccaViewBucketBulkRepository.class);
+        analytics = mock(OccaAnalyticsBulkRepository.class);
+        sketches = mock(OccaVisitorSketchBulkRepository.class);
+        consumer = new TrackingConsumer(trackingStats, viewBuckets, analytics, sketches, new ObjectMapper(),
+                new TransactionTemplate(new InMemoryTransactionManager()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchIsSummedPerKeyAndMalformedRecordsAreSkipped() {
+        consumer.consume(List.of(
+                record(0, """
+                        {"userId":"%s","visitorId":"user:%s",
+                         "topOccas":[{"occaId":"%s","sources":{"search":2,"home":1},"totalCount":3},
+                                     {"occaId":"%s","sources":{"search":1},"totalCount":2}],
+                         "topCategories":[{"categoryId":"%s","count":1}]}
+                        """.formatted(userId, userId, occaA, occaB, categoryId)),
+                record(1, """
+                        {"visitorId":"anon:x","topOccas":[{"occaId":"%s","sources":{"search":4},"totalCount":4}]}
+                        """.formatted(occaA)),
+                record(2, "{not json"),
+                // occa thứ hai hỏng: cả record bị bỏ, kể cả phần của occa A đứng trước
+                record(3, """
+                        {"topOccas":[{"occaId":"%s","sources":{"search":5},"totalCount":5},
+                                     {"occaId":"not-a-uuid","totalCount":1}]}
+                        """.formatted(occaA)),
+                record(4, """
+                        {"userId":"%s","topOccas":[{"occaId":"%s","sources":{"home":1},"totalCount":1}],
+                         "topCategories":[{"categoryId":"%s","count":2}]}
+                        """.formatted(userId, occaA, categoryId))));
+
+        ArgumentCaptor<Map<UUID, Long>> totals = ArgumentCaptor.forClass(Map.class);
+        verify(trackingStats).addOccaTotals(totals.capture());
+        assertEquals(Map.of(occaA, 8L, occaB, 2L), totals.getValue());
+
+        ArgumentCaptor<Map<SourceKey, Long>> sources = ArgumentCaptor.forClass(Map.class);
+        verify(trackingStats).addOccaSources(sources.capture());
+        assertEquals(Map.of(
+                new SourceKey(occaA, "search"), 6L,
+                new SourceKey(occaA, "home"), 2L,
+                new SourceKey(occaB, "search"), 1L), sources.getValue());
+
+        ArgumentCaptor<Map<PersonalKey, Long>> personal = ArgumentCaptor.forClass(Map.class);
+        verify(trackingStats).addPersonalCounts(personal.capture());
+        assertEquals(Map.of(
+                new PersonalKey(userId, TrackingType.CATEGORY, categoryId), 3L,
+                new PersonalKey(userId, TrackingType.OCCA, occaA), 4L,
+                new PersonalKey(userId, TrackingType.OCCA, occaB), 2L), personal.getValue());
+
+        // Phần totalCount không thuộc nguồn nào vào nguồn "unknown", nên tổng bucket khớp totalCount
+        LocalDateTime hour = LocalDateTime.ofInstant(Instant.ofEpochMilli(TIMESTAMP), ZoneId.systemDefault())
+                .truncatedTo(ChronoUnit.HOURS);
+        ArgumentCaptor<Map<OccaViewBucket.Key, Long>> views = ArgumentCaptor.forClass(Map.class);
+        verify(viewBuckets).addHourlyViews(views.capture());
+        assertEquals(Map.of(
+                hourKey(occaA, "search", hour), 6L,
+                hourKey(occaA, "home", hour), 2L,
+                hourKey(occaB, "search", hour), 1L,
+                hourKey(occaB, "unknown", hour), 1L), views.getValue());
+
+        ArgumentCaptor<Map<UUID, Long>> reach = ArgumentCaptor.forClass(Map.class);
+        verify(analytics).addReach(reach.capture());
+        assertEquals(Map.of(occaA, 8L, occaB, 2L), reach.getValue());
+
+        ArgumentCaptor<Map<OccaVisitorSketch.Key, HyperLogLog>> visitors = ArgumentCaptor.forClass(Map.class);
+        verify(sketches).addVisitors(visitors.capture());
+        Map<OccaVisitorSketch.Key, HyperLogLog> sketchByKey = visitors.getValue();
+        assertEquals(4, sketchByKey.size());
+        assertEquals(2, sketchByKey.get(new OccaVisitorSketch.Key(occaA, hour.toLocalDate(), "search")).estimate());
+        // Message cuối không có visitorId: suy ra từ userId, trùng khách của message đầu
+        assertEquals(1, sketchByKey.get(new OccaVisitorSketch.Key(occaA, hour.toLocalDate(), "home")).estimate());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void outOfRangeCountsRejectTheRecordAndLongSourcesAreTruncated() {
+        String longSource = "s".repeat(300);
+        consumer.consume(List.of(
+                record(0, """
+                        {"topOccas":[{"occaId":"%s","sources":{"search":-5},"totalCount":1}]}
+                        """.formatted(occaA)),
+                record(1, """
+                        {"topOccas":[{"occaId":"%s","sources":{},"totalCount":3000000000}]}
+                        """.formatted(occaA)),
+                record(2, """
+                        {"topOccas":[{"occaId":"%s","sources":{"%s":1},"totalCount":1}]}
+                        """.formatted(occaB, longSource))));
+
+        ArgumentCaptor<Map<UUID, Long>> totals = ArgumentCaptor.forClass(Map.class);
+        verify(trackingStats).addOccaTotals(totals.capture());
+        assertEquals(Map.of(occaB, 1L), totals.getValue());
+
+        ArgumentCaptor<Map<SourceKey, Long>> sources = ArgumentCaptor.forClass(Map.class);
+        verify(trackingStats).addOccaSources(sources.capture());
+        assertEquals(Map.of(new SourceKey(occaB, "s".repeat(64)), 1L), sources.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchRejectedByTheDatabaseIsAppliedOneRecordAtATime() {
+        List<Map<UUID, Long>> applied = new ArrayList<>();
+        doAnswer(invocation -> {
+            Map<UUID, Long> totals = invocation.getArgument(0);
+            if (totals.containsKey(occaB)) {
+                throw new DataIntegrityViolationException("Out of range value for column 'total_count'");
+            }
+            applied.add(Map.copyOf(totals));
+            return null;
+        }).when(trackingStats).addOccaTotals(anyMap());
+
+        consumer.consume(List.of(
+                record(0, """
+                        {"topOccas":[{"occaId":"%s","totalCount":1}]}
+                        """.formatted(occaA)),
+                record(1, """
+                        {"topOccas":[{"occaId":"%s","totalCount":2}]}
+                        """.formatted(occaB)),
+                record(2, """
+                        {"topOccas":[{"occaId":"%s","totalCount":3}]}
+                        """.formatted(occaA))));
+
+        // Lô lỗi, rồi ghi lại từng record: record của occa B bị bỏ, hai record còn lại vẫn được ghi
+        verify(trackingStats, times(4)).addOccaTotals(anyMap());
+        assertEquals(List.of(Map.of(occaA, 1L), Map.of(occaA, 3L)), applied);
+    }
+
+    @Test
+    void transientFailureIsRethrownForRedelivery() {
+        doThrow(new QueryTimeoutException("Lock wait timeout exceeded"))
+                .when(trackingStats).addOccaTotals(anyMap());
+
+        assertThrows(QueryTimeoutException.class, () -> consumer.consume(List.of(record(0, """
+                {"topOccas":[{"occaId":"%s","totalCount":1}]}
+                """.formatted(occaA)))));
+    }
+
+    @Test
+    void transientFailureDuringOneByOneApplyPointsAtTheFailedRecord() {
+        doAnswer(invocation -> {
+            Map<UUID, Long> totals = invocation.getArgument(0);
+            if (totals.size() > 1) {
+                throw new DataIntegrityViolationException("Out of range value for column 'total_count'");
+            }
+            if (totals.containsKey(occaB)) {
+                throw new QueryTimeoutException("Lock wait timeout exceeded");
+            }
+            return null;
+        }).when(trackingStats).addOccaTotals(anyMap());
+
+        BatchListenerFailedException e = assertThrows(BatchListenerFailedException.class, () -> consumer.consume(List.of(
+                record(0, """
+                        {"topOccas":[{"occaId":"%s","totalCount":1}]}
+                        """.formatted(occaA)),
+                record(1, """
+                        {"topOccas":[{"occaId":"%s","totalCount":2}]}
+                        """.formatted(occaB)))));
+        assertEquals(1, e.getIndex());
+    }
+
+    private static OccaViewBucket.Key hourKey(UUID occaId, String source, LocalDateTime hour) {
+        return new OccaViewBucket.Key(occaId, source, OccaViewBucket.Granularity.HOUR, hour);
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String value) {
+        return new ConsumerRecord<>(TOPIC, 0, offset, TIMESTAMP, TimestampType.CREATE_TIME, -1, value.length(),
+                null, value, new RecordHeaders(), Optional.empty());
+    }
+
+    private static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ticket.servermono.occacontext.infrastructure.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ticket.servermono.occacontext.entities.PersonalTrackingStats.TrackingType;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository.PersonalKey;
+import com.ticket.servermono.occacontext.infrastructure.repositories.TrackingStatsBulkRepository.SourceKey;
+
+public class TrackingStatsBulkRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TrackingStatsBulkRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        repository = new TrackingStatsBulkRepository(jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "chunkSize", 2);
+    }
+
+    @Test
+    void occaSourcesAreUpsertedInKeyOrderAndChunked() {
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        Map<SourceKey, Long> counts = new LinkedHashMap<>();
+        counts.put(new SourceKey(second, "home"), 3L);
+        counts.put(new SourceKey(first, "search"), 6L);
+        counts.put(new SourceKey(first, "home"), 2L);
+
+        repository.addOccaSources(counts);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(sql.capture(), args.capture());
+
+        assertEquals("INSERT INTO occa_tracking_sources (occa_id, source, `count`) VALUES (?, ?, ?), (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE `count` = `count` + VALUES(`count`)", sql.getAllValues().get(0));
+        assertEquals("INSERT INTO occa_tracking_sources (occa_id, source, `count`) VALUES (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE `count` = `count` + VALUES(`count`)", sql.getAllValues().get(1));
+
+        List<Object[]> chunks = args.getAllValues();
+        assertRow(chunks.get(0), 0, first, "home", 2L);
+        assertRow(chunks.get(0), 3, first, "search", 6L);
+        assertRow(chunks.get(1), 0, second, "home", 3L);
+    }
+
+    @Test
+    void occaTotalsAddToExistingCount() {
+        UUID occaId = UUID.randomUUID();
+
+        repository.addOccaTotals(Map.of(occaId, 8L));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(sql.capture(), args.capture());
+        assertEquals("INSERT INTO occa_tracking_stats (occa_id, total_count, last_updated) VALUES (?, ?, ?)"
+                + " ON DUPLICATE KEY UPDATE total_count = total_count + VALUES(total_count),"
+                + " last_updated = VALUES(last_updated)", sql.getValue());
+        assertArrayEquals(toBytes(occaId), (byte[]) args.getValue()[0]);
+        assertEquals(8L, args.getValue()[1]);
+    }
+
+    @Test
+    void personalCountsBindUserTypeAndTypeId() {
+        UUID userId = UUID.randomUUID();
+        UUID categoryId = UUID.randomUUID();
+
+        repository.addPersonalCounts(Map.of(new PersonalKey(userId, TrackingType.CATEGORY, categoryId), 3L));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(anyString(), args.capture());
+        Object[] row = args.getValue();
+        assertEquals(5, row.length);
+        assertArrayEquals(toBytes(userId), (byte[]) row[1]);
+        assertEquals("CATEGORY", row[2]);
+        assertArrayEquals(toBytes(categoryId), (byte[]) row[3]);
+        assertEquals(3L, row[4]);
+    }
+
+    @Test
+    void emptyDeltasIssueNoStatement() {
+        repository.addOccaTotals(Map.of());
+        repository.addOccaSources(Map.of());
+        repository.addPersonalCounts(Map.of());
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    private static void assertRow(Object[] args, int offset, UUID occaId, String source, long count) {
+        assertArrayEquals(toBytes(occaId), (byte[]) args[offset]);
+        assertEquals(source, args[offset + 1]);
+        assertEquals(count, args[offset + 2]);
+    }
+
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
@@ -0,0 +1,129 @@
+package com.ticket.servermono.ticketcontext.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+
+    @Test
+    void overlappingBatchesFetchEachKeyOnce() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+        List<Set<Integer>> calls = new CopyOnWriteArrayList<>();
+        CountDownLatch firstCallStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstCall = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<Integer, String>> first = executor.submit(() -> flight.executeAll(Set.of(1, 2), keys -> {
+                calls.add(keys);
+                firstCallStarted.countDown();
+                await(releaseFirstCall);
+                return load(keys);
+            }));
+            assertTrue(firstCallStarted.await(5, TimeUnit.SECONDS));
+
+            Future<Map<Integer, String>> second = executor.submit(() -> flight.executeAll(Set.of(2, 3), keys -> {
+                calls.add(keys);
+                return load(keys);
+            }));
+            // Lượt thứ hai chỉ gọi key 3, key 2 chờ lượt đầu
+            while (calls.size() < 2) {
+                Thread.onSpinWait();
+            }
+            assertFalse(second.isDone());
+            releaseFirstCall.countDown();
+
+            assertEquals(Map.of(1, "v1", 2, "v2"), first.get(5, TimeUnit.SECONDS));
+            assertEquals(Map.of(2, "v2", 3, "v3"), second.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(Set.of(1, 2), Set.of(3)), calls);
+            assertEquals(4, flight.getRequests());
+            assertEquals(1, flight.getCoalesced());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void missingKeysAreAbsentAndNotKeptInFlight() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+
+        Map<Integer, String> result = flight.executeAll(Set.of(1, 2), keys -> Map.of(1, "v1"));
+
+        assertEquals(Map.of(1, "v1"), result);
+        assertEquals(Map.of(2, "again"), flight.executeAll(Set.of(2), keys -> Map.of(2, "again")));
+    }
+
+    @Test
+    void failureIsPropagatedAndKeysCanBeRetried() {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+
+        assertThrows(IllegalStateException.class, () -> flight.executeAll(Set.of(1), keys -> {
+            throw new IllegalStateException("unavailable");
+        }));
+
+        assertEquals(Map.of(1, "v1"), flight.executeAll(Set.of(1), SingleFlightTest::load));
+    }
+
+    @Test
+    void errorInOwnerCallIsDeliveredToWaiters() throws Exception {
+        SingleFlight<Integer, String> flight = new SingleFlight<>("test");
+        CountDownLatch ownerStarted = new CountDownLatch(1);
+        CountDownLatch releaseOwner = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> owner = executor.submit(() -> flight.execute(1, () -> {
+                ownerStarted.countDown();
+                await(releaseOwner);
+                throw new StackOverflowError("boom");
+            }));
+            assertTrue(ownerStarted.await(5, TimeUnit.SECONDS));
+
+            Future<Map<Integer, String>> waiter = executor.submit(() -> flight.executeAll(Set.of(1), SingleFlightTest::load));
+            while (flight.getCoalesced() < 1) {
+                Thread.onSpinWait();
+            }
+            releaseOwner.countDown();
+
+            ExecutionException ownerError = assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, ownerError.getCause());
+            ExecutionException waiterError = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, waiterError.getCause());
+            // Key không còn bị giữ trong in-flight
+            assertEquals(Map.of(1, "v1"), flight.executeAll(Set.of(1), SingleFlightTest::load));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Map<Integer, String> load(Set<Integer> keys) {
+        Map<Integer, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, "v" + key));
+        return values;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
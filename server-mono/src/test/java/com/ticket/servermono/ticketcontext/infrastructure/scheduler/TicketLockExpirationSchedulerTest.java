@@ -0,0 +1,135 @@
+package com.ticket.servermono.ticketcontext.infrastructure.scheduler;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.sepay.PaymentReferenceIndex;
+
+import jakarta.persistence.TransactionRequiredException;
+
+@ExtendWith(MockitoExtension.class)
+public class TicketLockExpirationSchedulerTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private PaymentReferenceIndex paymentReferenceIndex;
+
+    private TicketLockExpirationScheduler scheduler;
+
+    private Invoice expiredInvoice;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new TicketLockExpirationScheduler(invoiceRepository, kafkaTemplate, new ObjectMapper(),
+                paymentReferenceIndex, new TransactionTemplate(new InMemoryTransactionManager()));
+
+        expiredInvoice = new Invoice();
+        expiredInvoice.setId(UUID.randomUUID());
+        expiredInvoice.setPaymentId("PAY-1");
+        expiredInvoice.setNoiDung("REF1");
+        expiredInvoice.setStatus(PaymentStatus.WAITING_PAYMENT);
+        expiredInvoice.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        expiredInvoice.setTicketDetails(Map.of("class-1", 2));
+    }
+
+    @Test
+    void sweepExpiresWaitingInvoiceInsideTransaction() {
+        when(invoiceRepository.findByStatusAndExpiresAtBefore(eq(PaymentStatus.WAITING_PAYMENT), any(LocalDateTime.class)))
+                .thenReturn(List.of(expiredInvoice));
+        // Như JPA: câu UPDATE @Modifying ném TransactionRequiredException khi không có transaction
+        when(invoiceRepository.expireIfWaitingPayment("PAY-1")).thenAnswer(invocation -> {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw new TransactionRequiredException("Executing an update/delete query");
+            }
+            return 1;
+        });
+        when(invoiceRepository.findByPaymentId("PAY-1")).thenReturn(Optional.of(expiredInvoice));
+
+        scheduler.processExpiredTicketLocks();
+
+        verify(invoiceRepository).expireIfWaitingPayment("PAY-1");
+        verify(paymentReferenceIndex).remove("REF1", "PAY-1");
+        verify(kafkaTemplate).send(eq("ticket.lock.expiration"), eq("PAY-1"), anyString());
+    }
+
+    @Test
+    void sweepSkipsInvoiceAlreadyPaid() {
+        when(invoiceRepository.findByStatusAndExpiresAtBefore(eq(PaymentStatus.WAITING_PAYMENT), any(LocalDateTime.class)))
+                .thenReturn(List.of(expiredInvoice));
+        when(invoiceRepository.expireIfWaitingPayment("PAY-1")).thenReturn(0);
+
+        scheduler.processExpiredTicketLocks();
+
+        verify(paymentReferenceIndex, never()).remove(anyString(), anyString());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    void failureOnOneInvoiceDoesNotAbortSweep() {
+        Invoice other = new Invoice();
+        other.setId(UUID.randomUUID());
+        other.setPaymentId("PAY-2");
+        other.setNoiDung("REF2");
+        other.setTicketDetails(Map.of("class-1", 1));
+        when(invoiceRepository.findByStatusAndExpiresAtBefore(eq(PaymentStatus.WAITING_PAYMENT), any(LocalDateTime.class)))
+                .thenReturn(List.of(expiredInvoice, other));
+        when(invoiceRepository.expireIfWaitingPayment("PAY-1")).thenThrow(new IllegalStateException("boom"));
+        when(invoiceRepository.expireIfWaitingPayment("PAY-2")).thenReturn(1);
+        when(invoiceRepository.findByPaymentId("PAY-2")).thenReturn(Optional.of(other));
+
+        scheduler.processExpiredTicketLocks();
+
+        verify(kafkaTemplate).send(eq("ticket.lock.expiration"), eq("PAY-2"), anyString());
+    }
+
+    /**
+     * Transaction manager không gắn tài nguyên nào, chỉ để TransactionTemplate mở/đóng transaction thật sự
+     */
+    private static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ticket.servermono.ticketcontext.infrastructure.waitingroom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+
+public class InMemoryWaitingRoomStoreTest {
+
+    private InMemoryWaitingRoomStore store;
+    private UUID showId;
+    private UUID userId;
+    private String passToken;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryWaitingRoomStore();
+        showId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+        store.enqueue(showId, userId);
+        List<WaitingRoomEntry> admitted = store.admitNext(showId, 1, LocalDateTime.now().plusMinutes(2));
+        passToken = admitted.get(0).getPassToken();
+    }
+
+    @Test
+    void concurrentClaimsOfSamePassSucceedOnlyOnce() throws Exception {
+        int requests = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.claimPass(showId, passToken, userId, LocalDateTime.now());
+                }));
+            }
+            start.countDown();
+
+            int claimed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    claimed++;
+                }
+            }
+            assertEquals(1, claimed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void releasedPassCanBeClaimedAgain() {
+        assertTrue(store.claimPass(showId, passToken, userId, LocalDateTime.now()));
+        assertFalse(store.claimPass(showId, passToken, userId, LocalDateTime.now()));
+
+        store.releasePass(passToken);
+
+        assertTrue(store.claimPass(showId, passToken, userId, LocalDateTime.now()));
+    }
+
+    @Test
+    void passIsRejectedForOtherUserShowOrAfterExpiry() {
+        assertFalse(store.claimPass(showId, passToken, UUID.randomUUID(), LocalDateTime.now()));
+        assertFalse(store.claimPass(UUID.randomUUID(), passToken, userId, LocalDateTime.now()));
+        assertFalse(store.claimPass(showId, passToken, userId, LocalDateTime.now().plusMinutes(5)));
+        assertTrue(store.claimPass(showId, passToken, userId, LocalDateTime.now()));
+    }
+
+    @Test
+    void snapshotPositionsMatchPerEntryPositions() {
+        List<WaitingRoomEntry> waiting = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            waiting.add(store.enqueue(showId, UUID.randomUUID()));
+        }
+        store.admitNext(showId, 2, LocalDateTime.now().plusMinutes(2));
+
+        WaitingRoomStore.QueuePositions positions = store.snapshotPositions(showId, waiting.get(4).getSequence());
+
+        for (WaitingRoomEntry entry : waiting) {
+            assertEquals(store.positionOf(entry), positions.positionOf(entry.getSequence()));
+        }
+        assertEquals(0, positions.positionOf(waiting.get(0).getSequence()));
+        assertEquals(1, positions.positionOf(waiting.get(2).getSequence()));
+        assertEquals(3, positions.positionOf(waiting.get(4).getSequence()));
+    }
+}
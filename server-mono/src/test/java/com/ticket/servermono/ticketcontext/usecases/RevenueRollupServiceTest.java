@@ -0,0 +1,106 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ticket.servermono.ticketcontext.domain.enums.PaymentStatus;
+import com.ticket.servermono.ticketcontext.entities.Invoice;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.InvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.RevenueDailyInvoiceRepository;
+import com.ticket.servermono.ticketcontext.infrastructure.repositories.RevenueDailyRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RevenueRollupServiceTest {
+
+    @Mock
+    private InvoiceRepository invoiceRepository;
+
+    @Mock
+    private RevenueDailyRepository revenueDailyRepository;
+
+    @Mock
+    private RevenueDailyInvoiceRepository revenueDailyInvoiceRepository;
+
+    private RevenueRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new RevenueRollupService(invoiceRepository, revenueDailyRepository, revenueDailyInvoiceRepository,
+                new TransactionTemplate(new InMemoryTransactionManager()));
+        ReflectionTestUtils.setField(service, "backfillPageSize", 2);
+    }
+
+    @Test
+    void backfillMovesPastPagesWithNothingToApply() {
+        // Trang đầu gồm các hóa đơn vừa được cộng song song: không cộng được hóa đơn nào
+        Invoice first = invoice(new UUID(0, 1));
+        Invoice second = invoice(new UUID(0, 2));
+        Invoice third = invoice(new UUID(0, 3));
+        when(invoiceRepository.findNotRolledUpByStatus(eq(PaymentStatus.PAYMENT_SUCCESS), eq(new UUID(0, 0)), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(invoiceRepository.findNotRolledUpByStatus(eq(PaymentStatus.PAYMENT_SUCCESS), eq(second.getId()), any(Pageable.class)))
+                .thenReturn(List.of(third));
+        when(revenueDailyInvoiceRepository.markApplied(eq(first.getId()), any(), any(), anyDouble(), anyInt())).thenReturn(0);
+        when(revenueDailyInvoiceRepository.markApplied(eq(second.getId()), any(), any(), anyDouble(), anyInt())).thenReturn(0);
+        when(revenueDailyInvoiceRepository.markApplied(eq(third.getId()), any(), any(), anyDouble(), anyInt())).thenReturn(1);
+
+        assertEquals(1, service.backfill());
+
+        verify(revenueDailyRepository).addInvoice(third.getShowId(), LocalDate.of(2025, 5, 1), 100_000.0, 2);
+        verify(revenueDailyRepository, never()).addInvoice(eq(first.getShowId()), any(), anyDouble(), anyInt());
+    }
+
+    private static Invoice invoice(UUID id) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setShowId(UUID.randomUUID());
+        invoice.setStatus(PaymentStatus.PAYMENT_SUCCESS);
+        invoice.setSoTien(100_000.0);
+        invoice.setCreatedAt(LocalDateTime.of(2025, 5, 1, 10, 0));
+        invoice.setTicketDetails(Map.of("class-1", 2));
+        return invoice;
+    }
+
+    private static class InMemoryTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ticket.servermono.ticketcontext.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ticket.servermono.ticketcontext.entities.WaitingRoomEntry;
+import com.ticket.servermono.ticketcontext.infrastructure.waitingroom.WaitingRoomStore;
+
+@ExtendWith(MockitoExtension.class)
+public class WaitingRoomServiceTest {
+
+    @Mock
+    private WaitingRoomStore store;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private WaitingRoomService service;
+    private final UUID showId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        service = new WaitingRoomService(store, eventPublisher, kafkaTemplate);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "storeType", "db");
+        ReflectionTestUtils.setField(service, "initialRate", 20.0);
+        ReflectionTestUtils.setField(service, "minRate", 5.0);
+        ReflectionTestUtils.setField(service, "maxRate", 500.0);
+        ReflectionTestUtils.setField(service, "rateStep", 5.0);
+        ReflectionTestUtils.setField(service, "targetLockLatencyMs", 300.0);
+        ReflectionTestUtils.setField(service, "latencyStaleSeconds", 10L);
+        when(store.findShowsWithWaitingEntries()).thenReturn(List.of(showId));
+    }
+
+    @Test
+    void nodeThatLosesTheTickAdmitsNobody() {
+        when(store.claimAdmissionTick(eq(showId), anyLong())).thenReturn(false);
+
+        service.admit();
+
+        verify(store, never()).admitNext(any(), anyInt(), any());
+    }
+
+    @Test
+    void admissionsAreFannedOutOverKafkaForDbStore() {
+        when(store.claimAdmissionTick(eq(showId), anyLong())).thenReturn(true);
+        when(store.admitNext(eq(showId), eq(20), any())).thenReturn(List.of(new WaitingRoomEntry()));
+
+        service.admit();
+
+        verify(kafkaTemplate).send(WaitingRoomService.WAITING_ROOM_ADVANCED_TOPIC, showId.toString());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void rateHoldsWithoutNewLatencySamplesAndStaleLatencyIsDropped() {
+        when(store.claimAdmissionTick(eq(showId), anyLong())).thenReturn(false);
+        service.recordLockLatency(50);
+
+        service.admit();
+        assertEquals(25.0, (double) ReflectionTestUtils.getField(service, "admitRate"));
+
+        // Không có lần khóa vé mới: không tăng tiếp
+        service.admit();
+        assertEquals(25.0, (double) ReflectionTestUtils.getField(service, "admitRate"));
+
+        ReflectionTestUtils.setField(service, "lastLatencySampleAt", System.currentTimeMillis() - 11_000);
+        service.admit();
+        assertEquals(0.0, (double) ReflectionTestUtils.getField(service, "lockLatencyMs"));
+        assertEquals(25.0, (double) ReflectionTestUtils.getField(service, "admitRate"));
+    }
+}
@@ -16,7 +16,8 @@ interface UseOccasAnalyticsOptions {
 }
 
 /**
- * Hook for fetching all occas analytics data and sharing data with other hooks
+ * Hook for fetching all occas analytics data and sharing data with other hooks.
+ * A null date range fetches lifetime figures.
  */
 export const useOccasAnalytics = (
   dateRange: [Date, Date] | null,
@@ -32,7 +33,7 @@ export const useOccasAnalytics = (
   // Fetch single page of data 
   const fetchPage = useCallback(async (pageNum: number) => {
     const ocasData = await analyticsTrendService.getAllOccasAnalytics(
-      dateRange!,
+      dateRange,
       pageNum,
       pageSize,
       sortField,
@@ -68,16 +69,10 @@ export const useOccasAnalytics = (
 
   // Fetch the data for all occas
   const fetchOccasAnalytics = useCallback(async () => {
-    if (!dateRange) {
-      setError(new Error('Date range is required'));
-      setLoading(false);
-      return;
-    }
-
     try {
       setLoading(true);
       
-      if (dateRange[0] instanceof Date && dateRange[1] instanceof Date) {
+      if (!dateRange || (dateRange[0] instanceof Date && dateRange[1] instanceof Date)) {
         await fetchAllPages();
         setError(null);
       } else {
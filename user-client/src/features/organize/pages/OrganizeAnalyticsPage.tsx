@@ -38,6 +38,9 @@ const OrganizeAnalyticsPage = () => {
     to: new Date()
   });
 
+  // Until a range is applied, the occas table shows lifetime figures (served from the pre-aggregated table)
+  const [isCustomRange, setIsCustomRange] = useState(false);
+
   // Temporary date range for selection
   const [tempDateRange, setTempDateRange] = useState<DateRange>(dateRange);
   const [isCalendarOpen, setIsCalendarOpen] = useState(false);
@@ -54,7 +57,9 @@ const OrganizeAnalyticsPage = () => {
       return [dateRange.from, dateRange.to] as [Date, Date];
     }
     return null;
-  }, [dateRange.from, dateRange.to]);  // Get data based on date range
+  }, [dateRange.from, dateRange.to]);
+  const occasPeriod = isCustomRange ? analyticsPeriod : null;
+  // Get data based on date range
   const { 
     data: analyticsData, 
     loading: overviewLoading 
@@ -75,7 +80,7 @@ const OrganizeAnalyticsPage = () => {
   const {
     data: occasAnalyticsData,
     loading: occasLoading,
-    allData  } = useOccasAnalytics(analyticsPeriod, {
+    allData  } = useOccasAnalytics(occasPeriod, {
     pageSize: pageSize,
     sortField: sortField,
     sortOrder: sortOrder
@@ -87,6 +92,14 @@ const OrganizeAnalyticsPage = () => {
     return allData.slice(0, 5);
   }, [allData]);
 
+  // Lifetime reach of the cards must be compared with a lifetime total, not the selected range's total
+  const topOccasTotalReach = React.useMemo(() => {
+    if (isCustomRange) {
+      return analyticsData?.totalReach || 0;
+    }
+    return allData.reduce((sum, occa) => sum + occa.reach, 0);
+  }, [isCustomRange, analyticsData, allData]);
+
   // UI state
   const handleTempDateChange = (range: DateRange | undefined) => {
     setTempDateRange(range || { from: undefined, to: undefined });
@@ -95,6 +108,7 @@ const OrganizeAnalyticsPage = () => {
   const handleApplyDateRange = () => {
     if (tempDateRange?.from && tempDateRange?.to) {
       setDateRange(tempDateRange);
+      setIsCustomRange(true);
       setIsCalendarOpen(false);
     }
   };
@@ -146,6 +160,7 @@ const OrganizeAnalyticsPage = () => {
         visitorTrend: visitorTrendData,
         revenueTrend: revenueTrendData,
         occas: allData, 
+        occasLifetime: !isCustomRange,
         dateRange: {
           from: dateRange.from,
           to: dateRange.to
@@ -354,7 +369,7 @@ const OrganizeAnalyticsPage = () => {
                     description=""
                     occas={topOccasData || []}
                     colors={COLORS}
-                    totalReach={analyticsData?.totalReach || 0}
+                    totalReach={topOccasTotalReach}
                   />
                 </div>
 
@@ -362,7 +377,11 @@ const OrganizeAnalyticsPage = () => {
                 <div>
                   <div className="mb-6">
                     <h3 className="text-lg font-medium">Tất cả sự kiện</h3>
-                    <p className="text-sm text-muted-foreground">Dữ liệu chi tiết về tất cả các sự kiện</p>
+                    <p className="text-sm text-muted-foreground">
+                      {isCustomRange
+                        ? 'Dữ liệu chi tiết về tất cả các sự kiện trong khoảng thời gian đã chọn'
+                        : 'Dữ liệu tích lũy từ trước đến nay của tất cả các sự kiện'}
+                    </p>
                   </div>
                   <OccasDataTable
                     title=""
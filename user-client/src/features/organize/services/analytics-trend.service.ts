@@ -162,14 +162,14 @@ class AnalyticsTrendService extends BaseService {
 
   /**
    * Get all occas analytics data with pagination
-   * @param dateRange Date range for analytics
+   * @param dateRange Date range for analytics, or null for lifetime figures (served from the server's pre-aggregated table)
    * @param page Page number
    * @param pageSize Number of items per page
    * @param sortField Field to sort by
    * @param sortOrder Sort order (asc or desc)
    */
   public getAllOccasAnalytics(
-    dateRange: [Date, Date], 
+    dateRange: [Date, Date] | null, 
     page: number = 1, 
     pageSize: number = 10,
     sortField: keyof OccaAnalyticsData = 'reach',
@@ -181,19 +181,26 @@ class AnalyticsTrendService extends BaseService {
     pageSize: number;
     totalPages: number;
   }> {
-    const [fromDate, toDate] = dateRange;
-    
-    // Set from date to start of day (00:00:00)
-    const from = new Date(fromDate);
-    from.setHours(0, 0, 0, 0);
-    
-    // Set to date to end of day (23:59:59)
-    const to = new Date(toDate);
-    to.setHours(23, 59, 59, 999);
+    let rangeQuery = '';
+    let daysDiff = 30;
+    if (dateRange) {
+      const [fromDate, toDate] = dateRange;
+
+      // Set from date to start of day (00:00:00)
+      const from = new Date(fromDate);
+      from.setHours(0, 0, 0, 0);
+
+      // Set to date to end of day (23:59:59)
+      const to = new Date(toDate);
+      to.setHours(23, 59, 59, 999);
+
+      rangeQuery = `from=${from.toISOString()}&to=${to.toISOString()}&`;
+      daysDiff = Math.ceil((to.getTime() - from.getTime()) / (1000 * 60 * 60 * 24));
+    }
 
     return this.request({
       method: 'GET',
-      url: `/organize/analytics/occas?from=${from.toISOString()}&to=${to.toISOString()}&page=${page}&pageSize=${pageSize}&sortField=${sortField}&sortOrder=${sortOrder}`,
+      url: `/organize/analytics/occas?${rangeQuery}page=${page}&pageSize=${pageSize}&sortField=${sortField}&sortOrder=${sortOrder}`,
       mockResponse: () => new Promise((resolve) => {
         // Generate mock data for all occas
         const eventList = [
@@ -215,7 +222,6 @@ class AnalyticsTrendService extends BaseService {
         ];
 
         // Calculate total reach value to be used as base
-        const daysDiff = Math.ceil((to.getTime() - from.getTime()) / (1000 * 60 * 60 * 24));
         const totalBaseReach = 180 * daysDiff;
 
         // Generate analytics data for each event
@@ -38,6 +38,8 @@ export const generateAnalyticsExcel = (
     visitorTrend?: TrendData[] | null,
     revenueTrend?: RevenueTrendData[] | null,
     occas?: OccaAnalyticsData[] | null,
+    // true when the occas list holds lifetime figures instead of the selected range
+    occasLifetime?: boolean,
     dateRange: { from: Date, to: Date }
   }
 ) => {
@@ -235,7 +237,9 @@ export const generateAnalyticsExcel = (
       // All Events Sheet  
       const occasData: ExcelData = [
         ['Danh sách sự kiện'],
-        ['Thời gian', `${format(data.dateRange.from, 'dd/MM/yyyy')} - ${format(data.dateRange.to, 'dd/MM/yyyy')}`],
+        ['Thời gian', data.occasLifetime
+          ? 'Tích lũy từ trước đến nay'
+          : `${format(data.dateRange.from, 'dd/MM/yyyy')} - ${format(data.dateRange.to, 'dd/MM/yyyy')}`],
         [''],
         ['ID', 'Tên sự kiện', 'Lượt tiếp cận', 'Doanh thu', 'Tỉ lệ lấp đầy (%)']
       ];